@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+/**
+ * <p>
+ * Defines how the type of a value is identified inside the datastream.
+ * </p>
+ * <p>
+ * {@link #Checksum} writes the full 8 byte CRC64 based id of the {@link org.apache.directmemory.lightning.metadata.ClassDefinition}.
+ * This strategy is used by default.<br>
+ * {@link #Compact} writes the index of the ClassDefinition inside the
+ * {@link org.apache.directmemory.lightning.metadata.ClassDefinitionContainer} as a varint, which needs only one or two
+ * bytes for most types. Both sides need to use the same ClassDefinitionContainer (as exchanged anyways for checksum
+ * comparison) to agree about the indexes.
+ * </p>
+ */
+public enum ClassIdStrategy
+{
+
+    /**
+     * The 8 byte CRC64 id of the ClassDefinition
+     */
+    Checksum,
+
+    /**
+     * Dense index of the ClassDefinition inside the ClassDefinitionContainer written as a varint
+     */
+    Compact
+
+}
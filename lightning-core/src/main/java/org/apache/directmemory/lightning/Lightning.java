@@ -86,10 +86,18 @@ public final class Lightning
 
         private ClassComparisonStrategy classComparisonStrategy = ClassComparisonStrategy.LightningChecksum;
 
+        private ClassIdStrategy classIdStrategy = ClassIdStrategy.Checksum;
+
+        private NumberEncodingStrategy numberEncodingStrategy = NumberEncodingStrategy.Fixed;
+
         private ValueNullableEvaluator valueNullableEvaluator = new DefaultValueNullableEvaluator();
 
         private File debugCacheDirectory = null;
 
+        private boolean recycleSerializationContexts = false;
+
+        private boolean deduplicateStrings = false;
+
         private Logger logger = new NoOpLogger();
 
         private Builder()
@@ -170,6 +178,51 @@ public final class Lightning
             return this;
         }
 
+        /**
+         * <p>
+         * The strategy to be used to identify the type of values in the datastream. There are two different strategies
+         * provided:
+         * </p>
+         * <p>
+         * {@link ClassIdStrategy#Checksum} writes the 8 byte CRC64 id of the class. This strategy is used by default.<br>
+         * {@link ClassIdStrategy#Compact} writes a small dense index of the class inside the
+         * {@link org.apache.directmemory.lightning.metadata.ClassDefinitionContainer} as a varint. This saves a lot of
+         * bytes for small messages and collections but both sides have to share the same ClassDefinitionContainer
+         * (see {@link Serializer#setClassDefinitionContainer(org.apache.directmemory.lightning.metadata.ClassDefinitionContainer)}).
+         * </p>
+         * 
+         * @param classIdStrategy The strategy to be used to write type information
+         * @return The actual builder instance for chaining
+         */
+        public Builder classIdStrategy( ClassIdStrategy classIdStrategy )
+        {
+            this.classIdStrategy = classIdStrategy;
+            return this;
+        }
+
+        /**
+         * <p>
+         * The strategy to be used to write lengths, sizes and ordinals by the built-in marshallers. There are two
+         * different strategies provided:
+         * </p>
+         * <p>
+         * {@link NumberEncodingStrategy#Fixed} writes 4 byte integers. This strategy is used by default.<br>
+         * {@link NumberEncodingStrategy#Varint} writes LEB128 variable length integers which needs only one byte for
+         * small collections, strings and enum ordinals.
+         * </p>
+         * <p>
+         * Both sides have to use the same strategy.
+         * </p>
+         * 
+         * @param numberEncodingStrategy The strategy to be used to write lengths, sizes and ordinals
+         * @return The actual builder instance for chaining
+         */
+        public Builder numberEncodingStrategy( NumberEncodingStrategy numberEncodingStrategy )
+        {
+            this.numberEncodingStrategy = numberEncodingStrategy;
+            return this;
+        }
+
         /**
          * Defines a bunch of {@link SerializerDefinition}s to be used by the final {@link Serializer}. Multiple calls
          * of this methods are possible.
@@ -202,7 +255,9 @@ public final class Lightning
          * Defines a user implementation of the {@link ValueNullableEvaluator} interface which is used to evaluate if a
          * {@link PropertyDescriptor} defined attribute can be null. A custom implementation should extends
          * {@link DefaultValueNullableEvaluator} to inherit all standard behavior. Custom implementations are needed to
-         * give Lightning an information if a value is nullable when using customized attribute annotations.
+         * give Lightning an information if a value is nullable when using customized attribute annotations.<br>
+         * Attributes evaluated as non nullable are written without a null marker, therefore both sides need to use the
+         * same evaluation rules.
          * 
          * @param valueNullableEvaluator A {@link ValueNullableEvaluator} implementation to evaluate a value is nullable
          *            or not
@@ -214,6 +269,37 @@ public final class Lightning
             return this;
         }
 
+        /**
+         * Enables recycling of the internal {@link SerializationContext}s. Instead of creating a new context (and all
+         * of its internal lookup tables) for every serialize / deserialize call, every thread keeps one context which
+         * is reset and reused for subsequent calls. This saves a lot of garbage when serializing many small objects.
+         * Contexts are strictly thread-confined so the {@link Serializer} stays threadsafe.
+         * 
+         * @param recycleSerializationContexts true to recycle contexts per thread, false to create a new one per call
+         * @return The actual builder instance for chaining
+         */
+        public Builder recycleSerializationContexts( boolean recycleSerializationContexts )
+        {
+            this.recycleSerializationContexts = recycleSerializationContexts;
+            return this;
+        }
+
+        /**
+         * Enables deduplication of {@link String} values. Within one serialize / deserialize call every distinct string
+         * is written only once, repeated occurrences are written as a small back-reference index and are deserialized
+         * to the same instance. This saves space and heap for data repeating the same strings (codes, ids, map keys,
+         * ...) but costs an additional lookup per string. Best combined with {@link NumberEncodingStrategy#Varint}.<br>
+         * Both sides have to use the same setting.
+         * 
+         * @param deduplicateStrings true to write repeated strings as back-references, false to always write them
+         * @return The actual builder instance for chaining
+         */
+        public Builder deduplicateStrings( boolean deduplicateStrings )
+        {
+            this.deduplicateStrings = deduplicateStrings;
+            return this;
+        }
+
         /**
          * A custom logger implementation can be given to the {@link Serializer} to redirect logging output to any other
          * logging framework like slf4j, log4j, java.util.Logging or even a custom framework.
@@ -236,7 +322,7 @@ public final class Lightning
          */
         public Serializer build()
         {
-            return new InternalSerializerCreator().setLogger( logger ).setSerializationStrategy( serializationStrategy ).setClassComparisonStrategy( classComparisonStrategy ).setAttributeAnnotation( attributeAnnotation ).setDebugCacheDirectory( debugCacheDirectory ).setValueNullableEvaluator( valueNullableEvaluator ).addSerializerDefinitions( serializerDefinitions ).build();
+            return new InternalSerializerCreator().setLogger( logger ).setSerializationStrategy( serializationStrategy ).setClassComparisonStrategy( classComparisonStrategy ).setClassIdStrategy( classIdStrategy ).setNumberEncodingStrategy( numberEncodingStrategy ).setAttributeAnnotation( attributeAnnotation ).setDebugCacheDirectory( debugCacheDirectory ).setValueNullableEvaluator( valueNullableEvaluator ).setRecycleSerializationContexts( recycleSerializationContexts ).setDeduplicateStrings( deduplicateStrings ).addSerializerDefinitions( serializerDefinitions ).build();
         }
     }
 
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+/**
+ * <p>
+ * Defines how lengths, sizes and ordinals (collection sizes, array lengths, string lengths, enum ordinals, ...) are
+ * written to the datastream by the built-in marshallers.
+ * </p>
+ * <p>
+ * {@link #Fixed} writes every value as a 4 byte integer. This strategy is used by default.<br>
+ * {@link #Varint} writes values as LEB128 variable length integers which needs only one byte for values up to 127 and
+ * two bytes for values up to 16383.
+ * </p>
+ * <p>
+ * The encoding of attribute values is not affected, single attributes can be marked to be written as (ZigZag encoded)
+ * varints by binding them to {@link org.apache.directmemory.lightning.base.VarIntMarshaller}.
+ * </p>
+ */
+public enum NumberEncodingStrategy
+{
+
+    /**
+     * Fixed 4 byte integers
+     */
+    Fixed,
+
+    /**
+     * LEB128 variable length integers
+     */
+    Varint
+
+}
@@ -18,9 +18,11 @@
  */
 package org.apache.directmemory.lightning;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 
 import org.apache.directmemory.lightning.instantiator.ObjectInstantiatorFactory;
+import org.apache.directmemory.lightning.metadata.ClassDefinition;
 import org.apache.directmemory.lightning.metadata.ClassDefinitionContainer;
 import org.apache.directmemory.lightning.metadata.ValueNullableEvaluator;
 
@@ -31,6 +33,10 @@ public interface SerializationContext
 
     SerializationStrategy getSerializationStrategy();
 
+    ClassIdStrategy getClassIdStrategy();
+
+    NumberEncodingStrategy getNumberEncodingStrategy();
+
     ObjectInstantiatorFactory getObjectInstantiatorFactory();
 
     Marshaller findMarshaller( Type type );
@@ -47,4 +53,44 @@ public interface SerializationContext
 
     long putUnmarshalledInstance( long refrenceId, Object instance );
 
+    /**
+     * Returns true if repeated {@link String}s are written as back-references to their first occurrence in the current
+     * serialize / deserialize call.
+     */
+    boolean isDeduplicateStrings();
+
+    /**
+     * Returns the index of an already written equal {@link String} or -1 if it was not written before.
+     */
+    int findStringIndex( String value );
+
+    /**
+     * Remembers a written {@link String} and returns its index.
+     */
+    int putMarshalledString( String value );
+
+    /**
+     * Returns the {@link String} read with the given index.
+     */
+    String findStringByIndex( int index );
+
+    /**
+     * Remembers a read {@link String} and returns its index.
+     */
+    int putUnmarshalledString( String value );
+
+    /**
+     * Writes the identifier of the given {@link ClassDefinition} (not the definition itself) to the target using the
+     * configured {@link ClassIdStrategy}.
+     */
+    void writeClassDefinition( ClassDefinition classDefinition, Target target )
+        throws IOException;
+
+    /**
+     * Reads an identifier written by {@link #writeClassDefinition(ClassDefinition, Target)} and resolves the matching
+     * {@link ClassDefinition}.
+     */
+    ClassDefinition readClassDefinition( Source source )
+        throws IOException;
+
 }
@@ -18,6 +18,9 @@
  */
 package org.apache.directmemory.lightning;
 
+import java.util.Iterator;
+import java.util.List;
+
 import org.apache.directmemory.lightning.metadata.ClassDefinitionContainer;
 
 public interface Serializer
@@ -31,4 +34,24 @@ public interface Serializer
 
     <V> V deserialize( Source source );
 
+    /**
+     * Serializes all values as one batch sharing a single serialization context. Every class id is only written once
+     * per batch, following values of the same class are tagged by a small batch local index. References and
+     * deduplicated strings are shared by all values of the batch. The batch must be read back using
+     * {@link #deserializeAll(Source)}.
+     */
+    void serializeAll( Iterable<?> values, Target target );
+
+    /**
+     * Deserializes a batch written by {@link #serializeAll(Iterable, Target)}.
+     */
+    <V> List<V> deserializeAll( Source source );
+
+    /**
+     * Returns an iterator lazily deserializing records written by consecutive {@link #serialize(Object, Target)} calls
+     * until the end of the source is reached. One serialization context is reused and reset between records, so
+     * memory stays bounded by the size of a single record.
+     */
+    <V> Iterator<V> deserializeStream( Source source );
+
 }
@@ -28,6 +28,14 @@ public interface Source
 
     long readableBytes();
 
+    /**
+     * Returns true if at least one more byte can be read. Stream based sources block until data arrives or the end of
+     * the stream is reached. Nothing is consumed, so this can be used to detect the end of the stream at record
+     * boundaries.
+     */
+    boolean hasRemaining()
+        throws IOException;
+
     int readBytes( byte[] bytes )
         throws IOException;
 
@@ -64,6 +72,31 @@ public interface Source
     String readString()
         throws IOException;
 
+    /**
+     * Reads and decodes length UTF8 encoded bytes written by {@link Target#writeUTF8(String, int)}. Implementations
+     * decode straight from their underlying memory where possible.
+     */
+    String readUTF8( int length )
+        throws IOException;
+
+    void readShorts( short[] values, int offset, int length )
+        throws IOException;
+
+    void readChars( char[] values, int offset, int length )
+        throws IOException;
+
+    void readInts( int[] values, int offset, int length )
+        throws IOException;
+
+    void readLongs( long[] values, int offset, int length )
+        throws IOException;
+
+    void readFloats( float[] values, int offset, int length )
+        throws IOException;
+
+    void readDoubles( double[] values, int offset, int length )
+        throws IOException;
+
     void clear()
         throws IOException;
 
@@ -64,6 +64,32 @@ public interface Target
     void writeString( String value )
         throws IOException;
 
+    /**
+     * Writes the UTF8 encoding of the given {@link String} without any length information. The given length must be
+     * the encoded length in bytes as returned by UnicodeUtil#UTF8Length. Implementations encode straight into their
+     * underlying memory where possible.
+     */
+    void writeUTF8( String value, int length )
+        throws IOException;
+
+    void writeShorts( short[] values, int offset, int length )
+        throws IOException;
+
+    void writeChars( char[] values, int offset, int length )
+        throws IOException;
+
+    void writeInts( int[] values, int offset, int length )
+        throws IOException;
+
+    void writeLongs( long[] values, int offset, int length )
+        throws IOException;
+
+    void writeFloats( float[] values, int offset, int length )
+        throws IOException;
+
+    void writeDoubles( double[] values, int offset, int length )
+        throws IOException;
+
     void clear()
         throws IOException;
 
@@ -24,6 +24,8 @@ import org.apache.directmemory.lightning.Marshaller;
 import org.apache.directmemory.lightning.SerializationContext;
 import org.apache.directmemory.lightning.Source;
 import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
 
 public abstract class AbstractMarshaller
@@ -51,4 +53,51 @@ public abstract class AbstractMarshaller
         byte isNull = source.readByte();
         return isNull == 1 ? true : false;
     }
+
+    /**
+     * Writes the null marker only if the property is nullable as defined by the
+     * {@link org.apache.directmemory.lightning.metadata.ValueNullableEvaluator}. Null values of non nullable
+     * properties are rejected.
+     */
+    protected boolean writePossibleNull( Object value, PropertyDescriptor propertyDescriptor, Target target )
+        throws IOException
+    {
+        if ( propertyDescriptor == null || propertyDescriptor.isNullable() )
+        {
+            return writePossibleNull( value, target );
+        }
+
+        if ( value == null )
+        {
+            throw new SerializerExecutionException( "Property " + propertyDescriptor.getPropertyName() + " of "
+                + propertyDescriptor.getDefinedClass().getName() + " is defined as non nullable but value is null" );
+        }
+        return true;
+    }
+
+    protected boolean isNull( PropertyDescriptor propertyDescriptor, Source source )
+        throws IOException
+    {
+        if ( propertyDescriptor == null || propertyDescriptor.isNullable() )
+        {
+            return isNull( source );
+        }
+        return false;
+    }
+
+    /**
+     * Writes a length, size or ordinal using the configured
+     * {@link org.apache.directmemory.lightning.NumberEncodingStrategy}.
+     */
+    protected void writeLength( int length, Target target, SerializationContext serializationContext )
+        throws IOException
+    {
+        VarIntUtils.putLength( length, target, serializationContext );
+    }
+
+    protected int readLength( Source source, SerializationContext serializationContext )
+        throws IOException
+    {
+        return VarIntUtils.getLength( source, serializationContext );
+    }
 }
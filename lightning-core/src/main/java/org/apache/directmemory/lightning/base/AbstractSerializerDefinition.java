@@ -65,6 +65,8 @@ public abstract class AbstractSerializerDefinition
     private final Map<AnnotatedBinder, AnnotationBinderDefinition<?>> annotationBinders =
         new HashMap<AnnotatedBinder, AnnotationBinderDefinition<?>>();
 
+    private final Map<Class<?>, Boolean> referenceTrackings = new HashMap<Class<?>, Boolean>();
+
     private DefinitionBuildingContext definitionBuildingContext;
 
     private ObjectInstantiatorFactory objectInstantiatorFactory = null;
@@ -130,6 +132,12 @@ public abstract class AbstractSerializerDefinition
             visitor.visitClassDefine( type, entry.getValue() );
         }
 
+        // Visit all class level reference tracking policies
+        for ( Entry<Class<?>, Boolean> entry : referenceTrackings.entrySet() )
+        {
+            visitor.visitReferenceTracking( entry.getKey(), entry.getValue() );
+        }
+
         // Visit all children
         for ( SerializerDefinition child : children )
         {
@@ -263,6 +271,13 @@ public abstract class AbstractSerializerDefinition
 
             }
 
+            @Override
+            public ClassBinder<T> trackReferences( boolean trackReferences )
+            {
+                referenceTrackings.put( clazz, trackReferences );
+                return this;
+            }
+
             @Override
             public void attributes( AttributeBinder<?>... attributes )
             {
@@ -349,6 +364,14 @@ public abstract class AbstractSerializerDefinition
 
         public void acceptVisitor( DefinitionVisitor visitor )
         {
+            acceptVisitor( visitor, new HashSet<Class<?>>() );
+        }
+
+        private void acceptVisitor( DefinitionVisitor visitor, Set<Class<?>> visitedTypes )
+        {
+            // Remember visited types so self referencing or cyclic type graphs do not recurse endlessly
+            visitedTypes.add( classBinder.getType() );
+
             MarshallerContext marshallers = combineMarshallers( AbstractSerializerDefinition.this );
             List<PropertyDescriptor> propertyDescriptors =
                 typeIntrospector.introspect( classBinder.getType(), definitionBuildingContext.getMarshallerStrategy(),
@@ -365,20 +388,21 @@ public abstract class AbstractSerializerDefinition
                     continue;
                 }
 
-                visitor.visitClassDefine( !fieldType.isArray() ? fieldType : fieldType.getComponentType(), marshaller );
-                if ( marshaller == null )
+                Class<?> definedType = !fieldType.isArray() ? fieldType : fieldType.getComponentType();
+                visitor.visitClassDefine( definedType, marshaller );
+                if ( marshaller == null && !visitedTypes.contains( definedType ) )
                 {
-                    visitFieldTypeAnnotatedProperties( !fieldType.isArray() ? fieldType : fieldType.getComponentType(),
-                                                       visitor );
+                    visitFieldTypeAnnotatedProperties( definedType, visitor, visitedTypes );
                 }
             }
         }
 
         @SuppressWarnings( "unchecked" )
-        private <F> void visitFieldTypeAnnotatedProperties( Class<?> type, DefinitionVisitor visitor )
+        private <F> void visitFieldTypeAnnotatedProperties( Class<?> type, DefinitionVisitor visitor,
+                                                            Set<Class<?>> visitedTypes )
         {
             ClassBinder<F> classBinder = (ClassBinder<F>) buildClassBinder( type );
-            new AnnotationBinderDefinition<F>( classBinder ).acceptVisitor( visitor );
+            new AnnotationBinderDefinition<F>( classBinder ).acceptVisitor( visitor, visitedTypes );
         }
 
         private MarshallerContext combineMarshallers( AbstractSerializerDefinition abstractSerializerDefinition )
@@ -397,6 +421,8 @@ public abstract class AbstractSerializerDefinition
 
         protected Class<?> declaringClass;
 
+        protected Boolean referenceTracking;
+
         protected void setDeclaringClass( Class<?> declaringClass )
         {
             this.declaringClass = declaringClass;
@@ -425,10 +451,21 @@ public abstract class AbstractSerializerDefinition
                 Type[] typeArguments = TypeUtil.getTypeArgument( property.getGenericType() );
                 this.marshaller = ( (TypeBindableMarshaller) marshaller ).bindType( typeArguments );
             }
+            else
+            {
+                this.marshaller = marshaller;
+            }
 
             return this;
         }
 
+        @Override
+        public AttributeBinder<V> trackReferences( boolean trackReferences )
+        {
+            this.referenceTracking = trackReferences;
+            return this;
+        }
+
         private void build()
         {
             if ( marshaller == null )
@@ -439,7 +476,8 @@ public abstract class AbstractSerializerDefinition
             }
             propertyMarshallers.put( definitionBuildingContext.getPropertyDescriptorFactory().byField( property,
                                                                                                        marshaller,
-                                                                                                       declaringClass ),
+                                                                                                       declaringClass,
+                                                                                                       referenceTracking ),
                                      marshaller );
         }
     }
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.base;
+
+import java.io.IOException;
+
+import org.apache.directmemory.lightning.SerializationContext;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
+
+/**
+ * Marshaller writing {@link String} attributes as ISO-8859-1 (Latin-1) with one byte per character. Strings holding
+ * characters outside of the Latin-1 range are still written as UTF-8, a flag in the length header tells both forms
+ * apart. Bind it to single attributes which mostly hold western european text:<br>
+ * 
+ * <pre>
+ * serialize( Foo.class ).attributes( attribute( &quot;name&quot; ).using( Latin1StringMarshaller.class ) );
+ * </pre>
+ */
+public class Latin1StringMarshaller
+    extends AbstractMarshaller
+{
+
+    @Override
+    public boolean acceptType( Class<?> type )
+    {
+        return String.class == type;
+    }
+
+    @Override
+    public void marshall( Object value, PropertyDescriptor propertyDescriptor, Target target,
+                          SerializationContext serializationContext )
+        throws IOException
+    {
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
+        {
+            return;
+        }
+
+        // The lowest bit of the length marks Latin-1 encoded strings
+        String string = (String) value;
+        if ( UnicodeUtil.isLatin1( string ) )
+        {
+            writeLength( string.length() << 1 | 1, target, serializationContext );
+            UnicodeUtil.writeLatin1( string, target );
+        }
+        else
+        {
+            int length = UnicodeUtil.UTF8Length( string );
+            writeLength( length << 1, target, serializationContext );
+            target.writeUTF8( string, length );
+        }
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public <V> V unmarshall( PropertyDescriptor propertyDescriptor, Source source,
+                             SerializationContext serializationContext )
+        throws IOException
+    {
+        if ( isNull( propertyDescriptor, source ) )
+        {
+            return null;
+        }
+
+        int header = readLength( source, serializationContext );
+        if ( ( header & 1 ) == 1 )
+        {
+            return (V) UnicodeUtil.readLatin1( header >>> 1, source );
+        }
+
+        return (V) source.readUTF8( header >>> 1 );
+    }
+}
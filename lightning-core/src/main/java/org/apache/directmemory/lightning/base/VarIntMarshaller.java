@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.base;
+
+import java.io.IOException;
+
+import org.apache.directmemory.lightning.SerializationContext;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
+import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
+
+/**
+ * Marshaller writing short, int and long attributes (and their wrappers) as ZigZag encoded variable length integers.
+ * Small values (positive or negative) only need one or two bytes in the datastream. Bind it to single attributes which
+ * are known to mostly hold small values:<br>
+ * 
+ * <pre>
+ * serialize( Foo.class ).attributes( attribute( &quot;counter&quot; ).using( VarIntMarshaller.class ) );
+ * </pre>
+ */
+public class VarIntMarshaller
+    extends AbstractMarshaller
+{
+
+    @Override
+    public boolean acceptType( Class<?> type )
+    {
+        return short.class == type || Short.class == type || int.class == type || Integer.class == type
+            || long.class == type || Long.class == type;
+    }
+
+    @Override
+    public void marshall( Object value, PropertyDescriptor propertyDescriptor, Target target,
+                          SerializationContext serializationContext )
+        throws IOException
+    {
+        Class<?> type = propertyDescriptor.getType();
+        if ( !type.isPrimitive() )
+        {
+            if ( !writePossibleNull( value, propertyDescriptor, target ) )
+            {
+                return;
+            }
+        }
+
+        if ( long.class == type || Long.class == type )
+        {
+            VarIntUtils.putZigZagLong( (Long) value, target );
+        }
+        else
+        {
+            VarIntUtils.putZigZagInt( ( (Number) value ).intValue(), target );
+        }
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public <V> V unmarshall( PropertyDescriptor propertyDescriptor, Source source,
+                             SerializationContext serializationContext )
+        throws IOException
+    {
+        Class<?> type = propertyDescriptor.getType();
+        if ( !type.isPrimitive() )
+        {
+            if ( isNull( propertyDescriptor, source ) )
+            {
+                return null;
+            }
+        }
+
+        if ( long.class == type || Long.class == type )
+        {
+            return (V) Long.valueOf( VarIntUtils.getZigZagLong( source ) );
+        }
+        else if ( short.class == type || Short.class == type )
+        {
+            return (V) Short.valueOf( (short) VarIntUtils.getZigZagInt( source ) );
+        }
+
+        return (V) Integer.valueOf( VarIntUtils.getZigZagInt( source ) );
+    }
+}
@@ -27,4 +27,10 @@ public interface AttributeBinder<V>
 
     AttributeBinder<V> using( Marshaller marshaller );
 
+    /**
+     * Defines if values of this attribute are tracked by identity, overriding the policy of the value's class and the
+     * global {@link org.apache.directmemory.lightning.SerializationStrategy}.
+     */
+    AttributeBinder<V> trackReferences( boolean trackReferences );
+
 }
@@ -38,6 +38,12 @@ public interface ClassBinder<T>
 
     void using( TypeIntrospector typeIntrospector );
 
+    /**
+     * Defines if instances of this class are tracked by identity so shared or cyclic references are written only once.
+     * If not set the global {@link org.apache.directmemory.lightning.SerializationStrategy} decides.
+     */
+    ClassBinder<T> trackReferences( boolean trackReferences );
+
     Class<T> getType();
 
 }
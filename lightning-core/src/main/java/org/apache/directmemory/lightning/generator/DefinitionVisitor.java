@@ -38,6 +38,8 @@ public interface DefinitionVisitor
 
     void visitPropertyDescriptor( PropertyDescriptor propertyDescriptor, Marshaller marshaller );
 
+    void visitReferenceTracking( Class<?> type, boolean trackReferences );
+
     void visitFinalizeSerializerDefinition( SerializerDefinition serializerDefinition );
 
 }
@@ -31,4 +31,6 @@ public interface PropertyDescriptorFactory
 
     PropertyDescriptor byField( Field field, Marshaller marshaller, Class<?> definedClass );
 
+    PropertyDescriptor byField( Field field, Marshaller marshaller, Class<?> definedClass, Boolean referenceTracking );
+
 }
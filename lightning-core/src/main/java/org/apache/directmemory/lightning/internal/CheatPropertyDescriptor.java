@@ -144,6 +144,18 @@ public class CheatPropertyDescriptor
         return marshaller;
     }
 
+    @Override
+    public boolean isNullable()
+    {
+        return true;
+    }
+
+    @Override
+    public Boolean getReferenceTracking()
+    {
+        return null;
+    }
+
     @Override
     public int hashCode()
     {
@@ -26,15 +26,23 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.directmemory.lightning.internal.util.ClassUtil;
 import org.apache.directmemory.lightning.internal.util.FastLongMap;
 import org.apache.directmemory.lightning.metadata.ClassDefinition;
 import org.apache.directmemory.lightning.metadata.ClassDefinitionContainer;
 
+import com.carrotsearch.hppc.LongIntMap;
+import com.carrotsearch.hppc.LongIntOpenHashMap;
+
 class InternalClassDefinitionContainer
     implements ClassDefinitionContainer, Serializable
 {
@@ -46,17 +54,33 @@ class InternalClassDefinitionContainer
     // private final LongObjectMap<ClassDefinition> classDefinitionsMappings;
     private final transient FastLongMap<ClassDefinition> classDefinitionsMappings;
 
+    private final transient LongIntMap compactIdMappings;
+
+    private final transient Map<Class<?>, ClassDefinition> typeMappings;
+
+    private final transient Map<String, ClassDefinition> canonicalNameMappings;
+
+    // Subtypes of List, Set and Map resolve to their collection type's definition, remember the result
+    private final transient ConcurrentMap<Class<?>, ClassDefinition> resolvedTypeMappings =
+        new ConcurrentHashMap<Class<?>, ClassDefinition>();
+
     // Serialization
     private InternalClassDefinitionContainer( ClassDefinition[] classDefinitions )
     {
-        this.classDefinitions = classDefinitions;
+        this.classDefinitions = sortById( classDefinitions );
         this.classDefinitionsMappings = new FastLongMap<ClassDefinition>();
+        this.compactIdMappings = new LongIntOpenHashMap();
+        this.typeMappings = new IdentityHashMap<Class<?>, ClassDefinition>();
+        this.canonicalNameMappings = new HashMap<String, ClassDefinition>();
     }
 
     InternalClassDefinitionContainer( Set<ClassDefinition> classDefinitions )
     {
-        this.classDefinitions = classDefinitions.toArray( new ClassDefinition[classDefinitions.size()] );
+        this.classDefinitions = sortById( classDefinitions.toArray( new ClassDefinition[classDefinitions.size()] ) );
         this.classDefinitionsMappings = new FastLongMap<ClassDefinition>( classDefinitions.size() );
+        this.compactIdMappings = new LongIntOpenHashMap( classDefinitions.size() );
+        this.typeMappings = new IdentityHashMap<Class<?>, ClassDefinition>( classDefinitions.size() );
+        this.canonicalNameMappings = new HashMap<String, ClassDefinition>( classDefinitions.size() );
         initMappings( this.classDefinitions );
     }
 
@@ -76,14 +100,7 @@ class InternalClassDefinitionContainer
     @Override
     public ClassDefinition getClassDefinitionByCanonicalName( String canonicalName )
     {
-        for ( ClassDefinition classDefinition : classDefinitions )
-        {
-            if ( classDefinition.getCanonicalName().equals( canonicalName ) )
-            {
-                return classDefinition;
-            }
-        }
-        return null;
+        return canonicalNameMappings.get( canonicalName );
     }
 
     @Override
@@ -95,6 +112,22 @@ class InternalClassDefinitionContainer
 
     @Override
     public ClassDefinition getClassDefinitionByType( Class<?> type )
+    {
+        ClassDefinition classDefinition = resolvedTypeMappings.get( type );
+        if ( classDefinition != null )
+        {
+            return classDefinition;
+        }
+
+        classDefinition = typeMappings.get( resolveType( type ) );
+        if ( classDefinition != null )
+        {
+            resolvedTypeMappings.putIfAbsent( type, classDefinition );
+        }
+        return classDefinition;
+    }
+
+    private Class<?> resolveType( Class<?> type )
     {
         if ( List.class.isAssignableFrom( type ) )
         {
@@ -108,23 +141,55 @@ class InternalClassDefinitionContainer
         {
             type = Map.class;
         }
+        return type;
+    }
+
+    @Override
+    public int getCompactId( long id )
+    {
+        // Indexes are stored incremented by one since 0 marks a missing key
+        return compactIdMappings.get( id ) - 1;
+    }
+
+    @Override
+    public ClassDefinition getClassDefinitionByCompactId( int compactId )
+    {
+        return compactId >= 0 && compactId < classDefinitions.length ? classDefinitions[compactId] : null;
+    }
 
-        for ( ClassDefinition classDefinition : classDefinitions )
+    private void initMappings( ClassDefinition[] classDefinitions )
+    {
+        for ( int i = 0; i < classDefinitions.length; i++ )
         {
-            if ( classDefinition.getType() == type )
+            ClassDefinition classDefinition = classDefinitions[i];
+            classDefinitionsMappings.put( classDefinition.getId(), classDefinition );
+            compactIdMappings.put( classDefinition.getId(), i + 1 );
+
+            // First definition wins, just like the former linear lookups
+            if ( !typeMappings.containsKey( classDefinition.getType() ) )
+            {
+                typeMappings.put( classDefinition.getType(), classDefinition );
+            }
+            if ( !canonicalNameMappings.containsKey( classDefinition.getCanonicalName() ) )
             {
-                return classDefinition;
+                canonicalNameMappings.put( classDefinition.getCanonicalName(), classDefinition );
             }
         }
-        return null;
     }
 
-    private void initMappings( ClassDefinition[] classDefinitions )
+    // Sorting makes compact ids (array indexes) independent from the set's iteration order
+    private static ClassDefinition[] sortById( ClassDefinition[] classDefinitions )
     {
-        for ( ClassDefinition classDefinition : classDefinitions )
+        Arrays.sort( classDefinitions, new Comparator<ClassDefinition>()
         {
-            classDefinitionsMappings.put( classDefinition.getId(), classDefinition );
-        }
+
+            @Override
+            public int compare( ClassDefinition o1, ClassDefinition o2 )
+            {
+                return o1.getId() < o2.getId() ? -1 : ( o1.getId() == o2.getId() ? 0 : 1 );
+            }
+        } );
+        return classDefinitions;
     }
 
     Object writeReplace()
@@ -163,7 +228,8 @@ class InternalClassDefinitionContainer
             List<ClassDefinition> selectedClassDefinitions = new ArrayList<ClassDefinition>();
             for ( ClassDefinition classDefinition : classDefinitionContainer.classDefinitions )
             {
-                if ( classDefinition.getId() < 1000 )
+                // Built-in definitions are prepended by the receiver, CRC64 ids of user classes can be of any sign
+                if ( ClassUtil.isBuildInTypeClassDefinition( classDefinition ) )
                 {
                     continue;
                 }
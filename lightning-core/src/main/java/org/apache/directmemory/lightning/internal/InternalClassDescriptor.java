@@ -43,6 +43,8 @@ public class InternalClassDescriptor
 
     private Marshaller marshaller;
 
+    private Boolean referenceTracking;
+
     public InternalClassDescriptor( Class<?> type, Logger logger )
     {
         this.type = type;
@@ -73,6 +75,12 @@ public class InternalClassDescriptor
         return marshaller;
     }
 
+    @Override
+    public Boolean getReferenceTracking()
+    {
+        return referenceTracking;
+    }
+
     public boolean push( PropertyDescriptor propertyDescriptor )
     {
         return propertyDescriptors.add( propertyDescriptor );
@@ -83,6 +91,11 @@ public class InternalClassDescriptor
         this.marshaller = marshaller;
     }
 
+    public void setReferenceTracking( Boolean referenceTracking )
+    {
+        this.referenceTracking = referenceTracking;
+    }
+
     public ClassDescriptor build( ClassDefinition[] classDefinitions )
     {
         for ( ClassDefinition classDefinition : classDefinitions )
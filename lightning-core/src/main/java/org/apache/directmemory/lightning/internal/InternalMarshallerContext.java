@@ -19,9 +19,11 @@
 package org.apache.directmemory.lightning.internal;
 
 import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.directmemory.lightning.Marshaller;
 import org.apache.directmemory.lightning.MarshallerContext;
-import org.apache.directmemory.lightning.internal.util.FastIntMap;
 
 public class InternalMarshallerContext
     implements MarshallerContext
@@ -29,21 +31,20 @@ public class InternalMarshallerContext
 
     private final MarshallerContext parentMarshallerContext;
 
-    // private final ObjectObjectMap<Type, Marshaller> marshallers = new ObjectObjectOpenHashMap<Type, Marshaller>();
-    // private Map<Type, Marshaller> marshallers;
-    private final FastIntMap<Marshaller> marshallers;
+    // Keyed by the type itself, identity hash codes of different types might collide
+    private final Map<Type, Marshaller> marshallers;
 
-    public InternalMarshallerContext( FastIntMap<Marshaller> marshallers )
+    public InternalMarshallerContext( Map<Type, Marshaller> marshallers )
     {
         this( null, marshallers );
     }
 
     public InternalMarshallerContext( MarshallerContext parentMarshallerContext )
     {
-        this( parentMarshallerContext, new FastIntMap<Marshaller>() );
+        this( parentMarshallerContext, new HashMap<Type, Marshaller>() );
     }
 
-    public InternalMarshallerContext( MarshallerContext parentMarshallerContext, FastIntMap<Marshaller> marshallers )
+    public InternalMarshallerContext( MarshallerContext parentMarshallerContext, Map<Type, Marshaller> marshallers )
     {
         this.parentMarshallerContext = parentMarshallerContext;
         this.marshallers = marshallers;
@@ -52,7 +53,7 @@ public class InternalMarshallerContext
     @Override
     public Marshaller getMarshaller( Type type )
     {
-        Marshaller marshaller = marshallers.get( System.identityHashCode( type ) );
+        Marshaller marshaller = marshallers.get( type );
         if ( marshaller != null )
         {
             return marshaller;
@@ -69,7 +70,7 @@ public class InternalMarshallerContext
     @Override
     public void bindMarshaller( Type type, Marshaller marshaller )
     {
-        marshallers.put( System.identityHashCode( type ), marshaller );
+        marshallers.put( type, marshaller );
     }
 
 }
@@ -24,6 +24,8 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.directmemory.lightning.Marshaller;
 import org.apache.directmemory.lightning.MarshallerContext;
@@ -101,6 +103,14 @@ public class InternalMarshallerStrategy
 
     private final Marshaller streamedMarshaller = new StreamedMarshaller();
 
+    // Caches the constants of all enums it has seen, so it must not outlive the serializer (and its classloaders)
+    private final Marshaller enumMarshaller = new EnumMarshaller();
+
+    // Base marshallers are shared and stateless so the first accepting one can be remembered per class, the stateful
+    // enum marshaller is replaced by the strategy's own instance
+    private final ConcurrentMap<Class<?>, Marshaller> baseMarshallerMappings =
+        new ConcurrentHashMap<Class<?>, Marshaller>();
+
     @Override
     public Marshaller getMarshaller( Type type, MarshallerContext marshallerContext )
     {
@@ -130,12 +140,10 @@ public class InternalMarshallerStrategy
             }
         }
 
-        for ( Marshaller temp : baseMarshaller )
+        Marshaller marshaller = findBaseMarshaller( rawType );
+        if ( marshaller != null )
         {
-            if ( temp.acceptType( rawType ) )
-            {
-                return temp;
-            }
+            return marshaller;
         }
 
         if ( !baseMarshallersOnly && Serializable.class.isAssignableFrom( rawType ) && !rawType.isArray() )
@@ -145,4 +153,27 @@ public class InternalMarshallerStrategy
 
         return null;
     }
+
+    private Marshaller findBaseMarshaller( Class<?> rawType )
+    {
+        Marshaller marshaller = baseMarshallerMappings.get( rawType );
+        if ( marshaller != null )
+        {
+            return marshaller;
+        }
+
+        for ( Marshaller temp : baseMarshaller )
+        {
+            if ( temp.acceptType( rawType ) )
+            {
+                if ( temp instanceof EnumMarshaller )
+                {
+                    temp = enumMarshaller;
+                }
+                baseMarshallerMappings.putIfAbsent( rawType, temp );
+                return temp;
+            }
+        }
+        return null;
+    }
 }
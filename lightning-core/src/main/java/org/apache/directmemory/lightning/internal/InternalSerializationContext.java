@@ -18,31 +18,46 @@
  */
 package org.apache.directmemory.lightning.internal;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
-import java.util.IdentityHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.directmemory.lightning.ClassIdStrategy;
 import org.apache.directmemory.lightning.Marshaller;
 import org.apache.directmemory.lightning.MarshallerContext;
 import org.apache.directmemory.lightning.MarshallerStrategy;
+import org.apache.directmemory.lightning.NumberEncodingStrategy;
 import org.apache.directmemory.lightning.SerializationContext;
 import org.apache.directmemory.lightning.SerializationStrategy;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.Target;
 import org.apache.directmemory.lightning.TypeBindableMarshaller;
+import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
 import org.apache.directmemory.lightning.instantiator.ObjectInstantiatorFactory;
-import org.apache.directmemory.lightning.internal.util.FastIntMap;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
+import org.apache.directmemory.lightning.internal.marshaller.ResolvableMarshaller;
+import org.apache.directmemory.lightning.internal.util.IdentityIntMap;
 import org.apache.directmemory.lightning.internal.util.TypeUtil;
+import org.apache.directmemory.lightning.metadata.ClassDefinition;
 import org.apache.directmemory.lightning.metadata.ClassDefinitionContainer;
 import org.apache.directmemory.lightning.metadata.ValueNullableEvaluator;
 
-import com.carrotsearch.hppc.LongObjectMap;
-import com.carrotsearch.hppc.LongObjectOpenHashMap;
-
 public class InternalSerializationContext
     implements SerializationContext
 {
 
-    private final Map<Object, Long> referencesMarshall;
+    // Reference ids are dense indexes in order of first occurrence, so unmarshalled instances are kept in an array.
+    // Both tables are created lazily since reference tracking can be enabled per class or attribute.
+    private IdentityIntMap referencesMarshall;
+
+    private Object[] referencesUnmarshall;
 
-    private final LongObjectMap<Object> referencesUnmarshall;
+    private int referencesUnmarshallSize;
 
     private final MarshallerContext marshallerContext;
 
@@ -50,39 +65,56 @@ public class InternalSerializationContext
 
     private final SerializationStrategy serializationStrategy;
 
+    private final ClassIdStrategy classIdStrategy;
+
+    private final NumberEncodingStrategy numberEncodingStrategy;
+
+    // Only created if string deduplication is enabled
+    private final Map<String, Integer> stringsMarshall;
+
+    private final List<String> stringsUnmarshall;
+
     private final MarshallerStrategy marshallerStrategy;
 
     private final ObjectInstantiatorFactory objectInstantiatorFactory;
 
     private final ValueNullableEvaluator valueNullableEvaluator;
 
-    private long nextReferenceIdMarshall = 10000;
+    // Serializer wide cache of TypeBindableMarshallers bound to their generic types
+    private final ConcurrentMap<Type, Marshaller> boundMarshallers;
 
     public InternalSerializationContext( ClassDefinitionContainer classDefinitionContainer,
                                          SerializationStrategy serializationStrategy,
+                                         ClassIdStrategy classIdStrategy,
+                                         NumberEncodingStrategy numberEncodingStrategy,
+                                         boolean deduplicateStrings,
                                          MarshallerStrategy marshallerStrategy,
                                          ObjectInstantiatorFactory objectInstantiatorFactory,
                                          ValueNullableEvaluator valueNullableEvaluator,
-                                         FastIntMap<Marshaller> definedMarshallers )
+                                         Map<Type, Marshaller> definedMarshallers,
+                                         ConcurrentMap<Type, Marshaller> boundMarshallers )
     {
 
         this.classDefinitionContainer = classDefinitionContainer;
         this.serializationStrategy = serializationStrategy;
+        this.classIdStrategy = classIdStrategy;
+        this.numberEncodingStrategy = numberEncodingStrategy;
         this.marshallerStrategy = marshallerStrategy;
         this.objectInstantiatorFactory = objectInstantiatorFactory;
         this.valueNullableEvaluator = valueNullableEvaluator;
+        this.boundMarshallers = boundMarshallers;
 
         this.marshallerContext = new InternalMarshallerContext( definedMarshallers );
 
-        if ( serializationStrategy == SerializationStrategy.SizeOptimized )
+        if ( deduplicateStrings )
         {
-            this.referencesMarshall = new IdentityHashMap<Object, Long>();
-            this.referencesUnmarshall = new LongObjectOpenHashMap<Object>();
+            this.stringsMarshall = new HashMap<String, Integer>();
+            this.stringsUnmarshall = new ArrayList<String>();
         }
         else
         {
-            this.referencesMarshall = null;
-            this.referencesUnmarshall = null;
+            this.stringsMarshall = null;
+            this.stringsUnmarshall = null;
         }
     }
 
@@ -98,6 +130,18 @@ public class InternalSerializationContext
         return serializationStrategy;
     }
 
+    @Override
+    public ClassIdStrategy getClassIdStrategy()
+    {
+        return classIdStrategy;
+    }
+
+    @Override
+    public NumberEncodingStrategy getNumberEncodingStrategy()
+    {
+        return numberEncodingStrategy;
+    }
+
     @Override
     public ObjectInstantiatorFactory getObjectInstantiatorFactory()
     {
@@ -107,18 +151,18 @@ public class InternalSerializationContext
     @Override
     public long findReferenceIdByObject( Object instance )
     {
-        Long referenceId = referencesMarshall.get( instance );
-        if ( referenceId == null )
-        {
-            return -1;
-        }
-        return referenceId;
+        return referencesMarshall != null ? referencesMarshall.get( instance ) : -1;
     }
 
     @Override
     public long putMarshalledInstance( Object instance )
     {
-        long newId = getNextReferenceIdMarshall();
+        if ( referencesMarshall == null )
+        {
+            referencesMarshall = new IdentityIntMap();
+        }
+
+        int newId = referencesMarshall.size();
         referencesMarshall.put( instance, newId );
         return newId;
     }
@@ -126,50 +170,171 @@ public class InternalSerializationContext
     @Override
     public Object findObjectByReferenceId( long referenceId )
     {
-        return referencesUnmarshall.get( referenceId );
+        return containsReferenceId( referenceId ) ? referencesUnmarshall[(int) referenceId] : null;
     }
 
     @Override
     public boolean containsReferenceId( long referenceId )
     {
-        return referencesUnmarshall.containsKey( referenceId );
+        return referenceId >= 0 && referenceId < referencesUnmarshallSize;
     }
 
     @Override
     public long putUnmarshalledInstance( long refrenceId, Object instance )
     {
-        referencesUnmarshall.put( refrenceId, instance );
+        if ( refrenceId < 0 || refrenceId > referencesUnmarshallSize )
+        {
+            throw new SerializerExecutionException( "Reference id " + refrenceId + " is out of sequence" );
+        }
+
+        if ( referencesUnmarshall == null )
+        {
+            referencesUnmarshall = new Object[16];
+        }
+
+        int index = (int) refrenceId;
+        if ( index == referencesUnmarshallSize )
+        {
+            if ( index == referencesUnmarshall.length )
+            {
+                referencesUnmarshall = Arrays.copyOf( referencesUnmarshall, index << 1 );
+            }
+            referencesUnmarshallSize++;
+        }
+        referencesUnmarshall[index] = instance;
         return refrenceId;
     }
 
     @Override
     public Marshaller findMarshaller( Type type )
     {
+        Marshaller marshaller = boundMarshallers.get( type );
+        if ( marshaller != null )
+        {
+            return marshaller;
+        }
+
         Class<?> rawType = TypeUtil.getBaseType( type );
-        Marshaller marshaller = marshallerStrategy.getMarshaller( rawType, marshallerContext, false );
+        marshaller = marshallerStrategy.getMarshaller( rawType, marshallerContext, false );
 
         if ( marshaller instanceof TypeBindableMarshaller )
         {
             Type[] typeArguments = TypeUtil.getTypeArgument( type );
-            marshaller = ( (TypeBindableMarshaller) marshaller ).bindType( typeArguments );
+            Marshaller boundMarshaller = ( (TypeBindableMarshaller) marshaller ).bindType( typeArguments );
+            if ( boundMarshaller instanceof ResolvableMarshaller )
+            {
+                // Resolve everything up front since the bound marshaller is shared between threads
+                boundMarshaller = ( (ResolvableMarshaller) boundMarshaller ).resolve( this );
+            }
+
+            Marshaller existingMarshaller = boundMarshallers.putIfAbsent( type, boundMarshaller );
+            marshaller = existingMarshaller != null ? existingMarshaller : boundMarshaller;
         }
 
         return marshaller;
     }
 
-    public Map<Object, Long> getReferencesMarshall()
+    @Override
+    public void writeClassDefinition( ClassDefinition classDefinition, Target target )
+        throws IOException
     {
-        return referencesMarshall;
+        if ( classIdStrategy == ClassIdStrategy.Compact )
+        {
+            int compactId = classDefinitionContainer.getCompactId( classDefinition.getId() );
+            if ( compactId == -1 )
+            {
+                throw new SerializerExecutionException( "No ClassDefinition for type "
+                    + classDefinition.getCanonicalName() + " found in ClassDefinitionContainer" );
+            }
+            VarIntUtils.putVarInt( compactId, target );
+        }
+        else
+        {
+            target.writeLong( classDefinition.getId() );
+        }
     }
 
-    public LongObjectMap<Object> getReferencesUnmarshall()
+    @Override
+    public ClassDefinition readClassDefinition( Source source )
+        throws IOException
     {
-        return referencesUnmarshall;
+        ClassDefinition classDefinition;
+        if ( classIdStrategy == ClassIdStrategy.Compact )
+        {
+            int compactId = VarIntUtils.getVarInt( source );
+            classDefinition = classDefinitionContainer.getClassDefinitionByCompactId( compactId );
+        }
+        else
+        {
+            long id = source.readLong();
+            classDefinition = classDefinitionContainer.getClassDefinitionById( id );
+        }
+
+        if ( classDefinition == null )
+        {
+            throw new SerializerExecutionException( "Unknown class id found in stream" );
+        }
+        return classDefinition;
     }
 
-    public long getNextReferenceIdMarshall()
+    /**
+     * Clears all per call state (known references and reference id sequence) to make this context reusable for
+     * another serialize / deserialize call. Already bound marshallers are kept.
+     */
+    public void reset()
+    {
+        if ( referencesMarshall != null )
+        {
+            referencesMarshall.clear();
+        }
+        if ( referencesUnmarshall != null )
+        {
+            Arrays.fill( referencesUnmarshall, 0, referencesUnmarshallSize, null );
+            referencesUnmarshallSize = 0;
+        }
+        if ( stringsMarshall != null )
+        {
+            stringsMarshall.clear();
+            stringsUnmarshall.clear();
+        }
+    }
+
+    @Override
+    public boolean isDeduplicateStrings()
+    {
+        return stringsMarshall != null;
+    }
+
+    @Override
+    public int findStringIndex( String value )
+    {
+        Integer index = stringsMarshall.get( value );
+        return index != null ? index.intValue() : -1;
+    }
+
+    @Override
+    public int putMarshalledString( String value )
+    {
+        int index = stringsMarshall.size();
+        stringsMarshall.put( value, index );
+        return index;
+    }
+
+    @Override
+    public String findStringByIndex( int index )
+    {
+        if ( index >= stringsUnmarshall.size() )
+        {
+            throw new SerializerExecutionException( "Unknown string reference " + index + " found in stream" );
+        }
+        return stringsUnmarshall.get( index );
+    }
+
+    @Override
+    public int putUnmarshalledString( String value )
     {
-        return nextReferenceIdMarshall++;
+        stringsUnmarshall.add( value );
+        return stringsUnmarshall.size() - 1;
     }
 
     @Override
@@ -21,16 +21,25 @@ package org.apache.directmemory.lightning.internal;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.directmemory.lightning.ClassComparisonStrategy;
+import org.apache.directmemory.lightning.ClassIdStrategy;
 import org.apache.directmemory.lightning.Marshaller;
 import org.apache.directmemory.lightning.MarshallerStrategy;
-import org.apache.directmemory.lightning.SerializationContext;
+import org.apache.directmemory.lightning.NumberEncodingStrategy;
 import org.apache.directmemory.lightning.SerializationStrategy;
 import org.apache.directmemory.lightning.Source;
 import org.apache.directmemory.lightning.Target;
@@ -39,7 +48,8 @@ import org.apache.directmemory.lightning.exceptions.SerializerExecutionException
 import org.apache.directmemory.lightning.instantiator.ObjectInstantiatorFactory;
 import org.apache.directmemory.lightning.internal.generator.BytecodeMarshallerGenerator;
 import org.apache.directmemory.lightning.internal.generator.MarshallerGenerator;
-import org.apache.directmemory.lightning.internal.util.FastIntMap;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
+import org.apache.directmemory.lightning.internal.util.ClassUtil;
 import org.apache.directmemory.lightning.logging.Logger;
 import org.apache.directmemory.lightning.metadata.ClassDefinition;
 import org.apache.directmemory.lightning.metadata.ClassDefinitionContainer;
@@ -54,6 +64,13 @@ class InternalSerializer
     private final AtomicReference<ClassDefinitionContainer> classDefinitionContainer =
         new AtomicReference<ClassDefinitionContainer>();
 
+    // Batch tags: end of batch, null value and the offset of the first batch local class index
+    private static final int BATCH_END = 0;
+
+    private static final int BATCH_NULL = 1;
+
+    private static final int BATCH_CLASS_OFFSET = 2;
+
     private final MarshallerGenerator marshallerGenerator = new BytecodeMarshallerGenerator();
 
     private final ObjectInstantiatorFactory objectInstantiatorFactory;
@@ -64,34 +81,65 @@ class InternalSerializer
 
     private final SerializationStrategy serializationStrategy;
 
-    private final FastIntMap<Marshaller> definedMarshallers;
+    private final ClassIdStrategy classIdStrategy;
+
+    private final NumberEncodingStrategy numberEncodingStrategy;
+
+    private final boolean deduplicateStrings;
+
+    private final Map<Type, Marshaller> definedMarshallers;
 
     private final MarshallerStrategy marshallerStrategy;
 
     private final ValueNullableEvaluator valueNullableEvaluator;
 
+    private final Map<Class<?>, PropertyDescriptor> rootPropertyDescriptors;
+
+    private final ThreadLocal<InternalSerializationContext> serializationContexts;
+
+    private final ConcurrentMap<Type, Marshaller> boundMarshallers = new ConcurrentHashMap<Type, Marshaller>();
+
     InternalSerializer( ClassDefinitionContainer classDefinitionContainer, SerializationStrategy serializationStrategy,
                         ClassComparisonStrategy classComparisonStrategy,
                         Map<Class<?>, ClassDescriptor> classDescriptors, Map<Type, Marshaller> marshallers,
                         ObjectInstantiatorFactory objectInstantiatorFactory, Logger logger,
                         MarshallerStrategy marshallerStrategy, File debugCacheDirectory,
-                        ValueNullableEvaluator valueNullableEvaluator )
+                        ValueNullableEvaluator valueNullableEvaluator, boolean recycleSerializationContexts,
+                        ClassIdStrategy classIdStrategy, NumberEncodingStrategy numberEncodingStrategy,
+                        boolean deduplicateStrings )
     {
 
         this.classDefinitionContainer.set( classDefinitionContainer );
         this.classComparisonStrategy = classComparisonStrategy;
         this.classDescriptors = Collections.unmodifiableMap( classDescriptors );
         this.serializationStrategy = serializationStrategy;
+        this.classIdStrategy = classIdStrategy;
+        this.numberEncodingStrategy = numberEncodingStrategy;
+        this.deduplicateStrings = deduplicateStrings;
         this.valueNullableEvaluator = valueNullableEvaluator;
 
+        // Collect attribute types explicitly requesting reference tracking
+        Set<Class<?>> trackedAttributeTypes = new HashSet<Class<?>>();
+        for ( ClassDescriptor classDescriptor : classDescriptors.values() )
+        {
+            for ( PropertyDescriptor propertyDescriptor : classDescriptor.getPropertyDescriptors() )
+            {
+                if ( Boolean.TRUE.equals( propertyDescriptor.getReferenceTracking() ) )
+                {
+                    trackedAttributeTypes.add( propertyDescriptor.getType() );
+                }
+            }
+        }
+
         for ( ClassDescriptor classDescriptor : classDescriptors.values() )
         {
             if ( classDescriptor instanceof InternalClassDescriptor && classDescriptor.getMarshaller() == null )
             {
+                boolean trackReferences = isReferenceTrackable( classDescriptor, trackedAttributeTypes );
                 Marshaller marshaller =
                     marshallerGenerator.generateMarshaller( classDescriptor.getType(),
                                                             classDescriptor.getPropertyDescriptors(), marshallers,
-                                                            this, serializationStrategy, objectInstantiatorFactory,
+                                                            this, trackReferences, objectInstantiatorFactory,
                                                             debugCacheDirectory, logger );
 
                 ( (InternalClassDescriptor) classDescriptor ).setMarshaller( marshaller );
@@ -99,11 +147,21 @@ class InternalSerializer
             }
         }
 
-        this.definedMarshallers = new FastIntMap<Marshaller>( marshallers.size() );
-        for ( Entry<Type, Marshaller> entry : marshallers.entrySet() )
+        // Never modified after construction so it can be shared by all contexts
+        this.definedMarshallers = Collections.unmodifiableMap( new HashMap<Type, Marshaller>( marshallers ) );
+
+        Map<Class<?>, PropertyDescriptor> rootPropertyDescriptors =
+            new HashMap<Class<?>, PropertyDescriptor>( classDescriptors.size() );
+        for ( ClassDescriptor classDescriptor : classDescriptors.values() )
         {
-            this.definedMarshallers.put( System.identityHashCode( entry.getKey() ), entry.getValue() );
+            Class<?> type = classDescriptor.getType();
+            rootPropertyDescriptors.put( type,
+                                         new CheatPropertyDescriptor( "serialize", type, classDescriptor.getMarshaller() ) );
         }
+        this.rootPropertyDescriptors = rootPropertyDescriptors;
+
+        this.serializationContexts =
+            recycleSerializationContexts ? new ThreadLocal<InternalSerializationContext>() : null;
 
         this.marshallerStrategy = marshallerStrategy;
         this.objectInstantiatorFactory = objectInstantiatorFactory;
@@ -129,43 +187,38 @@ class InternalSerializer
     @Override
     public <V> void serialize( V value, Target target )
     {
+        InternalSerializationContext serializationContext = acquireSerializationContext();
         try
         {
-            SerializationContext serializationContext =
-                new InternalSerializationContext( classDefinitionContainer.get(), serializationStrategy,
-                                                  marshallerStrategy, objectInstantiatorFactory,
-                                                  valueNullableEvaluator, definedMarshallers );
-
             Class<?> type = value.getClass();
             ClassDescriptor classDescriptor = findClassDescriptor( type );
             Marshaller marshaller = classDescriptor.getMarshaller();
-            PropertyDescriptor pd = new CheatPropertyDescriptor( "serialize", classDescriptor.getType(), marshaller );
+            PropertyDescriptor pd = rootPropertyDescriptors.get( type );
 
-            target.writeLong( classDescriptor.getClassDefinition().getId() );
+            serializationContext.writeClassDefinition( classDescriptor.getClassDefinition(), target );
             marshaller.marshall( value, pd, target, serializationContext );
         }
         catch ( IOException e )
         {
             throw new SerializerExecutionException( "Error while serializing value", e );
         }
+        finally
+        {
+            releaseSerializationContext( serializationContext );
+        }
     }
 
     @Override
     @SuppressWarnings( "unchecked" )
     public <V> V deserialize( Source source )
     {
+        InternalSerializationContext serializationContext = acquireSerializationContext();
         try
         {
-            SerializationContext serializationContext =
-                new InternalSerializationContext( classDefinitionContainer.get(), serializationStrategy,
-                                                  marshallerStrategy, objectInstantiatorFactory,
-                                                  valueNullableEvaluator, definedMarshallers );
-
-            long typeId = source.readLong();
-            Class<?> clazz = classDefinitionContainer.get().getTypeById( typeId );
+            Class<?> clazz = serializationContext.readClassDefinition( source ).getType();
             ClassDescriptor classDescriptor = findClassDescriptor( clazz );
             Marshaller marshaller = classDescriptor.getMarshaller();
-            PropertyDescriptor pd = new CheatPropertyDescriptor( "serialize", classDescriptor.getType(), marshaller );
+            PropertyDescriptor pd = rootPropertyDescriptors.get( clazz );
 
             return (V) marshaller.unmarshall( pd, source, serializationContext );
         }
@@ -173,6 +226,108 @@ class InternalSerializer
         {
             throw new SerializerExecutionException( "Error while deserializing value", e );
         }
+        finally
+        {
+            releaseSerializationContext( serializationContext );
+        }
+    }
+
+    @Override
+    public void serializeAll( Iterable<?> values, Target target )
+    {
+        InternalSerializationContext serializationContext = acquireSerializationContext();
+        try
+        {
+            Map<Class<?>, Integer> batchClasses = new HashMap<Class<?>, Integer>();
+            for ( Object value : values )
+            {
+                if ( value == null )
+                {
+                    VarIntUtils.putVarInt( BATCH_NULL, target );
+                    continue;
+                }
+
+                Class<?> type = value.getClass();
+                ClassDescriptor classDescriptor = findClassDescriptor( type );
+                Integer batchIndex = batchClasses.get( type );
+                if ( batchIndex == null )
+                {
+                    // First value of this class, the tag is followed by the full class id
+                    batchIndex = batchClasses.size();
+                    batchClasses.put( type, batchIndex );
+                    VarIntUtils.putVarInt( batchIndex + BATCH_CLASS_OFFSET, target );
+                    serializationContext.writeClassDefinition( classDescriptor.getClassDefinition(), target );
+                }
+                else
+                {
+                    VarIntUtils.putVarInt( batchIndex + BATCH_CLASS_OFFSET, target );
+                }
+
+                Marshaller marshaller = classDescriptor.getMarshaller();
+                marshaller.marshall( value, rootPropertyDescriptors.get( type ), target, serializationContext );
+            }
+            VarIntUtils.putVarInt( BATCH_END, target );
+        }
+        catch ( IOException e )
+        {
+            throw new SerializerExecutionException( "Error while serializing values", e );
+        }
+        finally
+        {
+            releaseSerializationContext( serializationContext );
+        }
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public <V> List<V> deserializeAll( Source source )
+    {
+        InternalSerializationContext serializationContext = acquireSerializationContext();
+        try
+        {
+            List<V> values = new ArrayList<V>();
+            List<Class<?>> batchClasses = new ArrayList<Class<?>>();
+            int tag;
+            while ( ( tag = VarIntUtils.getVarInt( source ) ) != BATCH_END )
+            {
+                if ( tag == BATCH_NULL )
+                {
+                    values.add( null );
+                    continue;
+                }
+
+                int batchIndex = tag - BATCH_CLASS_OFFSET;
+                if ( batchIndex == batchClasses.size() )
+                {
+                    batchClasses.add( serializationContext.readClassDefinition( source ).getType() );
+                }
+                else if ( batchIndex > batchClasses.size() )
+                {
+                    throw new SerializerExecutionException( "Batch class index " + batchIndex + " is out of sequence" );
+                }
+
+                Class<?> clazz = batchClasses.get( batchIndex );
+                ClassDescriptor classDescriptor = findClassDescriptor( clazz );
+                Marshaller marshaller = classDescriptor.getMarshaller();
+                values.add( (V) marshaller.unmarshall( rootPropertyDescriptors.get( clazz ), source,
+                                                       serializationContext ) );
+            }
+            return values;
+        }
+        catch ( IOException e )
+        {
+            throw new SerializerExecutionException( "Error while deserializing values", e );
+        }
+        finally
+        {
+            releaseSerializationContext( serializationContext );
+        }
+    }
+
+    @Override
+    public <V> Iterator<V> deserializeStream( Source source )
+    {
+        return new RecordIterator<V>( source, newSerializationContext( classDefinitionContainer.get() ) );
     }
 
     @Override
@@ -181,6 +336,72 @@ class InternalSerializer
         return classDescriptors.get( type );
     }
 
+    private InternalSerializationContext acquireSerializationContext()
+    {
+        ClassDefinitionContainer classDefinitionContainer = this.classDefinitionContainer.get();
+        if ( serializationContexts != null )
+        {
+            // Take the context out of the slot while in use, so reentrant calls get their own one
+            InternalSerializationContext serializationContext = serializationContexts.get();
+            if ( serializationContext != null
+                && serializationContext.getClassDefinitionContainer() == classDefinitionContainer )
+            {
+                serializationContexts.set( null );
+                return serializationContext;
+            }
+        }
+
+        return newSerializationContext( classDefinitionContainer );
+    }
+
+    private InternalSerializationContext newSerializationContext( ClassDefinitionContainer classDefinitionContainer )
+    {
+        return new InternalSerializationContext( classDefinitionContainer, serializationStrategy, classIdStrategy,
+                                                 numberEncodingStrategy, deduplicateStrings, marshallerStrategy,
+                                                 objectInstantiatorFactory,
+                                                 valueNullableEvaluator, definedMarshallers, boundMarshallers );
+    }
+
+    private void releaseSerializationContext( InternalSerializationContext serializationContext )
+    {
+        if ( serializationContexts != null )
+        {
+            serializationContext.reset();
+            serializationContexts.set( serializationContext );
+        }
+    }
+
+    private boolean isReferenceTrackable( ClassDescriptor classDescriptor, Set<Class<?>> trackedAttributeTypes )
+    {
+        Class<?> type = classDescriptor.getType();
+        if ( !ClassUtil.isReferenceCapable( type ) )
+        {
+            return false;
+        }
+
+        Boolean referenceTracking = classDescriptor.getReferenceTracking();
+        if ( Boolean.TRUE.equals( referenceTracking ) )
+        {
+            return true;
+        }
+
+        if ( referenceTracking == null && serializationStrategy == SerializationStrategy.SizeOptimized )
+        {
+            return true;
+        }
+
+        // An attribute may still force tracking for values of this type
+        for ( Class<?> trackedAttributeType : trackedAttributeTypes )
+        {
+            if ( trackedAttributeType.isAssignableFrom( type ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private void consistencyCheckClassChecksums( ClassDefinitionContainer oldClassDefinitionContainer,
                                                  ClassDefinitionContainer classDefinitionContainer )
     {
@@ -219,4 +440,67 @@ class InternalSerializer
             }
         }
     }
+
+    private class RecordIterator<V>
+        implements Iterator<V>
+    {
+
+        private final Source source;
+
+        private final InternalSerializationContext serializationContext;
+
+        private RecordIterator( Source source, InternalSerializationContext serializationContext )
+        {
+            this.source = source;
+            this.serializationContext = serializationContext;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            try
+            {
+                return source.hasRemaining();
+            }
+            catch ( IOException e )
+            {
+                throw new SerializerExecutionException( "Error while reading from source", e );
+            }
+        }
+
+        @Override
+        @SuppressWarnings( "unchecked" )
+        public V next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException( "No more records available in source" );
+            }
+
+            try
+            {
+                Class<?> clazz = serializationContext.readClassDefinition( source ).getType();
+                ClassDescriptor classDescriptor = findClassDescriptor( clazz );
+                Marshaller marshaller = classDescriptor.getMarshaller();
+                PropertyDescriptor pd = rootPropertyDescriptors.get( clazz );
+
+                return (V) marshaller.unmarshall( pd, source, serializationContext );
+            }
+            catch ( IOException e )
+            {
+                throw new SerializerExecutionException( "Error while deserializing value", e );
+            }
+            finally
+            {
+                // Records are independent, references must not leak into the next one
+                serializationContext.reset();
+            }
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException( "Records cannot be removed from a source" );
+        }
+    }
 }
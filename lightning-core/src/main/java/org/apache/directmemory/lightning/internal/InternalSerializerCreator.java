@@ -32,8 +32,10 @@ import java.util.Set;
 import java.util.Stack;
 
 import org.apache.directmemory.lightning.ClassComparisonStrategy;
+import org.apache.directmemory.lightning.ClassIdStrategy;
 import org.apache.directmemory.lightning.Marshaller;
 import org.apache.directmemory.lightning.MarshallerStrategy;
+import org.apache.directmemory.lightning.NumberEncodingStrategy;
 import org.apache.directmemory.lightning.SerializationStrategy;
 import org.apache.directmemory.lightning.Serializer;
 import org.apache.directmemory.lightning.configuration.SerializerDefinition;
@@ -63,6 +65,8 @@ public final class InternalSerializerCreator
 
     private final Map<Type, Marshaller> marshallers = new HashMap<Type, Marshaller>();
 
+    private final Map<Class<?>, Boolean> referenceTrackings = new HashMap<Class<?>, Boolean>();
+
     private final ObjectInstantiatorFactory objectInstantiatorFactory = new ObjenesisSerializer( true );
 
     private ValueNullableEvaluator valueNullableEvaluator;
@@ -73,8 +77,16 @@ public final class InternalSerializerCreator
 
     private ClassComparisonStrategy classComparisonStrategy = ClassComparisonStrategy.LightningChecksum;
 
+    private ClassIdStrategy classIdStrategy = ClassIdStrategy.Checksum;
+
+    private NumberEncodingStrategy numberEncodingStrategy = NumberEncodingStrategy.Fixed;
+
     private File debugCacheDirectory = null;
 
+    private boolean recycleSerializationContexts = false;
+
+    private boolean deduplicateStrings = false;
+
     private Logger logger = new NoOpLogger();
 
     public InternalSerializerCreator()
@@ -121,15 +133,40 @@ public final class InternalSerializerCreator
         return this;
     }
 
+    public InternalSerializerCreator setClassIdStrategy( ClassIdStrategy classIdStrategy )
+    {
+        this.classIdStrategy = classIdStrategy;
+        return this;
+    }
+
+    public InternalSerializerCreator setNumberEncodingStrategy( NumberEncodingStrategy numberEncodingStrategy )
+    {
+        this.numberEncodingStrategy = numberEncodingStrategy;
+        return this;
+    }
+
     public InternalSerializerCreator setValueNullableEvaluator( ValueNullableEvaluator valueNullableEvaluator )
     {
         this.valueNullableEvaluator = valueNullableEvaluator;
         return this;
     }
 
+    public InternalSerializerCreator setRecycleSerializationContexts( boolean recycleSerializationContexts )
+    {
+        this.recycleSerializationContexts = recycleSerializationContexts;
+        return this;
+    }
+
+    public InternalSerializerCreator setDeduplicateStrings( boolean deduplicateStrings )
+    {
+        this.deduplicateStrings = deduplicateStrings;
+        return this;
+    }
+
     public Serializer build()
     {
-        PropertyDescriptorFactory propertyDescriptorFactory = new InternalPropertyDescriptorFactory( logger );
+        PropertyDescriptorFactory propertyDescriptorFactory =
+            new InternalPropertyDescriptorFactory( logger, valueNullableEvaluator );
         MarshallerStrategy marshallerStrategy = new InternalMarshallerStrategy();
         DefinitionBuildingContext definitionBuildingContext =
             new InternalDefinitionBuildingContext( marshallerStrategy, propertyDescriptorFactory );
@@ -141,6 +178,16 @@ public final class InternalSerializerCreator
             serializerDefinition.acceptVisitor( definitionVisitor );
         }
 
+        // Apply class level reference tracking policies to all defined classes
+        for ( Entry<Class<?>, Boolean> entry : referenceTrackings.entrySet() )
+        {
+            InternalClassDescriptor classDescriptor = classDescriptors.get( entry.getKey() );
+            if ( classDescriptor != null )
+            {
+                classDescriptor.setReferenceTracking( entry.getValue() );
+            }
+        }
+
         Set<ClassDefinition> classDefinitions =
             new HashSet<ClassDefinition>( Arrays.asList( ClassUtil.CLASS_DESCRIPTORS ) );
         for ( InternalClassDescriptor classDescriptor : classDescriptors.values() )
@@ -158,7 +205,8 @@ public final class InternalSerializerCreator
         return new InternalSerializer( new InternalClassDefinitionContainer( classDefinitions ), serializationStrategy,
                                        classComparisonStrategy, cleanedClassDescriptors, marshallers,
                                        objectInstantiatorFactory, logger, marshallerStrategy, debugCacheDirectory,
-                                       valueNullableEvaluator );
+                                       valueNullableEvaluator, recycleSerializationContexts, classIdStrategy,
+                                       numberEncodingStrategy, deduplicateStrings );
     }
 
     private InternalClassDescriptor findClassDescriptor( Class<?> type )
@@ -250,6 +298,12 @@ public final class InternalSerializerCreator
             classDescriptor.push( propertyDescriptor );
         }
 
+        @Override
+        public void visitReferenceTracking( Class<?> type, boolean trackReferences )
+        {
+            referenceTrackings.put( type, trackReferences );
+        }
+
         @Override
         public void visitFinalizeSerializerDefinition( SerializerDefinition serializerDefinition )
         {
@@ -26,6 +26,7 @@ import org.apache.directmemory.lightning.internal.util.BeanUtil;
 import org.apache.directmemory.lightning.internal.util.StringUtil;
 import org.apache.directmemory.lightning.metadata.PropertyAccessor;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
+import org.apache.directmemory.lightning.metadata.ValueNullableEvaluator;
 
 class InternalPropertyDescriptor
     implements PropertyDescriptor
@@ -49,8 +50,13 @@ class InternalPropertyDescriptor
 
     private final Marshaller marshaller;
 
+    private final boolean nullable;
+
+    private final Boolean referenceTracking;
+
     InternalPropertyDescriptor( String propertyName, Marshaller marshaller, Annotation[] annotations,
-                                PropertyAccessor propertyAccessor )
+                                PropertyAccessor propertyAccessor, ValueNullableEvaluator valueNullableEvaluator,
+                                Boolean referenceTracking )
     {
         this.name = StringUtil.toUpperCamelCase( propertyName );
         this.propertyName = propertyName;
@@ -61,6 +67,8 @@ class InternalPropertyDescriptor
         this.annotations = Arrays.copyOf( annotations, annotations.length );
         this.definedClass = propertyAccessor.getDefinedClass();
         this.declaringClass = propertyAccessor.getDeclaringClass();
+        this.nullable = valueNullableEvaluator.isValueNullable( this );
+        this.referenceTracking = referenceTracking;
     }
 
     @Override
@@ -117,6 +125,18 @@ class InternalPropertyDescriptor
         return marshaller;
     }
 
+    @Override
+    public boolean isNullable()
+    {
+        return nullable;
+    }
+
+    @Override
+    public Boolean getReferenceTracking()
+    {
+        return referenceTracking;
+    }
+
     @Override
     public int compareTo( PropertyDescriptor o )
     {
@@ -22,11 +22,13 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 
 import org.apache.directmemory.lightning.Marshaller;
+import org.apache.directmemory.lightning.base.DefaultValueNullableEvaluator;
 import org.apache.directmemory.lightning.generator.PropertyDescriptorFactory;
 import org.apache.directmemory.lightning.internal.util.BeanUtil;
 import org.apache.directmemory.lightning.logging.Logger;
 import org.apache.directmemory.lightning.metadata.PropertyAccessor;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
+import org.apache.directmemory.lightning.metadata.ValueNullableEvaluator;
 
 public class InternalPropertyDescriptorFactory
     implements PropertyDescriptorFactory
@@ -34,9 +36,17 @@ public class InternalPropertyDescriptorFactory
 
     private final PropertyAccessorStrategy propertyAccessorStrategy;
 
+    private final ValueNullableEvaluator valueNullableEvaluator;
+
     public InternalPropertyDescriptorFactory( Logger logger )
     {
-        propertyAccessorStrategy = new PropertyAccessorStrategy( logger );
+        this( logger, new DefaultValueNullableEvaluator() );
+    }
+
+    public InternalPropertyDescriptorFactory( Logger logger, ValueNullableEvaluator valueNullableEvaluator )
+    {
+        this.propertyAccessorStrategy = new PropertyAccessorStrategy( logger );
+        this.valueNullableEvaluator = valueNullableEvaluator;
     }
 
     @Override
@@ -44,13 +54,22 @@ public class InternalPropertyDescriptorFactory
     {
         PropertyAccessor propertyAccessor = propertyAccessorStrategy.byMethod( method, definedClass );
         String propertyName = BeanUtil.buildPropertyName( method );
-        return new InternalPropertyDescriptor( propertyName, marshaller, method.getAnnotations(), propertyAccessor );
+        return new InternalPropertyDescriptor( propertyName, marshaller, method.getAnnotations(), propertyAccessor,
+                                               valueNullableEvaluator, null );
     }
 
     @Override
     public PropertyDescriptor byField( Field field, Marshaller marshaller, Class<?> definedClass )
+    {
+        return byField( field, marshaller, definedClass, null );
+    }
+
+    @Override
+    public PropertyDescriptor byField( Field field, Marshaller marshaller, Class<?> definedClass,
+                                       Boolean referenceTracking )
     {
         PropertyAccessor propertyAccessor = propertyAccessorStrategy.byField( field, definedClass );
-        return new InternalPropertyDescriptor( field.getName(), marshaller, field.getAnnotations(), propertyAccessor );
+        return new InternalPropertyDescriptor( field.getName(), marshaller, field.getAnnotations(), propertyAccessor,
+                                               valueNullableEvaluator, referenceTracking );
     }
 }
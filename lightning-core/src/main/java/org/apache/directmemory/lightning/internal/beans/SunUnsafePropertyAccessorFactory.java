@@ -54,15 +54,9 @@ final class SunUnsafePropertyAccessorFactory
 
     private PropertyAccessor buildForValueField( final Field field, final Class<?> definedClass )
     {
-        return new FieldValuePropertyAccessor( field, definedClass )
+        return new UnsafeFieldValuePropertyAccessor( field, definedClass )
         {
 
-            private final long offset;
-
-            {
-                offset = UNSAFE.objectFieldOffset( field );
-            }
-
             @Override
             public <T> void writeObject( Object instance, T value )
             {
@@ -337,4 +331,24 @@ final class SunUnsafePropertyAccessorFactory
             }
         };
     }
+
+    private abstract static class UnsafeFieldValuePropertyAccessor
+        extends FieldValuePropertyAccessor
+        implements FieldOffsetAwarePropertyAccessor
+    {
+
+        protected final long offset;
+
+        private UnsafeFieldValuePropertyAccessor( Field field, Class<?> definedClass )
+        {
+            super( field, definedClass );
+            this.offset = UNSAFE.objectFieldOffset( field );
+        }
+
+        @Override
+        public long getFieldOffset()
+        {
+            return offset;
+        }
+    }
 }
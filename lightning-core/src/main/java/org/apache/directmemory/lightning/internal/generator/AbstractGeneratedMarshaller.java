@@ -32,6 +32,7 @@ import org.apache.directmemory.lightning.exceptions.SerializerDefinitionExceptio
 import org.apache.directmemory.lightning.instantiator.ObjectInstantiator;
 import org.apache.directmemory.lightning.instantiator.ObjectInstantiatorFactory;
 import org.apache.directmemory.lightning.internal.ClassDescriptorAwareSerializer;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
 import org.apache.directmemory.lightning.internal.util.ClassUtil;
 import org.apache.directmemory.lightning.metadata.ClassDescriptor;
 import org.apache.directmemory.lightning.metadata.PropertyAccessor;
@@ -75,25 +76,24 @@ public abstract class AbstractGeneratedMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( serializationContext.getSerializationStrategy() == SerializationStrategy.SizeOptimized )
+        if ( isReferenceTracked( propertyDescriptor, serializationContext ) )
         {
-            if ( ClassUtil.isReferenceCapable( propertyDescriptor.getType() ) )
+            long referenceId = VarIntUtils.getVarLong( source );
+            if ( containsReferenceId( referenceId, serializationContext ) )
             {
-                long referenceId = source.readLong();
-                V instance;
-                if ( containsReferenceId( referenceId, serializationContext ) )
-                {
-                    instance = (V) findObjectByReferenceId( referenceId, serializationContext );
-                }
-                else
-                {
-                    // Instance not yet received, for first time deserialize it
-                    instance = unmarshall( (V) newInstance(), propertyDescriptor, source, serializationContext );
-                    cacheObjectForUnmarshall( referenceId, instance, serializationContext );
-                }
-
-                return instance;
+                return (V) findObjectByReferenceId( referenceId, serializationContext );
             }
+
+            // Instance not yet received, for first time deserialize it. It is registered before its attributes
+            // are read so cyclic references back to it can be resolved.
+            V instance = (V) newInstance();
+            cacheObjectForUnmarshall( referenceId, instance, serializationContext );
+            V result = unmarshall( instance, propertyDescriptor, source, serializationContext );
+            if ( result != instance )
+            {
+                cacheObjectForUnmarshall( referenceId, result, serializationContext );
+            }
+            return result;
         }
 
         V value = null;
@@ -109,16 +109,11 @@ public abstract class AbstractGeneratedMarshaller
                                          SerializationContext serializationContext )
         throws IOException;
 
-    protected boolean isAlreadyMarshalled( Object value, Class<?> type, Target target,
+    protected boolean isAlreadyMarshalled( Object value, PropertyDescriptor propertyDescriptor, Target target,
                                            SerializationContext serializationContext )
         throws IOException
     {
-        if ( serializationContext.getSerializationStrategy() != SerializationStrategy.SizeOptimized )
-        {
-            return false;
-        }
-
-        if ( !ClassUtil.isReferenceCapable( type ) )
+        if ( !isReferenceTracked( propertyDescriptor, serializationContext ) )
         {
             return false;
         }
@@ -127,14 +122,37 @@ public abstract class AbstractGeneratedMarshaller
         if ( referenceId == -1 )
         {
             referenceId = cacheObjectForMarshall( value, serializationContext );
-            target.writeLong( referenceId );
+            VarIntUtils.putVarLong( referenceId, target );
             return false;
         }
 
-        target.writeLong( referenceId );
+        VarIntUtils.putVarLong( referenceId, target );
         return true;
     }
 
+    protected boolean isReferenceTracked( PropertyDescriptor propertyDescriptor,
+                                          SerializationContext serializationContext )
+    {
+        if ( !ClassUtil.isReferenceCapable( propertyDescriptor.getType() ) )
+        {
+            return false;
+        }
+
+        // Attribute policy overrides class policy which overrides the global SerializationStrategy
+        Boolean referenceTracking = propertyDescriptor.getReferenceTracking();
+        if ( referenceTracking == null )
+        {
+            referenceTracking = classDescriptor.getReferenceTracking();
+        }
+
+        if ( referenceTracking == null )
+        {
+            return serializationContext.getSerializationStrategy() == SerializationStrategy.SizeOptimized;
+        }
+
+        return referenceTracking.booleanValue();
+    }
+
     protected ClassDescriptor getClassDescriptor()
     {
         return classDescriptor;
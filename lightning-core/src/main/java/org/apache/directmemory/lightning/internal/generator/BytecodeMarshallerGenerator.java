@@ -25,17 +25,20 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.directmemory.lightning.Marshaller;
 import org.apache.directmemory.lightning.MarshallerStrategy;
-import org.apache.directmemory.lightning.SerializationStrategy;
+import org.apache.directmemory.lightning.base.AbstractMarshaller;
+import org.apache.directmemory.lightning.base.VarIntMarshaller;
 import org.apache.directmemory.lightning.exceptions.SerializerMarshallerGeneratorException;
 import org.apache.directmemory.lightning.instantiator.ObjectInstantiatorFactory;
 import org.apache.directmemory.lightning.internal.ClassDescriptorAwareSerializer;
 import org.apache.directmemory.lightning.internal.InternalMarshallerStrategy;
+import org.apache.directmemory.lightning.internal.beans.FieldOffsetAwarePropertyAccessor;
 import org.apache.directmemory.lightning.internal.util.ClassUtil;
 import org.apache.directmemory.lightning.logging.Logger;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
@@ -50,13 +53,19 @@ public class BytecodeMarshallerGenerator
     implements Opcodes, GeneratorConstants, MarshallerGenerator
 {
 
+    // Null and boolean bits are collected in a single long local variable
+    private static final int MAX_PRESENCE_BITS = 64;
+
+    private static final int MARSHALL_BITMAP_LOCAL = 10;
+
+    private static final int UNMARSHALL_BITMAP_LOCAL = 11;
+
     private final GeneratorClassLoader classloader = CreateClassLoader.createClassLoader( getClass().getClassLoader() );
 
     @Override
     public Marshaller generateMarshaller( Class<?> type, List<PropertyDescriptor> propertyDescriptors,
                                           Map<java.lang.reflect.Type, Marshaller> marshallers,
-                                          ClassDescriptorAwareSerializer serializer,
-                                          SerializationStrategy serializationStrategy,
+                                          ClassDescriptorAwareSerializer serializer, boolean trackReferences,
                                           ObjectInstantiatorFactory objectInstantiatorFactory,
                                           File debugCacheDirectory, Logger logger )
     {
@@ -69,6 +78,17 @@ public class BytecodeMarshallerGenerator
             List<PropertyDescriptor> propertyDescriptorsCopy = new ArrayList<PropertyDescriptor>( propertyDescriptors );
             Collections.sort( propertyDescriptorsCopy );
 
+            // Assign presence bitmap bits and hide the null state of covered properties from their marshallers
+            PresenceBitmap presenceBitmap = buildPresenceBitmap( propertyDescriptorsCopy, marshallers );
+            for ( int i = 0; i < propertyDescriptorsCopy.size(); i++ )
+            {
+                if ( presenceBitmap.nullBits[i] != -1 )
+                {
+                    PropertyDescriptor propertyDescriptor = propertyDescriptorsCopy.get( i );
+                    propertyDescriptorsCopy.set( i, new NonNullablePropertyDescriptor( propertyDescriptor ) );
+                }
+            }
+
             // Build className e.g. "SomeTypeMarshaller$$X$$Lightning"
             String className =
                 new StringBuilder( !type.isArray() ? type.getSimpleName() : type.getComponentType().getSimpleName()
@@ -80,14 +100,18 @@ public class BytecodeMarshallerGenerator
             // Build marshaller fields
             createMarshallerFields( cw, propertyDescriptorsCopy );
 
+            // Build static Unsafe field if field offsets are inlined
+            createUnsafeField( cw, className, propertyDescriptorsCopy );
+
             // Build constructor
             createConstructor( cw, className, propertyDescriptorsCopy );
 
             // Build Marshaller#marshall method
-            createMarshallMethod( cw, className, type, serializationStrategy, propertyDescriptorsCopy );
+            createMarshallMethod( cw, className, type, trackReferences, propertyDescriptorsCopy, marshallers,
+                                  presenceBitmap );
 
             // Build Marshaller#unmarshall method
-            createUnmarshallMethod( cw, className, type, propertyDescriptorsCopy );
+            createUnmarshallMethod( cw, className, type, propertyDescriptorsCopy, marshallers, presenceBitmap );
 
             // Closing class visit
             cw.visitEnd();
@@ -170,6 +194,31 @@ public class BytecodeMarshallerGenerator
         }
     }
 
+    private void createUnsafeField( ClassWriter cw, String className, List<PropertyDescriptor> propertyDescriptors )
+    {
+        for ( PropertyDescriptor propertyDescriptor : propertyDescriptors )
+        {
+            if ( isFieldOffsetInlineable( propertyDescriptor ) )
+            {
+                FieldVisitor fv =
+                    cw.visitField( ACC_FINAL + ACC_PRIVATE + ACC_STATIC, UNSAFE_FIELD_NAME, UNSAFE_CLASS_DESCRIPTOR,
+                                   null, null );
+                fv.visitEnd();
+
+                // Initialize field in static initializer
+                MethodVisitor mv = cw.visitMethod( ACC_STATIC, "<clinit>", "()V", null, null );
+                mv.visitCode();
+                mv.visitMethodInsn( INVOKESTATIC, UNSAFEUTIL_CLASS_INTERNAL_TYPE, "getUnsafe",
+                                    UNSAFEUTIL_GET_UNSAFE_SIGNATURE );
+                mv.visitFieldInsn( PUTSTATIC, className, UNSAFE_FIELD_NAME, UNSAFE_CLASS_DESCRIPTOR );
+                mv.visitInsn( RETURN );
+                mv.visitMaxs( 1, 0 );
+                mv.visitEnd();
+                return;
+            }
+        }
+    }
+
     private void createConstructor( ClassWriter cw, String className, List<PropertyDescriptor> propertyDescriptors )
     {
         MethodVisitor mv = cw.visitMethod( ACC_PUBLIC, "<init>", MARSHALLER_CONSTRUCTOR_SIGNATURE, null, null );
@@ -299,17 +348,17 @@ public class BytecodeMarshallerGenerator
         mv.visitEnd();
     }
 
-    private void createMarshallMethod( ClassWriter cw, String className, Class<?> type,
-                                       SerializationStrategy serializationStrategy,
-                                       List<PropertyDescriptor> propertyDescriptors )
+    private void createMarshallMethod( ClassWriter cw, String className, Class<?> type, boolean trackReferences,
+                                       List<PropertyDescriptor> propertyDescriptors,
+                                       Map<java.lang.reflect.Type, Marshaller> marshallers,
+                                       PresenceBitmap presenceBitmap )
     {
 
         MethodVisitor mv =
             cw.visitMethod( ACC_PUBLIC, "marshall", MARSHALLER_MARSHALL_SIGNATURE, null, MARSHALLER_EXCEPTIONS );
 
-        // If element type is not reference capable or SerializationStrategy is
-        // not SizeOptimized just prevent generation of code
-        if ( serializationStrategy == SerializationStrategy.SizeOptimized && ClassUtil.isReferenceCapable( type ) )
+        // If references of this type are never tracked just prevent generation of code
+        if ( trackReferences )
         {
             // Load this to method stack
             mv.visitVarInsn( ALOAD, 0 );
@@ -317,7 +366,7 @@ public class BytecodeMarshallerGenerator
             // Load value to method stack
             mv.visitVarInsn( ALOAD, 1 );
 
-            // Load type to method stack
+            // Load propertyDescriptor to method stack
             mv.visitVarInsn( ALOAD, 2 );
 
             // Load dataOutput to method stack
@@ -343,24 +392,51 @@ public class BytecodeMarshallerGenerator
             mv.visitLabel( notYetMarshalled );
         }
 
-        for ( PropertyDescriptor propertyDescriptor : propertyDescriptors )
+        if ( presenceBitmap.size > 0 )
+        {
+            visitPresenceBitmapWrite( mv, className, propertyDescriptors, presenceBitmap );
+        }
+
+        for ( int i = 0; i < propertyDescriptors.size(); i++ )
         {
+            PropertyDescriptor propertyDescriptor = propertyDescriptors.get( i );
+
+            // Value is fully stored in the presence bitmap
+            if ( presenceBitmap.valueBits[i] != -1 )
+            {
+                continue;
+            }
+
+            Label skipProperty = new Label();
+            if ( presenceBitmap.nullBits[i] != -1 )
+            {
+                // Skip property if null bit is set
+                visitPresenceBitTest( mv, MARSHALL_BITMAP_LOCAL, presenceBitmap.nullBits[i] );
+                mv.visitJumpInsn( IFNE, skipProperty );
+            }
+
             if ( propertyDescriptor.getType().isArray()
                 && !propertyDescriptor.getType().getComponentType().isPrimitive() )
             {
                 visitObjectArrayPropertyAccessorRead( mv, className, propertyDescriptor );
             }
+            else if ( isPrimitiveInlineable( propertyDescriptor, marshallers ) )
+            {
+                visitInlinedPrimitivePropertyAccessorRead( mv, className, propertyDescriptor );
+            }
             else
             {
                 visitValuePropertyAccessorRead( mv, className, propertyDescriptor );
             }
+
+            mv.visitLabel( skipProperty );
         }
 
         // Add Return instruction
         mv.visitInsn( RETURN );
 
         // End visiting
-        mv.visitMaxs( 9, 9 );
+        mv.visitMaxs( 12, 12 );
         mv.visitEnd();
     }
 
@@ -376,18 +452,8 @@ public class BytecodeMarshallerGenerator
         mv.visitFieldInsn( GETFIELD, className, toFinalFieldName( "marshaller", propertyDescriptor ),
                            MARSHALLER_CLASS_DESCRIPTOR );
 
-        // Load this to method stack
-        mv.visitVarInsn( ALOAD, 0 );
-
-        // Read PropertyAccessor from field
-        mv.visitFieldInsn( GETFIELD, className, toFinalFieldName( "accessor", propertyDescriptor ),
-                           PROPERTYACCESSOR_CLASS_DESCRIPTOR );
-
-        // Load value to method stack
-        mv.visitVarInsn( ALOAD, 1 );
-
         // Load value by type on stack
-        visitPropertyAccessorValueRead( propertyType, mv );
+        visitPropertyValueRead( mv, className, propertyDescriptor );
 
         // If type is primitive add some "autoboxing" magic
         if ( propertyType.isPrimitive() )
@@ -410,6 +476,75 @@ public class BytecodeMarshallerGenerator
         mv.visitMethodInsn( INVOKEINTERFACE, MARSHALLER_CLASS_INTERNAL_TYPE, "marshall", MARSHALLER_MARSHALL_SIGNATURE );
     }
 
+    private void visitInlinedPrimitivePropertyAccessorRead( MethodVisitor mv, String className,
+                                                            PropertyDescriptor propertyDescriptor )
+    {
+        Class<?> propertyType = propertyDescriptor.getType();
+
+        if ( propertyType.isPrimitive() )
+        {
+            // Load DataOutput to method stack
+            mv.visitVarInsn( ALOAD, 3 );
+
+            // Load primitive value by type on stack
+            visitPropertyValueRead( mv, className, propertyDescriptor );
+
+            // Call Target#writeX
+            visitTargetValueWrite( propertyType, mv );
+            return;
+        }
+
+        Class<?> primitiveType = ClassUtil.getPrimitiveType( propertyType );
+        Label nonNull = new Label();
+        Label end = new Label();
+
+        // Read wrapper value and store it for later use
+        visitPropertyValueRead( mv, className, propertyDescriptor );
+        mv.visitVarInsn( ASTORE, 5 );
+
+        if ( !propertyDescriptor.isNullable() )
+        {
+            // Non nullable values have no null marker but null values are rejected
+            mv.visitVarInsn( ALOAD, 5 );
+            mv.visitJumpInsn( IFNONNULL, nonNull );
+            mv.visitTypeInsn( NEW, SERIALIZEREXECUTIONEXCEPTION_CLASS_INTERNAL_TYPE );
+            mv.visitInsn( DUP );
+            mv.visitLdcInsn( "Property " + propertyDescriptor.getPropertyName() + " of "
+                + propertyDescriptor.getDefinedClass().getName() + " is defined as non nullable but value is null" );
+            mv.visitMethodInsn( INVOKESPECIAL, SERIALIZEREXECUTIONEXCEPTION_CLASS_INTERNAL_TYPE, "<init>",
+                                "(Ljava/lang/String;)V" );
+            mv.visitInsn( ATHROW );
+
+            // Unbox value and call Target#writeX
+            mv.visitLabel( nonNull );
+            mv.visitVarInsn( ALOAD, 3 );
+            mv.visitVarInsn( ALOAD, 5 );
+            visitPrimitiveAutoboxing( primitiveType, mv );
+            visitTargetValueWrite( primitiveType, mv );
+            return;
+        }
+
+        // Write null marker (same format as AbstractMarshaller#writePossibleNull)
+        mv.visitVarInsn( ALOAD, 3 );
+        mv.visitVarInsn( ALOAD, 5 );
+        mv.visitJumpInsn( IFNONNULL, nonNull );
+        mv.visitInsn( ICONST_1 );
+        mv.visitMethodInsn( INVOKEINTERFACE, TARGET_CLASS_INTERNAL_TYPE, "writeByte", "(B)V" );
+        mv.visitJumpInsn( GOTO, end );
+
+        mv.visitLabel( nonNull );
+        mv.visitInsn( ICONST_0 );
+        mv.visitMethodInsn( INVOKEINTERFACE, TARGET_CLASS_INTERNAL_TYPE, "writeByte", "(B)V" );
+
+        // Unbox value and call Target#writeX
+        mv.visitVarInsn( ALOAD, 3 );
+        mv.visitVarInsn( ALOAD, 5 );
+        visitPrimitiveAutoboxing( primitiveType, mv );
+        visitTargetValueWrite( primitiveType, mv );
+
+        mv.visitLabel( end );
+    }
+
     private void visitObjectArrayPropertyAccessorRead( MethodVisitor mv, String className,
                                                        PropertyDescriptor propertyDescriptor )
     {
@@ -440,10 +575,12 @@ public class BytecodeMarshallerGenerator
         mv.visitVarInsn( ASTORE, 6 );
 
         // Save length to stream
-        mv.visitVarInsn( ALOAD, 3 );
         mv.visitVarInsn( ALOAD, 6 );
         mv.visitInsn( ARRAYLENGTH );
-        mv.visitMethodInsn( INVOKEINTERFACE, TARGET_CLASS_INTERNAL_TYPE, "writeInt", "(I)V" );
+        mv.visitVarInsn( ALOAD, 3 );
+        mv.visitVarInsn( ALOAD, 4 );
+        mv.visitMethodInsn( INVOKESTATIC, VARINTUTILS_CLASS_INTERNAL_TYPE, "putLength",
+                            VARINTUTILS_PUT_LENGTH_SIGNATURE );
 
         // Loop over every element in array
         Label forLoopEnd = new Label();
@@ -504,22 +641,59 @@ public class BytecodeMarshallerGenerator
     }
 
     private void createUnmarshallMethod( ClassWriter cw, String className, Class<?> type,
-                                         List<PropertyDescriptor> propertyDescriptors )
+                                         List<PropertyDescriptor> propertyDescriptors,
+                                         Map<java.lang.reflect.Type, Marshaller> marshallers,
+                                         PresenceBitmap presenceBitmap )
     {
         MethodVisitor mv =
             cw.visitMethod( ACC_PUBLIC, "unmarshall", MARSHALLER_UNMARSHALL_SIGNATURE, null, MARSHALLER_EXCEPTIONS );
 
-        for ( PropertyDescriptor propertyDescriptor : propertyDescriptors )
+        if ( presenceBitmap.size > 0 )
         {
+            visitPresenceBitmapRead( mv, presenceBitmap );
+        }
+
+        for ( int i = 0; i < propertyDescriptors.size(); i++ )
+        {
+            PropertyDescriptor propertyDescriptor = propertyDescriptors.get( i );
+
+            if ( presenceBitmap.valueBits[i] != -1 )
+            {
+                visitPresenceBitmapPropertyWrite( mv, className, propertyDescriptor, presenceBitmap.nullBits[i],
+                                                  presenceBitmap.valueBits[i] );
+                continue;
+            }
+
+            Label endProperty = new Label();
+            if ( presenceBitmap.nullBits[i] != -1 )
+            {
+                Label nonNull = new Label();
+
+                // Set property to null if null bit is set
+                visitPresenceBitTest( mv, UNMARSHALL_BITMAP_LOCAL, presenceBitmap.nullBits[i] );
+                mv.visitJumpInsn( IFEQ, nonNull );
+                visitPropertyValueWritePrefix( mv, className, propertyDescriptor );
+                mv.visitInsn( ACONST_NULL );
+                visitPropertyValueWrite( mv, propertyDescriptor );
+                mv.visitJumpInsn( GOTO, endProperty );
+                mv.visitLabel( nonNull );
+            }
+
             if ( propertyDescriptor.getType().isArray()
                 && !propertyDescriptor.getType().getComponentType().isPrimitive() )
             {
                 visitObjectArrayPropertyAccessorWrite( mv, className, propertyDescriptor );
             }
+            else if ( isPrimitiveInlineable( propertyDescriptor, marshallers ) )
+            {
+                visitInlinedPrimitivePropertyAccessorWrite( mv, className, propertyDescriptor );
+            }
             else
             {
                 visitValuePropertyAccessorWrite( mv, className, propertyDescriptor );
             }
+
+            mv.visitLabel( endProperty );
         }
 
         // Load instance to method stack
@@ -529,7 +703,7 @@ public class BytecodeMarshallerGenerator
         visitReturn( type, mv );
 
         // End visiting
-        mv.visitMaxs( 11, 11 );
+        mv.visitMaxs( 14, 14 );
         mv.visitEnd();
     }
 
@@ -541,16 +715,6 @@ public class BytecodeMarshallerGenerator
         // Load this to method stack
         mv.visitVarInsn( ALOAD, 0 );
 
-        // Read PropertyAccessor from field
-        mv.visitFieldInsn( GETFIELD, className, toFinalFieldName( "accessor", propertyDescriptor ),
-                           PROPERTYACCESSOR_CLASS_DESCRIPTOR );
-
-        // Store PropertyAccessor for later use
-        mv.visitVarInsn( ASTORE, 5 );
-
-        // Load this to method stack
-        mv.visitVarInsn( ALOAD, 0 );
-
         // Load property marshaller to method stack
         mv.visitFieldInsn( GETFIELD, className, toFinalFieldName( "marshaller", propertyDescriptor ),
                            MARSHALLER_CLASS_DESCRIPTOR );
@@ -575,11 +739,8 @@ public class BytecodeMarshallerGenerator
         // Save value
         mv.visitVarInsn( ASTORE, 6 );
 
-        // Load PropertyAccessor to method stack
-        mv.visitVarInsn( ALOAD, 5 );
-
-        // Load instance to method stack
-        mv.visitVarInsn( ALOAD, 1 );
+        // Load PropertyAccessor and instance to method stack
+        visitPropertyValueWritePrefix( mv, className, propertyDescriptor );
 
         // Load value to method stack
         mv.visitVarInsn( ALOAD, 6 );
@@ -591,7 +752,56 @@ public class BytecodeMarshallerGenerator
         }
 
         // Call PropertyAccessor#writeX
-        visitPropertyAccessorValueWrite( propertyType, mv );
+        visitPropertyValueWrite( mv, propertyDescriptor );
+    }
+
+    private void visitInlinedPrimitivePropertyAccessorWrite( MethodVisitor mv, String className,
+                                                             PropertyDescriptor propertyDescriptor )
+    {
+        Class<?> propertyType = propertyDescriptor.getType();
+
+        // Load PropertyAccessor and instance to method stack
+        visitPropertyValueWritePrefix( mv, className, propertyDescriptor );
+
+        if ( propertyType.isPrimitive() )
+        {
+            // Read primitive value from DataInput
+            mv.visitVarInsn( ALOAD, 3 );
+            visitSourceValueRead( propertyType, mv );
+        }
+        else if ( !propertyDescriptor.isNullable() )
+        {
+            // Non nullable values have no null marker, read primitive value from DataInput and box it
+            Class<?> primitiveType = ClassUtil.getPrimitiveType( propertyType );
+            mv.visitVarInsn( ALOAD, 3 );
+            visitSourceValueRead( primitiveType, mv );
+            visitWrapperAutoboxing( primitiveType, mv );
+        }
+        else
+        {
+            Class<?> primitiveType = ClassUtil.getPrimitiveType( propertyType );
+            Label nonNull = new Label();
+            Label end = new Label();
+
+            // Read null marker (same format as AbstractMarshaller#isNull)
+            mv.visitVarInsn( ALOAD, 3 );
+            mv.visitMethodInsn( INVOKEINTERFACE, SOURCE_CLASS_INTERNAL_TYPE, "readByte", "()B" );
+            mv.visitInsn( ICONST_1 );
+            mv.visitJumpInsn( IF_ICMPNE, nonNull );
+            mv.visitInsn( ACONST_NULL );
+            mv.visitJumpInsn( GOTO, end );
+
+            // Read primitive value from DataInput and box it
+            mv.visitLabel( nonNull );
+            mv.visitVarInsn( ALOAD, 3 );
+            visitSourceValueRead( primitiveType, mv );
+            visitWrapperAutoboxing( primitiveType, mv );
+
+            mv.visitLabel( end );
+        }
+
+        // Call PropertyAccessor#writeX
+        visitPropertyValueWrite( mv, propertyDescriptor );
     }
 
     private void visitObjectArrayPropertyAccessorWrite( MethodVisitor mv, String className,
@@ -602,7 +812,9 @@ public class BytecodeMarshallerGenerator
 
         // Read size
         mv.visitVarInsn( ALOAD, 3 );
-        mv.visitMethodInsn( INVOKEINTERFACE, SOURCE_CLASS_INTERNAL_TYPE, "readInt", "()I" );
+        mv.visitVarInsn( ALOAD, 4 );
+        mv.visitMethodInsn( INVOKESTATIC, VARINTUTILS_CLASS_INTERNAL_TYPE, "getLength",
+                            VARINTUTILS_GET_LENGTH_SIGNATURE );
         mv.visitInsn( DUP );
         mv.visitVarInsn( ISTORE, 5 );
 
@@ -667,6 +879,154 @@ public class BytecodeMarshallerGenerator
         visitPropertyAccessorValueWrite( propertyType.getComponentType(), mv );
     }
 
+    private void visitPresenceBitmapWrite( MethodVisitor mv, String className,
+                                           List<PropertyDescriptor> propertyDescriptors, PresenceBitmap presenceBitmap )
+    {
+        mv.visitInsn( LCONST_0 );
+        mv.visitVarInsn( LSTORE, MARSHALL_BITMAP_LOCAL );
+
+        for ( int i = 0; i < propertyDescriptors.size(); i++ )
+        {
+            PropertyDescriptor propertyDescriptor = propertyDescriptors.get( i );
+            int nullBit = presenceBitmap.nullBits[i];
+            int valueBit = presenceBitmap.valueBits[i];
+            if ( nullBit == -1 && valueBit == -1 )
+            {
+                continue;
+            }
+
+            Label end = new Label();
+            visitPropertyValueRead( mv, className, propertyDescriptor );
+
+            if ( nullBit == -1 )
+            {
+                // Primitive boolean value
+                mv.visitJumpInsn( IFEQ, end );
+                visitPresenceBitSet( mv, valueBit );
+            }
+            else if ( valueBit == -1 )
+            {
+                // Set null bit if value is null
+                mv.visitJumpInsn( IFNONNULL, end );
+                visitPresenceBitSet( mv, nullBit );
+            }
+            else
+            {
+                // Boolean wrapper, set null bit or value bit
+                Label nonNull = new Label();
+                mv.visitVarInsn( ASTORE, 5 );
+                mv.visitVarInsn( ALOAD, 5 );
+                mv.visitJumpInsn( IFNONNULL, nonNull );
+                visitPresenceBitSet( mv, nullBit );
+                mv.visitJumpInsn( GOTO, end );
+
+                mv.visitLabel( nonNull );
+                mv.visitVarInsn( ALOAD, 5 );
+                visitPrimitiveAutoboxing( boolean.class, mv );
+                mv.visitJumpInsn( IFEQ, end );
+                visitPresenceBitSet( mv, valueBit );
+            }
+
+            mv.visitLabel( end );
+        }
+
+        // Write bitmap bytes, lowest bits first
+        for ( int i = 0; i < presenceBitmap.getByteLength(); i++ )
+        {
+            mv.visitVarInsn( ALOAD, 3 );
+            mv.visitVarInsn( LLOAD, MARSHALL_BITMAP_LOCAL );
+            if ( i > 0 )
+            {
+                mv.visitIntInsn( BIPUSH, i * 8 );
+                mv.visitInsn( LUSHR );
+            }
+            mv.visitInsn( L2I );
+            mv.visitInsn( I2B );
+            mv.visitMethodInsn( INVOKEINTERFACE, TARGET_CLASS_INTERNAL_TYPE, "writeByte", "(B)V" );
+        }
+    }
+
+    private void visitPresenceBitmapRead( MethodVisitor mv, PresenceBitmap presenceBitmap )
+    {
+        mv.visitInsn( LCONST_0 );
+        mv.visitVarInsn( LSTORE, UNMARSHALL_BITMAP_LOCAL );
+
+        // Read bitmap bytes, lowest bits first
+        for ( int i = 0; i < presenceBitmap.getByteLength(); i++ )
+        {
+            mv.visitVarInsn( LLOAD, UNMARSHALL_BITMAP_LOCAL );
+            mv.visitVarInsn( ALOAD, 3 );
+            mv.visitMethodInsn( INVOKEINTERFACE, SOURCE_CLASS_INTERNAL_TYPE, "readByte", "()B" );
+            mv.visitIntInsn( SIPUSH, 0xFF );
+            mv.visitInsn( IAND );
+            mv.visitInsn( I2L );
+            if ( i > 0 )
+            {
+                mv.visitIntInsn( BIPUSH, i * 8 );
+                mv.visitInsn( LSHL );
+            }
+            mv.visitInsn( LOR );
+            mv.visitVarInsn( LSTORE, UNMARSHALL_BITMAP_LOCAL );
+        }
+    }
+
+    private void visitPresenceBitmapPropertyWrite( MethodVisitor mv, String className,
+                                                   PropertyDescriptor propertyDescriptor, int nullBit, int valueBit )
+    {
+        Label end = new Label();
+
+        // Load PropertyAccessor and instance to method stack
+        visitPropertyValueWritePrefix( mv, className, propertyDescriptor );
+
+        if ( nullBit != -1 )
+        {
+            Label nonNull = new Label();
+            visitPresenceBitTest( mv, UNMARSHALL_BITMAP_LOCAL, nullBit );
+            mv.visitJumpInsn( IFEQ, nonNull );
+            mv.visitInsn( ACONST_NULL );
+            mv.visitJumpInsn( GOTO, end );
+            mv.visitLabel( nonNull );
+        }
+
+        Label isFalse = new Label();
+        Label isSet = new Label();
+        visitPresenceBitTest( mv, UNMARSHALL_BITMAP_LOCAL, valueBit );
+        mv.visitJumpInsn( IFEQ, isFalse );
+        mv.visitInsn( ICONST_1 );
+        mv.visitJumpInsn( GOTO, isSet );
+        mv.visitLabel( isFalse );
+        mv.visitInsn( ICONST_0 );
+        mv.visitLabel( isSet );
+
+        if ( nullBit != -1 )
+        {
+            visitWrapperAutoboxing( boolean.class, mv );
+        }
+
+        mv.visitLabel( end );
+
+        // Call PropertyAccessor#writeX
+        visitPropertyValueWrite( mv, propertyDescriptor );
+    }
+
+    private void visitPresenceBitSet( MethodVisitor mv, int bit )
+    {
+        mv.visitVarInsn( LLOAD, MARSHALL_BITMAP_LOCAL );
+        mv.visitLdcInsn( Long.valueOf( 1L << bit ) );
+        mv.visitInsn( LOR );
+        mv.visitVarInsn( LSTORE, MARSHALL_BITMAP_LOCAL );
+    }
+
+    private void visitPresenceBitTest( MethodVisitor mv, int local, int bit )
+    {
+        // Leaves 0 on the stack if the bit is not set
+        mv.visitVarInsn( LLOAD, local );
+        mv.visitLdcInsn( Long.valueOf( 1L << bit ) );
+        mv.visitInsn( LAND );
+        mv.visitInsn( LCONST_0 );
+        mv.visitInsn( LCMP );
+    }
+
     private void visitReturn( Class<?> type, MethodVisitor mv )
     {
         int returnOpcode = ARETURN;
@@ -819,6 +1179,225 @@ public class BytecodeMarshallerGenerator
         mv.visitMethodInsn( INVOKEINTERFACE, VALUEPROPERTYACCESSOR_CLASS_INTERNAL_TYPE, methodName, methodSignature );
     }
 
+    private void visitPropertyValueRead( MethodVisitor mv, String className, PropertyDescriptor propertyDescriptor )
+    {
+        Class<?> propertyType = propertyDescriptor.getType();
+
+        if ( isFieldOffsetInlineable( propertyDescriptor ) )
+        {
+            // Read value directly using the field offset: UNSAFE.getX( instance, offset )
+            mv.visitFieldInsn( GETSTATIC, className, UNSAFE_FIELD_NAME, UNSAFE_CLASS_DESCRIPTOR );
+            mv.visitVarInsn( ALOAD, 1 );
+            mv.visitLdcInsn( Long.valueOf( getFieldOffset( propertyDescriptor ) ) );
+            mv.visitMethodInsn( INVOKEVIRTUAL, UNSAFE_CLASS_INTERNAL_TYPE, "get" + toUnsafeTypeName( propertyType ),
+                                "(Ljava/lang/Object;J)" + toUnsafeTypeDescriptor( propertyType ) );
+            return;
+        }
+
+        // Load this to method stack
+        mv.visitVarInsn( ALOAD, 0 );
+
+        // Read PropertyAccessor from field
+        mv.visitFieldInsn( GETFIELD, className, toFinalFieldName( "accessor", propertyDescriptor ),
+                           PROPERTYACCESSOR_CLASS_DESCRIPTOR );
+
+        // Load value to method stack
+        mv.visitVarInsn( ALOAD, 1 );
+
+        // Load value by type on stack
+        visitPropertyAccessorValueRead( propertyType, mv );
+    }
+
+    private void visitPropertyValueWritePrefix( MethodVisitor mv, String className,
+                                                PropertyDescriptor propertyDescriptor )
+    {
+        if ( isFieldOffsetInlineable( propertyDescriptor ) )
+        {
+            // Prepare UNSAFE.putX( instance, offset, ... )
+            mv.visitFieldInsn( GETSTATIC, className, UNSAFE_FIELD_NAME, UNSAFE_CLASS_DESCRIPTOR );
+            mv.visitVarInsn( ALOAD, 1 );
+            mv.visitLdcInsn( Long.valueOf( getFieldOffset( propertyDescriptor ) ) );
+            return;
+        }
+
+        // Load this to method stack
+        mv.visitVarInsn( ALOAD, 0 );
+
+        // Read PropertyAccessor from field
+        mv.visitFieldInsn( GETFIELD, className, toFinalFieldName( "accessor", propertyDescriptor ),
+                           PROPERTYACCESSOR_CLASS_DESCRIPTOR );
+
+        // Load instance to method stack
+        mv.visitVarInsn( ALOAD, 1 );
+    }
+
+    private void visitPropertyValueWrite( MethodVisitor mv, PropertyDescriptor propertyDescriptor )
+    {
+        Class<?> propertyType = propertyDescriptor.getType();
+
+        if ( isFieldOffsetInlineable( propertyDescriptor ) )
+        {
+            mv.visitMethodInsn( INVOKEVIRTUAL, UNSAFE_CLASS_INTERNAL_TYPE, "put" + toUnsafeTypeName( propertyType ),
+                                "(Ljava/lang/Object;J" + toUnsafeTypeDescriptor( propertyType ) + ")V" );
+            return;
+        }
+
+        visitPropertyAccessorValueWrite( propertyType, mv );
+    }
+
+    private boolean isFieldOffsetInlineable( PropertyDescriptor propertyDescriptor )
+    {
+        Class<?> propertyType = propertyDescriptor.getType();
+        if ( propertyType.isArray() && !propertyType.getComponentType().isPrimitive() )
+        {
+            return false;
+        }
+
+        return propertyDescriptor.getPropertyAccessor() instanceof FieldOffsetAwarePropertyAccessor;
+    }
+
+    private long getFieldOffset( PropertyDescriptor propertyDescriptor )
+    {
+        return ( (FieldOffsetAwarePropertyAccessor) propertyDescriptor.getPropertyAccessor() ).getFieldOffset();
+    }
+
+    private String toUnsafeTypeName( Class<?> type )
+    {
+        return type.isPrimitive() ? ClassUtil.getPrimitiveTypeName( type ) : "Object";
+    }
+
+    private String toUnsafeTypeDescriptor( Class<?> type )
+    {
+        return type.isPrimitive() ? Type.getDescriptor( type ) : "Ljava/lang/Object;";
+    }
+
+    private void visitTargetValueWrite( Class<?> type, MethodVisitor mv )
+    {
+        String methodName = "write" + ClassUtil.getPrimitiveTypeName( type );
+        String methodSignature = "(" + Type.getDescriptor( type ) + ")V";
+        mv.visitMethodInsn( INVOKEINTERFACE, TARGET_CLASS_INTERNAL_TYPE, methodName, methodSignature );
+    }
+
+    private void visitSourceValueRead( Class<?> type, MethodVisitor mv )
+    {
+        String methodName = "read" + ClassUtil.getPrimitiveTypeName( type );
+        String methodSignature = "()" + Type.getDescriptor( type );
+        mv.visitMethodInsn( INVOKEINTERFACE, SOURCE_CLASS_INTERNAL_TYPE, methodName, methodSignature );
+    }
+
+    private PresenceBitmap buildPresenceBitmap( List<PropertyDescriptor> propertyDescriptors,
+                                                Map<java.lang.reflect.Type, Marshaller> marshallers )
+    {
+        PresenceBitmap presenceBitmap = new PresenceBitmap( propertyDescriptors.size() );
+        for ( int i = 0; i < propertyDescriptors.size(); i++ )
+        {
+            PropertyDescriptor propertyDescriptor = propertyDescriptors.get( i );
+            Class<?> propertyType = propertyDescriptor.getType();
+            boolean nullBit = isNullMarkerDelegatable( propertyDescriptor, marshallers );
+            boolean valueBit =
+                ( propertyType == boolean.class || ( propertyType == Boolean.class && nullBit ) )
+                    && isPrimitiveInlineable( propertyDescriptor, marshallers );
+
+            int bits = ( nullBit ? 1 : 0 ) + ( valueBit ? 1 : 0 );
+            if ( bits == 0 || presenceBitmap.size + bits > MAX_PRESENCE_BITS )
+            {
+                // Not covered by the bitmap, the marshaller writes null marker and value itself
+                continue;
+            }
+
+            if ( nullBit )
+            {
+                presenceBitmap.nullBits[i] = presenceBitmap.size++;
+            }
+            if ( valueBit )
+            {
+                presenceBitmap.valueBits[i] = presenceBitmap.size++;
+            }
+        }
+        return presenceBitmap;
+    }
+
+    private boolean isNullMarkerDelegatable( PropertyDescriptor propertyDescriptor,
+                                             Map<java.lang.reflect.Type, Marshaller> marshallers )
+    {
+        Class<?> propertyType = propertyDescriptor.getType();
+        if ( !propertyDescriptor.isNullable() || propertyType.isPrimitive() )
+        {
+            return false;
+        }
+
+        // Object arrays are handled by generated code without null marker
+        if ( propertyType.isArray() && !propertyType.getComponentType().isPrimitive() )
+        {
+            return false;
+        }
+
+        if ( isPrimitiveInlineable( propertyDescriptor, marshallers ) )
+        {
+            return true;
+        }
+
+        // Only base marshallers are known to honour PropertyDescriptor#isNullable, user defined ones might not
+        Marshaller marshaller = propertyDescriptor.getMarshaller();
+        if ( marshaller == null )
+        {
+            marshaller = marshallers.get( propertyType );
+        }
+
+        if ( marshaller instanceof VarIntMarshaller )
+        {
+            return true;
+        }
+
+        if ( !( marshaller instanceof AbstractMarshaller ) )
+        {
+            return false;
+        }
+
+        for ( Marshaller baseMarshaller : InternalMarshallerStrategy.baseMarshaller )
+        {
+            if ( marshaller.getClass() == baseMarshaller.getClass() )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isPrimitiveInlineable( PropertyDescriptor propertyDescriptor,
+                                           Map<java.lang.reflect.Type, Marshaller> marshallers )
+    {
+        Class<?> propertyType = propertyDescriptor.getType();
+        Class<?> primitiveType = propertyType.isPrimitive() ? propertyType : ClassUtil.getPrimitiveType( propertyType );
+        if ( primitiveType == null )
+        {
+            return false;
+        }
+
+        // Only inline if the base marshaller would be used anyways, user defined ones take precedence
+        Marshaller marshaller = propertyDescriptor.getMarshaller();
+        if ( marshaller == null )
+        {
+            marshaller = marshallers.get( propertyType );
+        }
+
+        if ( marshaller == null )
+        {
+            return true;
+        }
+
+        for ( Marshaller baseMarshaller : InternalMarshallerStrategy.baseMarshaller )
+        {
+            if ( baseMarshaller.acceptType( primitiveType ) )
+            {
+                return marshaller.getClass() == baseMarshaller.getClass();
+            }
+        }
+
+        return false;
+    }
+
     private void visitPrimitiveAutoboxing( Class<?> type, MethodVisitor mv )
     {
         if ( type == boolean.class )
@@ -916,4 +1495,27 @@ public class BytecodeMarshallerGenerator
                             "(Ljava/lang/String;)V" );
         mv.visitVarInsn( ALOAD, stackPosition );
     }
+
+    private static final class PresenceBitmap
+    {
+
+        private final int[] nullBits;
+
+        private final int[] valueBits;
+
+        private int size;
+
+        private PresenceBitmap( int propertyCount )
+        {
+            nullBits = new int[propertyCount];
+            valueBits = new int[propertyCount];
+            Arrays.fill( nullBits, -1 );
+            Arrays.fill( valueBits, -1 );
+        }
+
+        private int getByteLength()
+        {
+            return ( size + 7 ) / 8;
+        }
+    }
 }
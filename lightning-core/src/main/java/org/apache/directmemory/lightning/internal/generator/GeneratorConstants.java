@@ -29,9 +29,12 @@ import org.apache.directmemory.lightning.MarshallerStrategy;
 import org.apache.directmemory.lightning.SerializationContext;
 import org.apache.directmemory.lightning.Source;
 import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
 import org.apache.directmemory.lightning.instantiator.ObjectInstantiatorFactory;
 import org.apache.directmemory.lightning.internal.CheatPropertyDescriptor;
 import org.apache.directmemory.lightning.internal.ClassDescriptorAwareSerializer;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
+import org.apache.directmemory.lightning.internal.util.UnsafeUtil;
 import org.apache.directmemory.lightning.metadata.ArrayPropertyAccessor;
 import org.apache.directmemory.lightning.metadata.PropertyAccessor;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
@@ -65,7 +68,7 @@ public interface GeneratorConstants
 
     String MARSHALLER_IS_ALREADY_MARSHALLED_SIGNATURE =
         Type.getMethodDescriptor( Type.BOOLEAN_TYPE,
-                                  new Type[] { Type.getType( Object.class ), Type.getType( Class.class ),
+                                  new Type[] { Type.getType( Object.class ), Type.getType( PropertyDescriptor.class ),
                                       Type.getType( Target.class ), Type.getType( SerializationContext.class ) } );
 
     String MARSHALLER_CONSTRUCTOR_SIGNATURE =
@@ -127,12 +130,23 @@ public interface GeneratorConstants
 
     String SOURCE_CLASS_INTERNAL_TYPE = Type.getType( Source.class ).getInternalName();
 
+    String UNSAFE_CLASS_INTERNAL_TYPE = "sun/misc/Unsafe";
+
+    String UNSAFEUTIL_CLASS_INTERNAL_TYPE = Type.getType( UnsafeUtil.class ).getInternalName();
+
+    String VARINTUTILS_CLASS_INTERNAL_TYPE = Type.getType( VarIntUtils.class ).getInternalName();
+
+    String SERIALIZEREXECUTIONEXCEPTION_CLASS_INTERNAL_TYPE =
+        Type.getType( SerializerExecutionException.class ).getInternalName();
+
     String MARSHALLERSTRATEGY_CLASS_INTERNAL_TYPE = Type.getType( MarshallerStrategy.class ).getInternalName();
 
     String MARSHALLER_CLASS_DESCRIPTOR = Type.getType( Marshaller.class ).getDescriptor();
 
     String PROPERTYDESCRIPTOR_CLASS_DESCRIPTOR = Type.getType( PropertyDescriptor.class ).getDescriptor();
 
+    String UNSAFE_CLASS_DESCRIPTOR = "L" + UNSAFE_CLASS_INTERNAL_TYPE + ";";
+
     String PROPERTYACCESSOR_CLASS_DESCRIPTOR = Type.getType( PropertyAccessor.class ).getDescriptor();
 
     String CHEATINGPROPERTYDESCRIPTOR_CLASS_DESCRIPTOR = Type.getType( CheatPropertyDescriptor.class ).getDescriptor();
@@ -143,6 +157,18 @@ public interface GeneratorConstants
 
     String PROPERTY_DESCRIPTOR_FIELD_NAME = "PROPERTY_DESCRIPTORS";
 
+    String UNSAFE_FIELD_NAME = "UNSAFE_LIGHTNING";
+
+    String UNSAFEUTIL_GET_UNSAFE_SIGNATURE = "()" + UNSAFE_CLASS_DESCRIPTOR;
+
+    String VARINTUTILS_PUT_LENGTH_SIGNATURE =
+        Type.getMethodDescriptor( Type.VOID_TYPE, new Type[] { Type.INT_TYPE, Type.getType( Target.class ),
+            Type.getType( SerializationContext.class ) } );
+
+    String VARINTUTILS_GET_LENGTH_SIGNATURE =
+        Type.getMethodDescriptor( Type.INT_TYPE, new Type[] { Type.getType( Source.class ),
+            Type.getType( SerializationContext.class ) } );
+
     String PROPERTY_ACCESSOR_READ_BOOLEAN_SIGNATURE =
         Type.getMethodDescriptor( Type.BOOLEAN_TYPE, new Type[] { Type.getType( Object.class ) } );
 
@@ -24,7 +24,6 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.directmemory.lightning.Marshaller;
-import org.apache.directmemory.lightning.SerializationStrategy;
 import org.apache.directmemory.lightning.instantiator.ObjectInstantiatorFactory;
 import org.apache.directmemory.lightning.internal.ClassDescriptorAwareSerializer;
 import org.apache.directmemory.lightning.logging.Logger;
@@ -35,7 +34,7 @@ public interface MarshallerGenerator
 
     Marshaller generateMarshaller( Class<?> type, List<PropertyDescriptor> propertyDescriptors,
                                    Map<Type, Marshaller> marshallers, ClassDescriptorAwareSerializer serializer,
-                                   SerializationStrategy serializationStrategy,
+                                   boolean trackReferences,
                                    ObjectInstantiatorFactory objectInstantiatorFactory, File debugCacheDirectory,
                                    Logger logger );
 
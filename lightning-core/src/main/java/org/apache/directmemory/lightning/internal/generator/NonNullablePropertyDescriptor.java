@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.internal.generator;
+
+import java.lang.annotation.Annotation;
+
+import org.apache.directmemory.lightning.Marshaller;
+import org.apache.directmemory.lightning.metadata.PropertyAccessor;
+import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
+
+/**
+ * View on a nullable {@link PropertyDescriptor} whose null state is already stored in the presence bitmap of the
+ * generated marshaller. Marshallers only see non null values for it and must not write a null marker.
+ */
+final class NonNullablePropertyDescriptor
+    implements PropertyDescriptor
+{
+
+    private final PropertyDescriptor propertyDescriptor;
+
+    NonNullablePropertyDescriptor( PropertyDescriptor propertyDescriptor )
+    {
+        this.propertyDescriptor = propertyDescriptor;
+    }
+
+    @Override
+    public Annotation[] getAnnotations()
+    {
+        return propertyDescriptor.getAnnotations();
+    }
+
+    @Override
+    public Class<?> getDefinedClass()
+    {
+        return propertyDescriptor.getDefinedClass();
+    }
+
+    @Override
+    public Class<?> getDeclaringClass()
+    {
+        return propertyDescriptor.getDeclaringClass();
+    }
+
+    @Override
+    public PropertyAccessor getPropertyAccessor()
+    {
+        return propertyDescriptor.getPropertyAccessor();
+    }
+
+    @Override
+    public String getName()
+    {
+        return propertyDescriptor.getName();
+    }
+
+    @Override
+    public String getPropertyName()
+    {
+        return propertyDescriptor.getPropertyName();
+    }
+
+    @Override
+    public Class<?> getType()
+    {
+        return propertyDescriptor.getType();
+    }
+
+    @Override
+    public String getInternalSignature()
+    {
+        return propertyDescriptor.getInternalSignature();
+    }
+
+    @Override
+    public Marshaller getMarshaller()
+    {
+        return propertyDescriptor.getMarshaller();
+    }
+
+    @Override
+    public boolean isNullable()
+    {
+        return false;
+    }
+
+    @Override
+    public Boolean getReferenceTracking()
+    {
+        return propertyDescriptor.getReferenceTracking();
+    }
+
+    @Override
+    public int compareTo( PropertyDescriptor o )
+    {
+        return propertyDescriptor.compareTo( o );
+    }
+
+    @Override
+    public String toString()
+    {
+        return propertyDescriptor.toString();
+    }
+}
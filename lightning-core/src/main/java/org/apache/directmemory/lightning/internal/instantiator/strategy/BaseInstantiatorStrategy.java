@@ -39,6 +39,9 @@ public abstract class BaseInstantiatorStrategy
     /** JVM_NAME prefix for Sun Java HotSpot */
     protected static final String SUN = "Java HotSpot";
 
+    /** JVM_NAME prefix for OpenJDK HotSpot builds */
+    protected static final String OPENJDK = "OpenJDK";
+
     /** JVM_NAME prefix for Aonix PERC */
     protected static final String PERC = "PERC";
 
@@ -53,7 +53,7 @@ public class SerializingInstantiatorStrategy
     @Override
     public ObjectInstantiator newInstantiatorOf( Class<?> type )
     {
-        if ( JVM_NAME.startsWith( SUN ) )
+        if ( JVM_NAME.startsWith( SUN ) || JVM_NAME.startsWith( OPENJDK ) )
         {
             if ( VM_VERSION.startsWith( "1.3" ) )
             {
@@ -19,6 +19,7 @@
 package org.apache.directmemory.lightning.internal.io;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.directmemory.lightning.Source;
 import org.apache.directmemory.lightning.Target;
@@ -154,6 +155,327 @@ public class ByteOrderUtils
         }
     }
 
+    public static void putShort( short value, byte[] buffer, int offset, boolean bigEndian )
+    {
+        if ( bigEndian )
+        {
+            buffer[offset] = (byte) ( value >> 8 );
+            buffer[offset + 1] = (byte) ( value >> 0 );
+        }
+        else
+        {
+            buffer[offset] = (byte) ( value >> 0 );
+            buffer[offset + 1] = (byte) ( value >> 8 );
+        }
+    }
+
+    public static short getShort( byte[] buffer, int offset, boolean bigEndian )
+    {
+        if ( bigEndian )
+        {
+            return buildShort( buffer[offset], buffer[offset + 1] );
+        }
+        return buildShort( buffer[offset + 1], buffer[offset] );
+    }
+
+    public static void putInt( int value, byte[] buffer, int offset, boolean bigEndian )
+    {
+        if ( bigEndian )
+        {
+            buffer[offset] = (byte) ( value >>> 24 );
+            buffer[offset + 1] = (byte) ( value >>> 16 );
+            buffer[offset + 2] = (byte) ( value >>> 8 );
+            buffer[offset + 3] = (byte) ( value >>> 0 );
+        }
+        else
+        {
+            buffer[offset] = (byte) ( value >>> 0 );
+            buffer[offset + 1] = (byte) ( value >>> 8 );
+            buffer[offset + 2] = (byte) ( value >>> 16 );
+            buffer[offset + 3] = (byte) ( value >>> 24 );
+        }
+    }
+
+    public static int getInt( byte[] buffer, int offset, boolean bigEndian )
+    {
+        if ( bigEndian )
+        {
+            return buildInt( buffer[offset], buffer[offset + 1], buffer[offset + 2], buffer[offset + 3] );
+        }
+        return buildInt( buffer[offset + 3], buffer[offset + 2], buffer[offset + 1], buffer[offset] );
+    }
+
+    public static void putLong( long value, byte[] buffer, int offset, boolean bigEndian )
+    {
+        if ( bigEndian )
+        {
+            buffer[offset] = (byte) ( value >> 56 );
+            buffer[offset + 1] = (byte) ( value >> 48 );
+            buffer[offset + 2] = (byte) ( value >> 40 );
+            buffer[offset + 3] = (byte) ( value >> 32 );
+            buffer[offset + 4] = (byte) ( value >> 24 );
+            buffer[offset + 5] = (byte) ( value >> 16 );
+            buffer[offset + 6] = (byte) ( value >> 8 );
+            buffer[offset + 7] = (byte) ( value >> 0 );
+        }
+        else
+        {
+            buffer[offset] = (byte) ( value >> 0 );
+            buffer[offset + 1] = (byte) ( value >> 8 );
+            buffer[offset + 2] = (byte) ( value >> 16 );
+            buffer[offset + 3] = (byte) ( value >> 24 );
+            buffer[offset + 4] = (byte) ( value >> 32 );
+            buffer[offset + 5] = (byte) ( value >> 40 );
+            buffer[offset + 6] = (byte) ( value >> 48 );
+            buffer[offset + 7] = (byte) ( value >> 56 );
+        }
+    }
+
+    public static long getLong( byte[] buffer, int offset, boolean bigEndian )
+    {
+        if ( bigEndian )
+        {
+            return buildLong( buffer[offset], buffer[offset + 1], buffer[offset + 2], buffer[offset + 3],
+                              buffer[offset + 4], buffer[offset + 5], buffer[offset + 6], buffer[offset + 7] );
+        }
+        return buildLong( buffer[offset + 7], buffer[offset + 6], buffer[offset + 5], buffer[offset + 4],
+                          buffer[offset + 3], buffer[offset + 2], buffer[offset + 1], buffer[offset] );
+    }
+
+    /**
+     * Returns the size in bytes of a single element of the given short, char, int, long, float or double array.
+     */
+    public static int elementSize( Object values )
+    {
+        if ( values instanceof short[] )
+        {
+            return 2;
+        }
+        if ( values instanceof char[] )
+        {
+            return 2;
+        }
+        if ( values instanceof int[] )
+        {
+            return 4;
+        }
+        if ( values instanceof long[] )
+        {
+            return 8;
+        }
+        if ( values instanceof float[] )
+        {
+            return 4;
+        }
+        if ( values instanceof double[] )
+        {
+            return 8;
+        }
+        throw new IllegalArgumentException( "Not a supported primitive array: " + values.getClass() );
+    }
+
+    /**
+     * Encodes length elements of the given primitive array (see {@link #elementSize(Object)}) starting at offset into
+     * the buffer starting at bufferOffset.
+     */
+    public static void putArray( Object values, int offset, int length, byte[] buffer, int bufferOffset,
+                                 boolean bigEndian )
+    {
+        int end = offset + length;
+        int position = bufferOffset;
+        if ( values instanceof short[] )
+        {
+            short[] array = (short[]) values;
+            for ( int i = offset; i < end; i++, position += 2 )
+            {
+                putShort( array[i], buffer, position, bigEndian );
+            }
+        }
+        else if ( values instanceof char[] )
+        {
+            char[] array = (char[]) values;
+            for ( int i = offset; i < end; i++, position += 2 )
+            {
+                putShort( (short) array[i], buffer, position, bigEndian );
+            }
+        }
+        else if ( values instanceof int[] )
+        {
+            int[] array = (int[]) values;
+            for ( int i = offset; i < end; i++, position += 4 )
+            {
+                putInt( array[i], buffer, position, bigEndian );
+            }
+        }
+        else if ( values instanceof long[] )
+        {
+            long[] array = (long[]) values;
+            for ( int i = offset; i < end; i++, position += 8 )
+            {
+                putLong( array[i], buffer, position, bigEndian );
+            }
+        }
+        else if ( values instanceof float[] )
+        {
+            float[] array = (float[]) values;
+            for ( int i = offset; i < end; i++, position += 4 )
+            {
+                putInt( Float.floatToIntBits( array[i] ), buffer, position, bigEndian );
+            }
+        }
+        else if ( values instanceof double[] )
+        {
+            double[] array = (double[]) values;
+            for ( int i = offset; i < end; i++, position += 8 )
+            {
+                putLong( Double.doubleToLongBits( array[i] ), buffer, position, bigEndian );
+            }
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Not a supported primitive array: " + values.getClass() );
+        }
+    }
+
+    /**
+     * Decodes length elements of the given primitive array (see {@link #elementSize(Object)}) starting at offset from
+     * the buffer starting at bufferOffset.
+     */
+    public static void getArray( byte[] buffer, int bufferOffset, Object values, int offset, int length,
+                                 boolean bigEndian )
+    {
+        int end = offset + length;
+        int position = bufferOffset;
+        if ( values instanceof short[] )
+        {
+            short[] array = (short[]) values;
+            for ( int i = offset; i < end; i++, position += 2 )
+            {
+                array[i] = getShort( buffer, position, bigEndian );
+            }
+        }
+        else if ( values instanceof char[] )
+        {
+            char[] array = (char[]) values;
+            for ( int i = offset; i < end; i++, position += 2 )
+            {
+                array[i] = (char) getShort( buffer, position, bigEndian );
+            }
+        }
+        else if ( values instanceof int[] )
+        {
+            int[] array = (int[]) values;
+            for ( int i = offset; i < end; i++, position += 4 )
+            {
+                array[i] = getInt( buffer, position, bigEndian );
+            }
+        }
+        else if ( values instanceof long[] )
+        {
+            long[] array = (long[]) values;
+            for ( int i = offset; i < end; i++, position += 8 )
+            {
+                array[i] = getLong( buffer, position, bigEndian );
+            }
+        }
+        else if ( values instanceof float[] )
+        {
+            float[] array = (float[]) values;
+            for ( int i = offset; i < end; i++, position += 4 )
+            {
+                array[i] = Float.intBitsToFloat( getInt( buffer, position, bigEndian ) );
+            }
+        }
+        else if ( values instanceof double[] )
+        {
+            double[] array = (double[]) values;
+            for ( int i = offset; i < end; i++, position += 8 )
+            {
+                array[i] = Double.longBitsToDouble( getLong( buffer, position, bigEndian ) );
+            }
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Not a supported primitive array: " + values.getClass() );
+        }
+    }
+
+    /**
+     * Copies length elements of the given primitive array (see {@link #elementSize(Object)}) starting at offset into
+     * the buffer in one step through its typed view, using the buffer's byte order. The position is moved behind the
+     * copied elements.
+     */
+    public static void putArray( Object values, int offset, int length, ByteBuffer buffer )
+    {
+        if ( values instanceof short[] )
+        {
+            buffer.asShortBuffer().put( (short[]) values, offset, length );
+        }
+        else if ( values instanceof char[] )
+        {
+            buffer.asCharBuffer().put( (char[]) values, offset, length );
+        }
+        else if ( values instanceof int[] )
+        {
+            buffer.asIntBuffer().put( (int[]) values, offset, length );
+        }
+        else if ( values instanceof long[] )
+        {
+            buffer.asLongBuffer().put( (long[]) values, offset, length );
+        }
+        else if ( values instanceof float[] )
+        {
+            buffer.asFloatBuffer().put( (float[]) values, offset, length );
+        }
+        else if ( values instanceof double[] )
+        {
+            buffer.asDoubleBuffer().put( (double[]) values, offset, length );
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Not a supported primitive array: " + values.getClass() );
+        }
+        buffer.position( buffer.position() + length * elementSize( values ) );
+    }
+
+    /**
+     * Copies length elements from the buffer into the given primitive array (see {@link #elementSize(Object)})
+     * starting at offset in one step through the buffer's typed view, using the buffer's byte order. The position is
+     * moved behind the copied elements.
+     */
+    public static void getArray( ByteBuffer buffer, Object values, int offset, int length )
+    {
+        if ( values instanceof short[] )
+        {
+            buffer.asShortBuffer().get( (short[]) values, offset, length );
+        }
+        else if ( values instanceof char[] )
+        {
+            buffer.asCharBuffer().get( (char[]) values, offset, length );
+        }
+        else if ( values instanceof int[] )
+        {
+            buffer.asIntBuffer().get( (int[]) values, offset, length );
+        }
+        else if ( values instanceof long[] )
+        {
+            buffer.asLongBuffer().get( (long[]) values, offset, length );
+        }
+        else if ( values instanceof float[] )
+        {
+            buffer.asFloatBuffer().get( (float[]) values, offset, length );
+        }
+        else if ( values instanceof double[] )
+        {
+            buffer.asDoubleBuffer().get( (double[]) values, offset, length );
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Not a supported primitive array: " + values.getClass() );
+        }
+        buffer.position( buffer.position() + length * elementSize( values ) );
+    }
+
     private static short buildShort( byte b1, byte b0 )
     {
         return (short) ( ( ( ( b1 & 0xFF ) << 8 ) | ( ( b0 & 0xFF ) << 0 ) ) );
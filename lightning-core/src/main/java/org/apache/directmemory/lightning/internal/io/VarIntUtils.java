@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.internal.io;
+
+import java.io.IOException;
+
+import org.apache.directmemory.lightning.NumberEncodingStrategy;
+import org.apache.directmemory.lightning.SerializationContext;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
+
+/**
+ * Variable length (LEB128 style) encoding of integral values. Every byte carries 7 bits of the value, the highest bit
+ * is set if more bytes are following. Signed values are ZigZag encoded to keep small negative values short.
+ */
+public class VarIntUtils
+{
+
+    private VarIntUtils()
+    {
+    }
+
+    /**
+     * Writes a length, size or ordinal using the {@link NumberEncodingStrategy} of the given context.
+     */
+    public static void putLength( int length, Target target, SerializationContext serializationContext )
+        throws IOException
+    {
+        if ( serializationContext.getNumberEncodingStrategy() == NumberEncodingStrategy.Varint )
+        {
+            putVarInt( length, target );
+        }
+        else
+        {
+            target.writeInt( length );
+        }
+    }
+
+    /**
+     * Reads a length, size or ordinal written by {@link #putLength(int, Target, SerializationContext)}.
+     */
+    public static int getLength( Source source, SerializationContext serializationContext )
+        throws IOException
+    {
+        if ( serializationContext.getNumberEncodingStrategy() == NumberEncodingStrategy.Varint )
+        {
+            return getVarInt( source );
+        }
+        return source.readInt();
+    }
+
+    public static void putVarInt( int value, Target target )
+        throws IOException
+    {
+        while ( ( value & ~0x7F ) != 0 )
+        {
+            target.writeByte( (byte) ( ( value & 0x7F ) | 0x80 ) );
+            value >>>= 7;
+        }
+        target.writeByte( (byte) value );
+    }
+
+    public static int getVarInt( Source source )
+        throws IOException
+    {
+        int value = 0;
+        for ( int shift = 0; shift < 32; shift += 7 )
+        {
+            byte b = source.readByte();
+            value |= ( b & 0x7F ) << shift;
+            if ( ( b & 0x80 ) == 0 )
+            {
+                return value;
+            }
+        }
+        throw new SerializerExecutionException( "Malformed varint in stream" );
+    }
+
+    public static void putVarLong( long value, Target target )
+        throws IOException
+    {
+        while ( ( value & ~0x7FL ) != 0 )
+        {
+            target.writeByte( (byte) ( ( value & 0x7F ) | 0x80 ) );
+            value >>>= 7;
+        }
+        target.writeByte( (byte) value );
+    }
+
+    public static long getVarLong( Source source )
+        throws IOException
+    {
+        long value = 0;
+        for ( int shift = 0; shift < 64; shift += 7 )
+        {
+            byte b = source.readByte();
+            value |= (long) ( b & 0x7F ) << shift;
+            if ( ( b & 0x80 ) == 0 )
+            {
+                return value;
+            }
+        }
+        throw new SerializerExecutionException( "Malformed varlong in stream" );
+    }
+
+    public static void putZigZagInt( int value, Target target )
+        throws IOException
+    {
+        putVarInt( ( value << 1 ) ^ ( value >> 31 ), target );
+    }
+
+    public static int getZigZagInt( Source source )
+        throws IOException
+    {
+        int value = getVarInt( source );
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+
+    public static void putZigZagLong( long value, Target target )
+        throws IOException
+    {
+        putVarLong( ( value << 1 ) ^ ( value >> 63 ), target );
+    }
+
+    public static long getZigZagLong( Source source )
+        throws IOException
+    {
+        long value = getVarLong( source );
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+}
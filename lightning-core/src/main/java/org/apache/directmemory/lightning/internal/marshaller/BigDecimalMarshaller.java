@@ -20,20 +20,18 @@ package org.apache.directmemory.lightning.internal.marshaller;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.charset.Charset;
 
 import org.apache.directmemory.lightning.SerializationContext;
 import org.apache.directmemory.lightning.Source;
 import org.apache.directmemory.lightning.Target;
 import org.apache.directmemory.lightning.base.AbstractMarshaller;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
 
 public class BigDecimalMarshaller
     extends AbstractMarshaller
 {
 
-    private static final Charset CHARSET = Charset.forName( "ASCII" );
-
     @Override
     public boolean acceptType( Class<?> type )
     {
@@ -46,15 +44,15 @@ public class BigDecimalMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
 
-        String representation = ( (BigDecimal) value ).toString();
-        byte[] data = representation.getBytes( CHARSET );
-        target.writeInt( data.length );
-        target.writeBytes( data );
+        // Scale (might be negative) followed by the unscaled value in BigIntegerMarshaller's encoding
+        BigDecimal decimal = (BigDecimal) value;
+        VarIntUtils.putZigZagInt( decimal.scale(), target );
+        BigIntegerMarshaller.writeBigInteger( decimal.unscaledValue(), target );
     }
 
     @Override
@@ -63,15 +61,18 @@ public class BigDecimalMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int length = source.readInt();
-        byte[] data = new byte[length];
-        source.readBytes( data );
+        int scale = VarIntUtils.getZigZagInt( source );
+        int header = VarIntUtils.getVarInt( source );
+        if ( header == BigIntegerMarshaller.LONG_HEADER )
+        {
+            return (V) BigDecimal.valueOf( VarIntUtils.getZigZagLong( source ), scale );
+        }
 
-        return (V) new BigDecimal( new String( data, CHARSET ) );
+        return (V) new BigDecimal( BigIntegerMarshaller.readBigInteger( header, source ), scale );
     }
 }
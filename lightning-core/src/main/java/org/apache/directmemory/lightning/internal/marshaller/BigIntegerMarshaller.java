@@ -25,12 +25,17 @@ import org.apache.directmemory.lightning.SerializationContext;
 import org.apache.directmemory.lightning.Source;
 import org.apache.directmemory.lightning.Target;
 import org.apache.directmemory.lightning.base.AbstractMarshaller;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
 
 public class BigIntegerMarshaller
     extends AbstractMarshaller
 {
 
+    // Header values are varints, the lowest bit marks a value that fits into a long and follows as zigzag varlong,
+    // otherwise the header holds the length of the two's-complement bytes shifted by one
+    static final int LONG_HEADER = 1;
+
     @Override
     public boolean acceptType( Class<?> type )
     {
@@ -43,14 +48,12 @@ public class BigIntegerMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
 
-        byte[] data = ( (BigInteger) value ).toByteArray();
-        target.writeInt( data.length );
-        target.writeBytes( data );
+        writeBigInteger( (BigInteger) value, target );
     }
 
     @Override
@@ -59,15 +62,40 @@ public class BigIntegerMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int length = source.readInt();
-        byte[] data = new byte[length];
-        source.readBytes( data );
+        int header = VarIntUtils.getVarInt( source );
+        if ( header == LONG_HEADER )
+        {
+            return (V) BigInteger.valueOf( VarIntUtils.getZigZagLong( source ) );
+        }
 
-        return (V) new BigInteger( data );
+        return (V) readBigInteger( header, source );
+    }
+
+    static void writeBigInteger( BigInteger value, Target target )
+        throws IOException
+    {
+        if ( value.bitLength() < 64 )
+        {
+            VarIntUtils.putVarInt( LONG_HEADER, target );
+            VarIntUtils.putZigZagLong( value.longValue(), target );
+            return;
+        }
+
+        byte[] data = value.toByteArray();
+        VarIntUtils.putVarInt( data.length << 1, target );
+        target.writeBytes( data );
+    }
+
+    static BigInteger readBigInteger( int header, Source source )
+        throws IOException
+    {
+        byte[] data = new byte[header >>> 1];
+        source.readBytes( data );
+        return new BigInteger( data );
     }
 }
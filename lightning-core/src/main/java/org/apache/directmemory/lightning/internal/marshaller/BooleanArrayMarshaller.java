@@ -42,7 +42,7 @@ public class BooleanArrayMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
@@ -50,7 +50,7 @@ public class BooleanArrayMarshaller
         if ( boolean[].class == propertyDescriptor.getType() )
         {
             boolean[] array = (boolean[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
             for ( boolean arrayValue : array )
             {
@@ -60,7 +60,7 @@ public class BooleanArrayMarshaller
         else
         {
             Boolean[] array = (Boolean[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
             for ( boolean arrayValue : array )
             {
@@ -75,12 +75,12 @@ public class BooleanArrayMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         if ( boolean[].class == propertyDescriptor.getType() )
         {
             boolean[] array = new boolean[size];
@@ -42,7 +42,7 @@ public class ByteArrayMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
@@ -50,17 +50,14 @@ public class ByteArrayMarshaller
         if ( byte[].class == propertyDescriptor.getType() )
         {
             byte[] array = (byte[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
-            for ( byte arrayValue : array )
-            {
-                target.writeByte( arrayValue );
-            }
+            target.writeBytes( array );
         }
         else
         {
             Byte[] array = (Byte[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
             for ( byte arrayValue : array )
             {
@@ -75,19 +72,16 @@ public class ByteArrayMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         if ( byte[].class == propertyDescriptor.getType() )
         {
             byte[] array = new byte[size];
-            for ( int i = 0; i < size; i++ )
-            {
-                array[i] = source.readByte();
-            }
+            source.readBytes( array );
 
             return (V) array;
         }
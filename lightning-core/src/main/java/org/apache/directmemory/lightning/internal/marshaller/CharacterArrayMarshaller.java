@@ -42,7 +42,7 @@ public class CharacterArrayMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
@@ -50,17 +50,14 @@ public class CharacterArrayMarshaller
         if ( char[].class == propertyDescriptor.getType() )
         {
             char[] array = (char[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
-            for ( char arrayValue : array )
-            {
-                target.writeChar( arrayValue );
-            }
+            target.writeChars( array, 0, array.length );
         }
         else
         {
             Character[] array = (Character[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
             for ( char arrayValue : array )
             {
@@ -75,19 +72,16 @@ public class CharacterArrayMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         if ( char[].class == propertyDescriptor.getType() )
         {
             char[] array = new char[size];
-            for ( int i = 0; i < size; i++ )
-            {
-                array[i] = source.readChar();
-            }
+            source.readChars( array, 0, size );
 
             return (V) array;
         }
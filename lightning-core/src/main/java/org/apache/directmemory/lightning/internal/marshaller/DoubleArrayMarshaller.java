@@ -42,7 +42,7 @@ public class DoubleArrayMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
@@ -50,17 +50,14 @@ public class DoubleArrayMarshaller
         if ( double[].class == propertyDescriptor.getType() )
         {
             double[] array = (double[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
-            for ( double arrayValue : array )
-            {
-                target.writeDouble( arrayValue );
-            }
+            target.writeDoubles( array, 0, array.length );
         }
         else
         {
             Double[] array = (Double[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
             for ( double arrayValue : array )
             {
@@ -75,19 +72,16 @@ public class DoubleArrayMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         if ( double[].class == propertyDescriptor.getType() )
         {
             double[] array = new double[size];
-            for ( int i = 0; i < size; i++ )
-            {
-                array[i] = source.readDouble();
-            }
+            source.readDoubles( array, 0, size );
 
             return (V) array;
         }
@@ -44,7 +44,7 @@ public class DoubleMarshaller
 
         if ( Double.class == propertyDescriptor.getType() )
         {
-            if ( !writePossibleNull( value, target ) )
+            if ( !writePossibleNull( value, propertyDescriptor, target ) )
             {
                 return;
             }
@@ -61,7 +61,7 @@ public class DoubleMarshaller
     {
         if ( Double.class == propertyDescriptor.getType() )
         {
-            if ( isNull( source ) )
+            if ( isNull( propertyDescriptor, source ) )
             {
                 return null;
             }
@@ -19,17 +19,28 @@
 package org.apache.directmemory.lightning.internal.marshaller;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.directmemory.lightning.SerializationContext;
 import org.apache.directmemory.lightning.Source;
 import org.apache.directmemory.lightning.Target;
 import org.apache.directmemory.lightning.base.AbstractMarshaller;
+import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
+import org.apache.directmemory.lightning.metadata.ClassDefinition;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
 
 public class EnumMarshaller
     extends AbstractMarshaller
 {
 
+    // Enums with up to this number of constants write their ordinal as a single unsigned byte
+    private static final int BYTE_ORDINAL_LIMIT = 256;
+
+    // Class.getEnumConstants() clones the constants array on every call. The cache pins the enum classes, so every
+    // serializer uses its own instance (see InternalMarshallerStrategy) instead of the shared base marshaller.
+    private final ConcurrentMap<Class<?>, Enum<?>[]> enumConstants = new ConcurrentHashMap<Class<?>, Enum<?>[]>();
+
     @Override
     public boolean acceptType( Class<?> type )
     {
@@ -42,13 +53,31 @@ public class EnumMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
 
-        target.writeLong( serializationContext.getClassDefinitionContainer().getClassDefinitionByType( propertyDescriptor.getType() ).getId() );
-        target.writeInt( ( (Enum<?>) value ).ordinal() );
+        Enum<?> enumValue = (Enum<?>) value;
+        Class<?> enumType = propertyDescriptor.getType();
+
+        // The class id is only needed if the declared type does not name the enum itself
+        if ( !enumType.isEnum() )
+        {
+            enumType = enumValue.getDeclaringClass();
+            ClassDefinition classDefinition =
+                serializationContext.getClassDefinitionContainer().getClassDefinitionByType( enumType );
+            serializationContext.writeClassDefinition( classDefinition, target );
+        }
+
+        if ( getEnumConstants( enumType ).length <= BYTE_ORDINAL_LIMIT )
+        {
+            target.writeByte( (byte) enumValue.ordinal() );
+        }
+        else
+        {
+            writeLength( enumValue.ordinal(), target, serializationContext );
+        }
     }
 
     @Override
@@ -57,24 +86,40 @@ public class EnumMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        long typeId = source.readLong();
-        Class<?> propertyType = serializationContext.getClassDefinitionContainer().getTypeById( typeId );
+        Class<?> enumType = propertyDescriptor.getType();
+        if ( !enumType.isEnum() )
+        {
+            enumType = serializationContext.readClassDefinition( source ).getType();
+        }
+
+        Enum<?>[] values = getEnumConstants( enumType );
+        int ordinal =
+            values.length <= BYTE_ORDINAL_LIMIT ? source.readByte() & 0xFF : readLength( source, serializationContext );
 
-        int ordinal = source.readInt();
-        Enum<?>[] values = ( (Class<Enum<?>>) propertyType ).getEnumConstants();
-        for ( Enum<?> value : values )
+        if ( ordinal >= values.length )
         {
-            if ( value.ordinal() == ordinal )
-            {
-                return (V) value;
-            }
+            throw new SerializerExecutionException( "Ordinal " + ordinal + " is not a constant of enum "
+                + enumType.getCanonicalName() );
         }
 
-        return null;
+        return (V) values[ordinal];
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private Enum<?>[] getEnumConstants( Class<?> enumType )
+    {
+        Enum<?>[] values = enumConstants.get( enumType );
+        if ( values == null )
+        {
+            values = ( (Class<Enum<?>>) enumType ).getEnumConstants();
+            Enum<?>[] existing = enumConstants.putIfAbsent( enumType, values );
+            values = existing != null ? existing : values;
+        }
+        return values;
     }
 }
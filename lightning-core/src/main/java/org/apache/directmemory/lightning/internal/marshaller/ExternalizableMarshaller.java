@@ -50,7 +50,7 @@ public class ExternalizableMarshaller
         ObjectOutputStream oos = new ObjectOutputStream( stream );
         ( (Externalizable) value ).writeExternal( oos );
         byte[] data = stream.toByteArray();
-        target.writeInt( data.length );
+        writeLength( data.length, target, serializationContext );
         target.writeBytes( data );
     }
 
@@ -61,7 +61,7 @@ public class ExternalizableMarshaller
     {
         try
         {
-            int length = source.readInt();
+            int length = readLength( source, serializationContext );
             byte[] data = new byte[length];
             source.readBytes( data );
             ByteArrayInputStream stream = new ByteArrayInputStream( data );
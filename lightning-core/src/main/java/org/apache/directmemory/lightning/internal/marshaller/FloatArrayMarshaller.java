@@ -42,7 +42,7 @@ public class FloatArrayMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
@@ -50,17 +50,14 @@ public class FloatArrayMarshaller
         if ( float[].class == propertyDescriptor.getType() )
         {
             float[] array = (float[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
-            for ( float arrayValue : array )
-            {
-                target.writeFloat( arrayValue );
-            }
+            target.writeFloats( array, 0, array.length );
         }
         else
         {
             Float[] array = (Float[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
             for ( float arrayValue : array )
             {
@@ -75,19 +72,16 @@ public class FloatArrayMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         if ( float[].class == propertyDescriptor.getType() )
         {
             float[] array = new float[size];
-            for ( int i = 0; i < size; i++ )
-            {
-                array[i] = source.readFloat();
-            }
+            source.readFloats( array, 0, size );
 
             return (V) array;
         }
@@ -42,7 +42,7 @@ public class IntegerArrayMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
@@ -50,17 +50,14 @@ public class IntegerArrayMarshaller
         if ( int[].class == propertyDescriptor.getType() )
         {
             int[] array = (int[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
-            for ( int arrayValue : array )
-            {
-                target.writeInt( arrayValue );
-            }
+            target.writeInts( array, 0, array.length );
         }
         else
         {
             Integer[] array = (Integer[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
             for ( int arrayValue : array )
             {
@@ -75,19 +72,16 @@ public class IntegerArrayMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         if ( int[].class == propertyDescriptor.getType() )
         {
             int[] array = new int[size];
-            for ( int i = 0; i < size; i++ )
-            {
-                array[i] = source.readInt();
-            }
+            source.readInts( array, 0, size );
 
             return (V) array;
         }
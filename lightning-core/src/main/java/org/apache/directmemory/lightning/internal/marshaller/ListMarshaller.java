@@ -32,27 +32,34 @@ import org.apache.directmemory.lightning.TypeBindableMarshaller;
 import org.apache.directmemory.lightning.base.AbstractMarshaller;
 import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
 import org.apache.directmemory.lightning.internal.CheatPropertyDescriptor;
+import org.apache.directmemory.lightning.internal.util.ClassUtil;
 import org.apache.directmemory.lightning.internal.util.TypeUtil;
 import org.apache.directmemory.lightning.metadata.ClassDefinition;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
 
 public class ListMarshaller
     extends AbstractMarshaller
-    implements TypeBindableMarshaller
+    implements TypeBindableMarshaller, ResolvableMarshaller
 {
 
     private final Type listType;
 
-    private Marshaller listTypeMarshaller;
+    private final Marshaller listTypeMarshaller;
+
+    private final PropertyDescriptor listTypePropertyDescriptor;
 
     public ListMarshaller()
     {
-        this( null );
+        this( null, null );
     }
 
-    private ListMarshaller( Type listType )
+    private ListMarshaller( Type listType, Marshaller listTypeMarshaller )
     {
         this.listType = listType;
+        this.listTypeMarshaller = listTypeMarshaller;
+        this.listTypePropertyDescriptor =
+            listType == null ? null : new CheatPropertyDescriptor( "listElement", TypeUtil.getBaseType( listType ),
+                                                                    listTypeMarshaller );
     }
 
     @Override
@@ -67,44 +74,58 @@ public class ListMarshaller
         throws IOException
     {
 
-        if ( writePossibleNull( value, target ) )
+        if ( writePossibleNull( value, propertyDescriptor, target ) )
         {
             List<?> list = (List<?>) value;
-            target.writeInt( list.size() );
+            writeLength( list.size(), target, serializationContext );
+            if ( list.isEmpty() )
+            {
+                return;
+            }
 
             Marshaller marshaller = null;
-            ClassDefinition classDefinition = null;
             PropertyDescriptor pd = null;
+            boolean writeClassDefinitions = false;
             if ( listType != null )
             {
-                ensureMarshallerInitialized( serializationContext );
-                marshaller = listTypeMarshaller;
-                Class<?> baseType = TypeUtil.getBaseType( listType );
-                classDefinition =
-                    serializationContext.getClassDefinitionContainer().getClassDefinitionByType( baseType );
-                pd = new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "List", baseType, marshaller );
+                // Bound element type is known on both sides so no class ids are needed
+                marshaller = findListTypeMarshaller( serializationContext );
+                pd = listTypePropertyDescriptor;
+            }
+            else
+            {
+                // If all elements share the same type the class id is only written once
+                Class<?> homogeneousType = ClassUtil.getHomogeneousType( list );
+                target.writeBoolean( homogeneousType != null );
+                if ( homogeneousType != null )
+                {
+                    serializationContext.writeClassDefinition( findClassDefinition( homogeneousType,
+                                                                                    serializationContext ), target );
+                    marshaller = serializationContext.findMarshaller( homogeneousType );
+                    pd =
+                        new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "List", homogeneousType,
+                                                     marshaller );
+                }
+                else
+                {
+                    writeClassDefinitions = true;
+                }
             }
 
             for ( Object entry : list )
             {
                 if ( writePossibleNull( entry, target ) )
                 {
-                    if ( listType == null )
+                    if ( writeClassDefinitions )
                     {
+                        serializationContext.writeClassDefinition( findClassDefinition( entry.getClass(),
+                                                                                        serializationContext ), target );
                         marshaller = serializationContext.findMarshaller( entry.getClass() );
-                        classDefinition =
-                            serializationContext.getClassDefinitionContainer().getClassDefinitionByType( entry.getClass() );
                         pd =
                             new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "List",
                                                          entry.getClass(), marshaller );
                     }
 
-                    if ( classDefinition == null )
-                    {
-                        throw new SerializerExecutionException( "No ClassDefinition found for type " + entry.getClass() );
-                    }
-
-                    target.writeLong( classDefinition.getId() );
                     marshaller.marshall( entry, pd, target, serializationContext );
                 }
             }
@@ -117,43 +138,57 @@ public class ListMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         List list = new ArrayList( size );
-        if ( size > 0 )
+        if ( size == 0 )
         {
-            for ( int i = 0; i < size; i++ )
-            {
-                if ( isNull( source ) )
-                {
-                    list.add( null );
-                }
-                else
-                {
-                    long classId = source.readLong();
-                    ClassDefinition classDefinition =
-                        serializationContext.getClassDefinitionContainer().getClassDefinitionById( classId );
+            return (V) list;
+        }
 
-                    Marshaller marshaller;
-                    if ( listType != null )
-                    {
-                        ensureMarshallerInitialized( serializationContext );
-                        marshaller = listTypeMarshaller;
-                    }
-                    else
-                    {
-                        marshaller = serializationContext.findMarshaller( classDefinition.getType() );
-                    }
+        Marshaller marshaller = null;
+        PropertyDescriptor pd = null;
+        boolean readClassDefinitions = false;
+        if ( listType != null )
+        {
+            marshaller = findListTypeMarshaller( serializationContext );
+            pd = listTypePropertyDescriptor;
+        }
+        else if ( source.readBoolean() )
+        {
+            ClassDefinition classDefinition = serializationContext.readClassDefinition( source );
+            marshaller = serializationContext.findMarshaller( classDefinition.getType() );
+            pd =
+                new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "List", classDefinition.getType(),
+                                             marshaller );
+        }
+        else
+        {
+            readClassDefinitions = true;
+        }
 
-                    PropertyDescriptor pd =
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( isNull( source ) )
+            {
+                list.add( null );
+            }
+            else
+            {
+                if ( readClassDefinitions )
+                {
+                    ClassDefinition classDefinition = serializationContext.readClassDefinition( source );
+                    marshaller = serializationContext.findMarshaller( classDefinition.getType() );
+                    pd =
                         new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "List",
                                                      classDefinition.getType(), marshaller );
-                    list.add( marshaller.unmarshall( pd, source, serializationContext ) );
                 }
+
+                list.add( marshaller.unmarshall( pd, source, serializationContext ) );
             }
         }
 
@@ -175,16 +210,34 @@ public class ListMarshaller
         }
 
         Type listType = bindingTypes[0];
-        return new ListMarshaller( listType );
+        return new ListMarshaller( listType, null );
     }
 
-    private void ensureMarshallerInitialized( SerializationContext serializationContext )
+    @Override
+    public Marshaller resolve( SerializationContext serializationContext )
     {
-        if ( listTypeMarshaller != null )
+        if ( listType == null || listTypeMarshaller != null )
         {
-            return;
+            return this;
         }
+        return new ListMarshaller( listType, serializationContext.findMarshaller( listType ) );
+    }
 
-        listTypeMarshaller = serializationContext.findMarshaller( listType );
+    private Marshaller findListTypeMarshaller( SerializationContext serializationContext )
+    {
+        // Marshallers bound at definition time are not resolved, they look up the element marshaller per call
+        return listTypeMarshaller != null ? listTypeMarshaller : serializationContext.findMarshaller( listType );
+    }
+
+    private ClassDefinition findClassDefinition( Class<?> type, SerializationContext serializationContext )
+    {
+        ClassDefinition classDefinition =
+            serializationContext.getClassDefinitionContainer().getClassDefinitionByType( type );
+
+        if ( classDefinition == null )
+        {
+            throw new SerializerExecutionException( "No ClassDefinition found for type " + type );
+        }
+        return classDefinition;
     }
 }
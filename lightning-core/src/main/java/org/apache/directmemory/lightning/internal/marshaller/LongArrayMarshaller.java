@@ -42,7 +42,7 @@ public class LongArrayMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
@@ -50,17 +50,14 @@ public class LongArrayMarshaller
         if ( long[].class == propertyDescriptor.getType() )
         {
             long[] array = (long[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
-            for ( long arrayValue : array )
-            {
-                target.writeLong( arrayValue );
-            }
+            target.writeLongs( array, 0, array.length );
         }
         else
         {
             Long[] array = (Long[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
             for ( long arrayValue : array )
             {
@@ -75,19 +72,16 @@ public class LongArrayMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         if ( long[].class == propertyDescriptor.getType() )
         {
             long[] array = new long[size];
-            for ( int i = 0; i < size; i++ )
-            {
-                array[i] = source.readLong();
-            }
+            source.readLongs( array, 0, size );
 
             return (V) array;
         }
@@ -33,32 +33,52 @@ import org.apache.directmemory.lightning.TypeBindableMarshaller;
 import org.apache.directmemory.lightning.base.AbstractMarshaller;
 import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
 import org.apache.directmemory.lightning.internal.CheatPropertyDescriptor;
+import org.apache.directmemory.lightning.internal.util.ClassUtil;
 import org.apache.directmemory.lightning.internal.util.TypeUtil;
 import org.apache.directmemory.lightning.metadata.ClassDefinition;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
 
 public class MapMarshaller
     extends AbstractMarshaller
-    implements TypeBindableMarshaller
+    implements TypeBindableMarshaller, ResolvableMarshaller
 {
 
     private final Type mapKeyType;
 
     private final Type mapValueType;
 
-    private Marshaller mapKeyTypeMarshaller;
+    private final Marshaller mapKeyTypeMarshaller;
 
-    private Marshaller mapValueTypeMarshaller;
+    private final Marshaller mapValueTypeMarshaller;
+
+    private final PropertyDescriptor mapKeyTypePropertyDescriptor;
+
+    private final PropertyDescriptor mapValueTypePropertyDescriptor;
 
     public MapMarshaller()
     {
-        this( null, null );
+        this( null, null, null, null );
     }
 
-    private MapMarshaller( Type mapKeyType, Type mapValueType )
+    private MapMarshaller( Type mapKeyType, Type mapValueType, Marshaller mapKeyTypeMarshaller,
+                           Marshaller mapValueTypeMarshaller )
     {
         this.mapKeyType = mapKeyType;
         this.mapValueType = mapValueType;
+        this.mapKeyTypeMarshaller = mapKeyTypeMarshaller;
+        this.mapValueTypeMarshaller = mapValueTypeMarshaller;
+        if ( mapKeyType != null )
+        {
+            this.mapKeyTypePropertyDescriptor =
+                new CheatPropertyDescriptor( "mapKey", TypeUtil.getBaseType( mapKeyType ), mapKeyTypeMarshaller );
+            this.mapValueTypePropertyDescriptor =
+                new CheatPropertyDescriptor( "mapValue", TypeUtil.getBaseType( mapValueType ), mapValueTypeMarshaller );
+        }
+        else
+        {
+            this.mapKeyTypePropertyDescriptor = null;
+            this.mapValueTypePropertyDescriptor = null;
+        }
     }
 
     @Override
@@ -73,72 +93,97 @@ public class MapMarshaller
         throws IOException
     {
 
-        if ( writePossibleNull( value, target ) )
+        if ( writePossibleNull( value, propertyDescriptor, target ) )
         {
             Map<?, ?> map = (Map<?, ?>) value;
-            target.writeInt( map.size() );
+            writeLength( map.size(), target, serializationContext );
+            if ( map.isEmpty() )
+            {
+                return;
+            }
 
             Marshaller keyMarshaller = null;
-            ClassDefinition keyClassDefinition = null;
             PropertyDescriptor keyPd = null;
             Marshaller valueMarshaller = null;
-            ClassDefinition valueClassDefinition = null;
             PropertyDescriptor valuePd = null;
+            boolean writeKeyClassDefinitions = false;
+            boolean writeValueClassDefinitions = false;
             if ( mapKeyType != null )
             {
-                ensureMarshallersInitialized( serializationContext );
-                keyMarshaller = mapKeyTypeMarshaller;
-                Class<?> baseType = TypeUtil.getBaseType( mapKeyType );
-                keyClassDefinition =
-                    serializationContext.getClassDefinitionContainer().getClassDefinitionByType( baseType );
-                keyPd =
-                    new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Key", baseType, keyMarshaller );
+                // Bound key and value types are known on both sides so no class ids are needed
+                keyMarshaller = findMapTypeMarshaller( mapKeyType, mapKeyTypeMarshaller, serializationContext );
+                keyPd = mapKeyTypePropertyDescriptor;
+                valueMarshaller = findMapTypeMarshaller( mapValueType, mapValueTypeMarshaller, serializationContext );
+                valuePd = mapValueTypePropertyDescriptor;
+            }
+            else
+            {
+                // If all keys (or values) share the same type the class id is only written once
+                Class<?> homogeneousKeyType = ClassUtil.getHomogeneousType( map.keySet() );
+                target.writeBoolean( homogeneousKeyType != null );
+                if ( homogeneousKeyType != null )
+                {
+                    serializationContext.writeClassDefinition( findClassDefinition( homogeneousKeyType,
+                                                                                    serializationContext ), target );
+                    keyMarshaller = serializationContext.findMarshaller( homogeneousKeyType );
+                    keyPd =
+                        new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Key", homogeneousKeyType,
+                                                     keyMarshaller );
+                }
+                else
+                {
+                    writeKeyClassDefinitions = true;
+                }
 
-                valueMarshaller = mapValueTypeMarshaller;
-                baseType = TypeUtil.getBaseType( mapValueType );
-                valueClassDefinition =
-                    serializationContext.getClassDefinitionContainer().getClassDefinitionByType( baseType );
-                valuePd =
-                    new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Value", baseType,
-                                                 valueMarshaller );
+                Class<?> homogeneousValueType = ClassUtil.getHomogeneousType( map.values() );
+                target.writeBoolean( homogeneousValueType != null );
+                if ( homogeneousValueType != null )
+                {
+                    serializationContext.writeClassDefinition( findClassDefinition( homogeneousValueType,
+                                                                                    serializationContext ), target );
+                    valueMarshaller = serializationContext.findMarshaller( homogeneousValueType );
+                    valuePd =
+                        new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Value",
+                                                     homogeneousValueType, valueMarshaller );
+                }
+                else
+                {
+                    writeValueClassDefinitions = true;
+                }
             }
 
             for ( Entry<?, ?> entry : map.entrySet() )
             {
-                if ( mapKeyType == null )
+                Object key = entry.getKey();
+                if ( writePossibleNull( key, target ) )
                 {
-                    keyMarshaller =
-                        entry.getKey() != null ? serializationContext.findMarshaller( entry.getKey().getClass() )
-                                        : null;
-                    keyClassDefinition =
-                        serializationContext.getClassDefinitionContainer().getClassDefinitionByType( entry.getKey().getClass() );
-                    keyPd =
-                        new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Key",
-                                                     entry.getKey().getClass(), keyMarshaller );
-
-                    if ( entry.getValue() != null )
+                    if ( writeKeyClassDefinitions )
                     {
-                        valueMarshaller =
-                            entry.getValue() != null ? serializationContext.findMarshaller( entry.getValue().getClass() )
-                                            : null;
-                        valueClassDefinition =
-                            serializationContext.getClassDefinitionContainer().getClassDefinitionByType( entry.getValue().getClass() );
-                        valuePd =
-                            new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Value",
-                                                         entry.getValue().getClass(), valueMarshaller );
+                        serializationContext.writeClassDefinition( findClassDefinition( key.getClass(),
+                                                                                        serializationContext ), target );
+                        keyMarshaller = serializationContext.findMarshaller( key.getClass() );
+                        keyPd =
+                            new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Key", key.getClass(),
+                                                         keyMarshaller );
                     }
-                }
 
-                if ( writePossibleNull( entry.getKey(), target ) )
-                {
-                    target.writeLong( keyClassDefinition.getId() );
-                    keyMarshaller.marshall( entry.getKey(), keyPd, target, serializationContext );
+                    keyMarshaller.marshall( key, keyPd, target, serializationContext );
                 }
 
-                if ( writePossibleNull( entry.getValue(), target ) )
+                Object entryValue = entry.getValue();
+                if ( writePossibleNull( entryValue, target ) )
                 {
-                    target.writeLong( valueClassDefinition.getId() );
-                    valueMarshaller.marshall( entry.getValue(), valuePd, target, serializationContext );
+                    if ( writeValueClassDefinitions )
+                    {
+                        serializationContext.writeClassDefinition( findClassDefinition( entryValue.getClass(),
+                                                                                        serializationContext ), target );
+                        valueMarshaller = serializationContext.findMarshaller( entryValue.getClass() );
+                        valuePd =
+                            new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Value",
+                                                         entryValue.getClass(), valueMarshaller );
+                    }
+
+                    valueMarshaller.marshall( entryValue, valuePd, target, serializationContext );
                 }
             }
         }
@@ -150,67 +195,93 @@ public class MapMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         Map map = new LinkedHashMap( size );
-        if ( size > 0 )
+        if ( size == 0 )
+        {
+            return (V) map;
+        }
+
+        Marshaller keyMarshaller = null;
+        PropertyDescriptor keyPd = null;
+        Marshaller valueMarshaller = null;
+        PropertyDescriptor valuePd = null;
+        boolean readKeyClassDefinitions = false;
+        boolean readValueClassDefinitions = false;
+        if ( mapKeyType != null )
+        {
+            keyMarshaller = findMapTypeMarshaller( mapKeyType, mapKeyTypeMarshaller, serializationContext );
+            keyPd = mapKeyTypePropertyDescriptor;
+            valueMarshaller = findMapTypeMarshaller( mapValueType, mapValueTypeMarshaller, serializationContext );
+            valuePd = mapValueTypePropertyDescriptor;
+        }
+        else
         {
-            for ( int i = 0; i < size; i++ )
+            if ( source.readBoolean() )
             {
-                Object key = null;
-                if ( !isNull( source ) )
-                {
-                    long keyClassId = source.readLong();
-                    ClassDefinition keyClassDefinition =
-                        serializationContext.getClassDefinitionContainer().getClassDefinitionById( keyClassId );
+                ClassDefinition classDefinition = serializationContext.readClassDefinition( source );
+                keyMarshaller = serializationContext.findMarshaller( classDefinition.getType() );
+                keyPd =
+                    new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Key",
+                                                 classDefinition.getType(), keyMarshaller );
+            }
+            else
+            {
+                readKeyClassDefinitions = true;
+            }
 
-                    Marshaller keyMarshaller;
-                    if ( mapKeyType != null )
-                    {
-                        ensureMarshallersInitialized( serializationContext );
-                        keyMarshaller = mapKeyTypeMarshaller;
-                    }
-                    else
-                    {
-                        keyMarshaller = serializationContext.findMarshaller( keyClassDefinition.getType() );
-                    }
+            if ( source.readBoolean() )
+            {
+                ClassDefinition classDefinition = serializationContext.readClassDefinition( source );
+                valueMarshaller = serializationContext.findMarshaller( classDefinition.getType() );
+                valuePd =
+                    new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Value",
+                                                 classDefinition.getType(), valueMarshaller );
+            }
+            else
+            {
+                readValueClassDefinitions = true;
+            }
+        }
 
-                    PropertyDescriptor pd =
+        for ( int i = 0; i < size; i++ )
+        {
+            Object key = null;
+            if ( !isNull( source ) )
+            {
+                if ( readKeyClassDefinitions )
+                {
+                    ClassDefinition classDefinition = serializationContext.readClassDefinition( source );
+                    keyMarshaller = serializationContext.findMarshaller( classDefinition.getType() );
+                    keyPd =
                         new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Key",
-                                                     keyClassDefinition.getType(), keyMarshaller );
-                    key = keyMarshaller.unmarshall( pd, source, serializationContext );
+                                                     classDefinition.getType(), keyMarshaller );
                 }
 
-                Object value = null;
-                if ( !isNull( source ) )
-                {
-                    long valueClassId = source.readLong();
-                    ClassDefinition valueClassDefinition =
-                        serializationContext.getClassDefinitionContainer().getClassDefinitionById( valueClassId );
-
-                    Marshaller valueMarshaller;
-                    if ( mapKeyType != null )
-                    {
-                        ensureMarshallersInitialized( serializationContext );
-                        valueMarshaller = mapValueTypeMarshaller;
-                    }
-                    else
-                    {
-                        valueMarshaller = serializationContext.findMarshaller( valueClassDefinition.getType() );
-                    }
+                key = keyMarshaller.unmarshall( keyPd, source, serializationContext );
+            }
 
-                    PropertyDescriptor pd =
+            Object value = null;
+            if ( !isNull( source ) )
+            {
+                if ( readValueClassDefinitions )
+                {
+                    ClassDefinition classDefinition = serializationContext.readClassDefinition( source );
+                    valueMarshaller = serializationContext.findMarshaller( classDefinition.getType() );
+                    valuePd =
                         new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Value",
-                                                     valueClassDefinition.getType(), valueMarshaller );
-                    value = valueMarshaller.unmarshall( pd, source, serializationContext );
+                                                     classDefinition.getType(), valueMarshaller );
                 }
 
-                map.put( key, value );
+                value = valueMarshaller.unmarshall( valuePd, source, serializationContext );
             }
+
+            map.put( key, value );
         }
 
         return (V) map;
@@ -230,19 +301,38 @@ public class MapMarshaller
                 + Arrays.toString( bindingTypes ) );
         }
 
-        Class<?> mapKeyType = (Class<?>) bindingTypes[0];
-        Class<?> mapValueType = (Class<?>) bindingTypes[1];
-        return new MapMarshaller( mapKeyType, mapValueType );
+        Type mapKeyType = bindingTypes[0];
+        Type mapValueType = bindingTypes[1];
+        return new MapMarshaller( mapKeyType, mapValueType, null, null );
     }
 
-    private void ensureMarshallersInitialized( SerializationContext serializationContext )
+    @Override
+    public Marshaller resolve( SerializationContext serializationContext )
     {
-        if ( mapKeyTypeMarshaller != null && mapValueTypeMarshaller != null )
+        if ( mapKeyType == null || mapKeyTypeMarshaller != null )
         {
-            return;
+            return this;
         }
+        return new MapMarshaller( mapKeyType, mapValueType, serializationContext.findMarshaller( mapKeyType ),
+                                  serializationContext.findMarshaller( mapValueType ) );
+    }
+
+    private Marshaller findMapTypeMarshaller( Type type, Marshaller marshaller,
+                                              SerializationContext serializationContext )
+    {
+        // Marshallers bound at definition time are not resolved, they look up the marshaller per call
+        return marshaller != null ? marshaller : serializationContext.findMarshaller( type );
+    }
 
-        mapKeyTypeMarshaller = serializationContext.findMarshaller( mapKeyType );
-        mapValueTypeMarshaller = serializationContext.findMarshaller( mapValueType );
+    private ClassDefinition findClassDefinition( Class<?> type, SerializationContext serializationContext )
+    {
+        ClassDefinition classDefinition =
+            serializationContext.getClassDefinitionContainer().getClassDefinitionByType( type );
+
+        if ( classDefinition == null )
+        {
+            throw new SerializerExecutionException( "No ClassDefinition found for type " + type );
+        }
+        return classDefinition;
     }
 }
@@ -51,7 +51,7 @@ public class SerializableMarshaller
         ObjectOutputStream oos = new ObjectOutputStream( stream );
         oos.writeObject( value );
         byte[] data = stream.toByteArray();
-        target.writeInt( data.length );
+        writeLength( data.length, target, serializationContext );
         target.writeBytes( data );
         oos.close();
     }
@@ -62,7 +62,7 @@ public class SerializableMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        int length = source.readInt();
+        int length = readLength( source, serializationContext );
         byte[] data = new byte[length];
         source.readBytes( data );
         ByteArrayInputStream stream = new ByteArrayInputStream( data );
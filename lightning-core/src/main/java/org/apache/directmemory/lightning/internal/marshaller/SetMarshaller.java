@@ -32,27 +32,34 @@ import org.apache.directmemory.lightning.TypeBindableMarshaller;
 import org.apache.directmemory.lightning.base.AbstractMarshaller;
 import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
 import org.apache.directmemory.lightning.internal.CheatPropertyDescriptor;
+import org.apache.directmemory.lightning.internal.util.ClassUtil;
 import org.apache.directmemory.lightning.internal.util.TypeUtil;
 import org.apache.directmemory.lightning.metadata.ClassDefinition;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
 
 public class SetMarshaller
     extends AbstractMarshaller
-    implements TypeBindableMarshaller
+    implements TypeBindableMarshaller, ResolvableMarshaller
 {
 
     private final Type setType;
 
-    private Marshaller setTypeMarshaller;
+    private final Marshaller setTypeMarshaller;
+
+    private final PropertyDescriptor setTypePropertyDescriptor;
 
     public SetMarshaller()
     {
-        this( null );
+        this( null, null );
     }
 
-    private SetMarshaller( Type setType )
+    private SetMarshaller( Type setType, Marshaller setTypeMarshaller )
     {
         this.setType = setType;
+        this.setTypeMarshaller = setTypeMarshaller;
+        this.setTypePropertyDescriptor =
+            setType == null ? null : new CheatPropertyDescriptor( "setElement", TypeUtil.getBaseType( setType ),
+                                                                    setTypeMarshaller );
     }
 
     @Override
@@ -67,39 +74,58 @@ public class SetMarshaller
         throws IOException
     {
 
-        if ( writePossibleNull( value, target ) )
+        if ( writePossibleNull( value, propertyDescriptor, target ) )
         {
             Set<?> set = (Set<?>) value;
-            target.writeInt( set.size() );
+            writeLength( set.size(), target, serializationContext );
+            if ( set.isEmpty() )
+            {
+                return;
+            }
 
             Marshaller marshaller = null;
-            ClassDefinition classDefinition = null;
             PropertyDescriptor pd = null;
+            boolean writeClassDefinitions = false;
             if ( setType != null )
             {
-                ensureMarshallerInitialized( serializationContext );
-                marshaller = setTypeMarshaller;
-                Class<?> baseType = TypeUtil.getBaseType( setType );
-                classDefinition =
-                    serializationContext.getClassDefinitionContainer().getClassDefinitionByType( baseType );
-                pd = new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Set", baseType, marshaller );
+                // Bound element type is known on both sides so no class ids are needed
+                marshaller = findSetTypeMarshaller( serializationContext );
+                pd = setTypePropertyDescriptor;
+            }
+            else
+            {
+                // If all elements share the same type the class id is only written once
+                Class<?> homogeneousType = ClassUtil.getHomogeneousType( set );
+                target.writeBoolean( homogeneousType != null );
+                if ( homogeneousType != null )
+                {
+                    serializationContext.writeClassDefinition( findClassDefinition( homogeneousType,
+                                                                                    serializationContext ), target );
+                    marshaller = serializationContext.findMarshaller( homogeneousType );
+                    pd =
+                        new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Set", homogeneousType,
+                                                     marshaller );
+                }
+                else
+                {
+                    writeClassDefinitions = true;
+                }
             }
 
             for ( Object entry : set )
             {
                 if ( writePossibleNull( entry, target ) )
                 {
-                    if ( setType == null )
+                    if ( writeClassDefinitions )
                     {
+                        serializationContext.writeClassDefinition( findClassDefinition( entry.getClass(),
+                                                                                        serializationContext ), target );
                         marshaller = serializationContext.findMarshaller( entry.getClass() );
-                        classDefinition =
-                            serializationContext.getClassDefinitionContainer().getClassDefinitionByType( entry.getClass() );
                         pd =
                             new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Set",
                                                          entry.getClass(), marshaller );
                     }
 
-                    target.writeLong( classDefinition.getId() );
                     marshaller.marshall( entry, pd, target, serializationContext );
                 }
             }
@@ -112,43 +138,57 @@ public class SetMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         Set set = new HashSet( size );
-        if ( size > 0 )
+        if ( size == 0 )
         {
-            for ( int i = 0; i < size; i++ )
-            {
-                if ( isNull( source ) )
-                {
-                    set.add( null );
-                }
-                else
-                {
-                    long classId = source.readLong();
-                    ClassDefinition classDefinition =
-                        serializationContext.getClassDefinitionContainer().getClassDefinitionById( classId );
+            return (V) set;
+        }
 
-                    Marshaller marshaller;
-                    if ( setType != null )
-                    {
-                        ensureMarshallerInitialized( serializationContext );
-                        marshaller = setTypeMarshaller;
-                    }
-                    else
-                    {
-                        marshaller = serializationContext.findMarshaller( classDefinition.getType() );
-                    }
+        Marshaller marshaller = null;
+        PropertyDescriptor pd = null;
+        boolean readClassDefinitions = false;
+        if ( setType != null )
+        {
+            marshaller = findSetTypeMarshaller( serializationContext );
+            pd = setTypePropertyDescriptor;
+        }
+        else if ( source.readBoolean() )
+        {
+            ClassDefinition classDefinition = serializationContext.readClassDefinition( source );
+            marshaller = serializationContext.findMarshaller( classDefinition.getType() );
+            pd =
+                new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Set", classDefinition.getType(),
+                                             marshaller );
+        }
+        else
+        {
+            readClassDefinitions = true;
+        }
 
-                    PropertyDescriptor pd =
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( isNull( source ) )
+            {
+                set.add( null );
+            }
+            else
+            {
+                if ( readClassDefinitions )
+                {
+                    ClassDefinition classDefinition = serializationContext.readClassDefinition( source );
+                    marshaller = serializationContext.findMarshaller( classDefinition.getType() );
+                    pd =
                         new CheatPropertyDescriptor( propertyDescriptor.getPropertyName() + "Set",
                                                      classDefinition.getType(), marshaller );
-                    set.add( marshaller.unmarshall( pd, source, serializationContext ) );
                 }
+
+                set.add( marshaller.unmarshall( pd, source, serializationContext ) );
             }
         }
 
@@ -170,16 +210,34 @@ public class SetMarshaller
         }
 
         Type setType = bindingTypes[0];
-        return new SetMarshaller( setType );
+        return new SetMarshaller( setType, null );
     }
 
-    private void ensureMarshallerInitialized( SerializationContext serializationContext )
+    @Override
+    public Marshaller resolve( SerializationContext serializationContext )
     {
-        if ( setTypeMarshaller != null )
+        if ( setType == null || setTypeMarshaller != null )
         {
-            return;
+            return this;
         }
+        return new SetMarshaller( setType, serializationContext.findMarshaller( setType ) );
+    }
+
+    private Marshaller findSetTypeMarshaller( SerializationContext serializationContext )
+    {
+        // Marshallers bound at definition time are not resolved, they look up the element marshaller per call
+        return setTypeMarshaller != null ? setTypeMarshaller : serializationContext.findMarshaller( setType );
+    }
+
+    private ClassDefinition findClassDefinition( Class<?> type, SerializationContext serializationContext )
+    {
+        ClassDefinition classDefinition =
+            serializationContext.getClassDefinitionContainer().getClassDefinitionByType( type );
 
-        setTypeMarshaller = serializationContext.findMarshaller( setType );
+        if ( classDefinition == null )
+        {
+            throw new SerializerExecutionException( "No ClassDefinition found for type " + type );
+        }
+        return classDefinition;
     }
 }
@@ -42,7 +42,7 @@ public class ShortArrayMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
@@ -50,17 +50,14 @@ public class ShortArrayMarshaller
         if ( short[].class == propertyDescriptor.getType() )
         {
             short[] array = (short[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
-            for ( short arrayValue : array )
-            {
-                target.writeShort( arrayValue );
-            }
+            target.writeShorts( array, 0, array.length );
         }
         else
         {
             Short[] array = (Short[]) value;
-            target.writeInt( array.length );
+            writeLength( array.length, target, serializationContext );
 
             for ( short arrayValue : array )
             {
@@ -75,19 +72,16 @@ public class ShortArrayMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
-        int size = source.readInt();
+        int size = readLength( source, serializationContext );
         if ( short[].class == propertyDescriptor.getType() )
         {
             short[] array = new short[size];
-            for ( int i = 0; i < size; i++ )
-            {
-                array[i] = source.readShort();
-            }
+            source.readShorts( array, 0, size );
 
             return (V) array;
         }
@@ -20,10 +20,12 @@ package org.apache.directmemory.lightning.internal.marshaller;
 
 import java.io.IOException;
 
+import org.apache.directmemory.lightning.NumberEncodingStrategy;
 import org.apache.directmemory.lightning.SerializationContext;
 import org.apache.directmemory.lightning.Source;
 import org.apache.directmemory.lightning.Target;
 import org.apache.directmemory.lightning.base.AbstractMarshaller;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
 import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
 
 public class StringMarshaller
@@ -42,12 +44,38 @@ public class StringMarshaller
         throws IOException
     {
 
-        if ( !writePossibleNull( value, target ) )
+        if ( !writePossibleNull( value, propertyDescriptor, target ) )
         {
             return;
         }
 
-        target.writeString( (String) value );
+        if ( serializationContext.isDeduplicateStrings() )
+        {
+            // The lowest bit of the header marks back-references, otherwise it holds the length of a new string
+            String string = (String) value;
+            int index = serializationContext.findStringIndex( string );
+            if ( index >= 0 )
+            {
+                writeLength( index << 1 | 1, target, serializationContext );
+                return;
+            }
+
+            serializationContext.putMarshalledString( string );
+            int length = UnicodeUtil.UTF8Length( string );
+            writeLength( length << 1, target, serializationContext );
+            target.writeUTF8( string, length );
+        }
+        else if ( serializationContext.getNumberEncodingStrategy() == NumberEncodingStrategy.Varint )
+        {
+            String string = (String) value;
+            int length = UnicodeUtil.UTF8Length( string );
+            writeLength( length, target, serializationContext );
+            target.writeUTF8( string, length );
+        }
+        else
+        {
+            target.writeString( (String) value );
+        }
     }
 
     @Override
@@ -56,11 +84,29 @@ public class StringMarshaller
                              SerializationContext serializationContext )
         throws IOException
     {
-        if ( isNull( source ) )
+        if ( isNull( propertyDescriptor, source ) )
         {
             return null;
         }
 
+        if ( serializationContext.isDeduplicateStrings() )
+        {
+            int header = readLength( source, serializationContext );
+            if ( ( header & 1 ) == 1 )
+            {
+                return (V) serializationContext.findStringByIndex( header >>> 1 );
+            }
+
+            String value = source.readUTF8( header >>> 1 );
+            serializationContext.putUnmarshalledString( value );
+            return (V) value;
+        }
+
+        if ( serializationContext.getNumberEncodingStrategy() == NumberEncodingStrategy.Varint )
+        {
+            return (V) source.readUTF8( readLength( source, serializationContext ) );
+        }
+
         return (V) source.readString();
     }
 }
@@ -74,12 +74,104 @@ public final class ClassUtil
     {
     }
 
+    /**
+     * Returns true if the given {@link ClassDefinition} is one of the built-in {@link #CLASS_DESCRIPTORS} every
+     * container starts with.
+     */
+    public static boolean isBuildInTypeClassDefinition( ClassDefinition classDefinition )
+    {
+        return classDefinition instanceof JavaBuildInTypeClassDefinition;
+    }
+
     public static boolean isReferenceCapable( Class<?> type )
     {
         return !type.isPrimitive() && Boolean.class != type && Byte.class != type && Short.class != type
             && Integer.class != type && Long.class != type && Float.class != type && Double.class != type;
     }
 
+    /**
+     * Returns the common class of all non null elements or null if elements have different classes or all elements
+     * are null.
+     */
+    public static Class<?> getHomogeneousType( Iterable<?> elements )
+    {
+        Class<?> homogeneousType = null;
+        for ( Object element : elements )
+        {
+            if ( element == null )
+            {
+                continue;
+            }
+
+            Class<?> type = element.getClass();
+            if ( homogeneousType == null )
+            {
+                homogeneousType = type;
+            }
+            else if ( homogeneousType != type )
+            {
+                return null;
+            }
+        }
+        return homogeneousType;
+    }
+
+    public static Class<?> getPrimitiveType( Class<?> wrapperType )
+    {
+        if ( Boolean.class == wrapperType )
+        {
+            return boolean.class;
+        }
+        else if ( Byte.class == wrapperType )
+        {
+            return byte.class;
+        }
+        else if ( Character.class == wrapperType )
+        {
+            return char.class;
+        }
+        else if ( Short.class == wrapperType )
+        {
+            return short.class;
+        }
+        else if ( Integer.class == wrapperType )
+        {
+            return int.class;
+        }
+        else if ( Long.class == wrapperType )
+        {
+            return long.class;
+        }
+        else if ( Float.class == wrapperType )
+        {
+            return float.class;
+        }
+        else if ( Double.class == wrapperType )
+        {
+            return double.class;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name part of the matching {@link org.apache.directmemory.lightning.Target} /
+     * {@link org.apache.directmemory.lightning.Source} methods for a primitive type, e.g. "Int" for int.class.
+     */
+    public static String getPrimitiveTypeName( Class<?> primitiveType )
+    {
+        if ( int.class == primitiveType )
+        {
+            return "Int";
+        }
+        else if ( char.class == primitiveType )
+        {
+            return "Char";
+        }
+
+        String name = primitiveType.getName();
+        return Character.toUpperCase( name.charAt( 0 ) ) + name.substring( 1 );
+    }
+
     public static Class<?> loadClass( String canonicalName )
         throws ClassNotFoundException
     {
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.internal.util;
+
+/**
+ * Table based CRC32C (Castagnoli) checksum computation. Java 6 has no built-in CRC32C implementation.
+ */
+public final class Crc32CUtil
+{
+
+    private static final int[] CRC32C_TABLE = new int[256];
+
+    static
+    {
+        for ( int i = 0; i < 256; i++ )
+        {
+            int crc = i;
+            for ( int j = 0; j < 8; j++ )
+            {
+                crc = ( crc & 1 ) != 0 ? ( crc >>> 1 ) ^ 0x82F63B78 : crc >>> 1;
+            }
+            CRC32C_TABLE[i] = crc;
+        }
+    }
+
+    private Crc32CUtil()
+    {
+    }
+
+    /**
+     * Calculates the CRC32C checksum of the given range of the data array.
+     * 
+     * @param data the data to checksum
+     * @param offset the offset of the first byte to checksum
+     * @param length the number of bytes to checksum
+     * @return the calculated checksum
+     */
+    public static int checksum( byte[] data, int offset, int length )
+    {
+        int crc = 0xFFFFFFFF;
+        for ( int i = offset; i < offset + length; i++ )
+        {
+            crc = ( crc >>> 8 ) ^ CRC32C_TABLE[( crc ^ data[i] ) & 0xFF];
+        }
+        return ~crc;
+    }
+}
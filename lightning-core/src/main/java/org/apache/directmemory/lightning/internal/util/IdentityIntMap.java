@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.internal.util;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map using object identity for keys and primitive ints as values, so no value boxing and no
+ * entry objects are needed. Missing keys return -1, therefore only non negative values can be stored. Not threadsafe.
+ */
+public final class IdentityIntMap
+{
+
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private Object[] keys;
+
+    private int[] values;
+
+    private int size, mask, threshold;
+
+    public IdentityIntMap()
+    {
+        this( 16 );
+    }
+
+    public IdentityIntMap( int initialCapacity )
+    {
+        if ( initialCapacity > 1 << 29 )
+        {
+            throw new IllegalArgumentException( "initialCapacity is too large." );
+        }
+        if ( initialCapacity < 0 )
+        {
+            throw new IllegalArgumentException( "initialCapacity must be greater than zero." );
+        }
+        int capacity = 2;
+        while ( capacity < initialCapacity * 2 )
+        {
+            capacity <<= 1;
+        }
+        allocate( capacity );
+    }
+
+    public int get( Object key )
+    {
+        final Object[] keys = this.keys;
+        int index = index( key, mask );
+        Object candidate;
+        while ( ( candidate = keys[index] ) != null )
+        {
+            if ( candidate == key )
+            {
+                return values[index];
+            }
+            index = ( index + 1 ) & mask;
+        }
+        return -1;
+    }
+
+    public void put( Object key, int value )
+    {
+        if ( key == null )
+        {
+            throw new IllegalArgumentException( "key must not be null." );
+        }
+
+        int index = index( key, mask );
+        Object candidate;
+        while ( ( candidate = keys[index] ) != null )
+        {
+            if ( candidate == key )
+            {
+                values[index] = value;
+                return;
+            }
+            index = ( index + 1 ) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        if ( ++size >= threshold )
+        {
+            resize( keys.length << 1 );
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void clear()
+    {
+        if ( size > 0 )
+        {
+            Arrays.fill( keys, null );
+            size = 0;
+        }
+    }
+
+    private void resize( int capacity )
+    {
+        final Object[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate( capacity );
+
+        for ( int i = 0; i < oldKeys.length; i++ )
+        {
+            Object key = oldKeys[i];
+            if ( key != null )
+            {
+                int index = index( key, mask );
+                while ( keys[index] != null )
+                {
+                    index = ( index + 1 ) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate( int capacity )
+    {
+        keys = new Object[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        // Load factor of 0.5 keeps probe sequences short
+        threshold = capacity >> 1;
+    }
+
+    private static int index( Object key, int mask )
+    {
+        // Spread identity hash codes, they tend to differ in the higher bits only
+        int hash = System.identityHashCode( key ) * GOLDEN_RATIO;
+        return ( hash ^ ( hash >>> 16 ) ) & mask;
+    }
+}
@@ -17,7 +17,9 @@
 package org.apache.directmemory.lightning.internal.util;
 
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 
 import org.apache.directmemory.lightning.Source;
 import org.apache.directmemory.lightning.Target;
@@ -94,8 +96,9 @@ import org.apache.directmemory.lightning.Target;
  */
 
 /**
- * Class to encode java's UTF16 char[] into UTF8 byte[] without always allocating a new byte[] as
- * String.getBytes("UTF-8") does.
+ * Class to encode java's UTF16 strings into UTF8 bytes (and back) without the intermediate copies and charset lookups
+ * String.getBytes("UTF-8") does. Pure ASCII strings, the common case, are encoded and decoded in a single tight loop.
+ * Strings are written with their encoded length in bytes so readers can skip them without decoding.
  */
 public final class UnicodeUtil
 {
@@ -123,69 +126,357 @@ public final class UnicodeUtil
     private static final int SURROGATE_OFFSET = Character.MIN_SUPPLEMENTARY_CODE_POINT
         - ( UNI_SUR_HIGH_START << HALF_SHIFT ) - UNI_SUR_LOW_START;
 
-    // Special String package private internal constructor for sharing char-array usage
-    private static final Constructor<String> STRING_PP_CONSTRUCTOR;
+    @SuppressWarnings( "restriction" )
+    private static final sun.misc.Unsafe UNSAFE = UnsafeUtil.getUnsafe();
 
-    static
+    /**
+     * Writes the UTF8 length of the given {@link String} in bytes as a 4 byte integer followed by the encoded bytes.
+     * 
+     * @throws IOException
+     */
+    public static void writeString( String value, Target target )
+        throws IOException
+    {
+        int length = UTF8Length( value );
+        target.writeInt( length );
+        target.writeUTF8( value, length );
+    }
+
+    /**
+     * Reads a {@link String} written by {@link #writeString(String, Target)}.
+     * 
+     * @throws IOException
+     */
+    public static String readString( Source source )
+        throws IOException
+    {
+        int length = source.readInt();
+        return source.readUTF8( length );
+    }
+
+    /**
+     * Writes the UTF8 encoding of the given {@link String} without any length information through a temporary array.
+     * The given length must be the result of {@link #UTF8Length(String)} for the same value. This is the fallback for
+     * {@link Target#writeUTF8(String, int)} implementations that cannot encode in place.
+     * 
+     * @throws IOException
+     */
+    public static void writeUTF8( String value, int length, Target target )
+        throws IOException
+    {
+        byte[] data = new byte[length];
+        UTF16toUTF8( value, data, 0 );
+        target.writeBytes( data );
+    }
+
+    /**
+     * Reads and decodes length bytes written by {@link #writeUTF8(String, int, Target)} through a temporary array. This
+     * is the fallback for {@link Source#readUTF8(int)} implementations that cannot decode in place.
+     * 
+     * @throws IOException
+     */
+    public static String readUTF8( int length, Source source )
+        throws IOException
     {
-        Constructor<String> constructor = null;
-        try
+        byte[] data = new byte[length];
+        source.readBytes( data );
+        return UTF8toUTF16( data, 0, length );
+    }
+
+    /**
+     * Returns the number of bytes the UTF8 encoding of the given {@link String} needs.
+     */
+    public static int UTF8Length( String value )
+    {
+        final int end = value.length();
+
+        int i = 0;
+        while ( i < end && value.charAt( i ) < 0x80 )
+        {
+            i++;
+        }
+
+        int length = i;
+        while ( i < end )
         {
-            constructor = String.class.getDeclaredConstructor( int.class, int.class, char[].class );
-            constructor.setAccessible( true );
+            final int code = value.charAt( i++ );
+            if ( code < 0x80 )
+            {
+                length++;
+            }
+            else if ( code < 0x800 )
+            {
+                length += 2;
+            }
+            else if ( code < 0xD800 || code > 0xDFFF )
+            {
+                length += 3;
+            }
+            else
+            {
+                // Valid surrogate pairs need 4 bytes, unpaired surrogates are replaced by the 3 byte substitution
+                // character
+                if ( code < 0xDC00 && i < end )
+                {
+                    int utf32 = value.charAt( i );
+                    if ( utf32 >= 0xDC00 && utf32 <= 0xDFFF )
+                    {
+                        i++;
+                        length += 4;
+                        continue;
+                    }
+                }
+                length += 3;
+            }
         }
-        catch ( SecurityException e )
+        return length;
+    }
+
+    /**
+     * Encode the given {@link String} directly into the given buffer starting at offset without writing the length of
+     * the String. The buffer needs to have at least {@link #UTF8Length(String)} bytes remaining. Returns length of the
+     * encoded characters in bytes.
+     */
+    public static int UTF16toUTF8( String value, byte[] buffer, int offset )
+    {
+        final int end = value.length();
+
+        int i = 0;
+        int position = offset;
+
+        // ASCII fast path
+        for ( ; i < end; i++ )
         {
-            // intentionally left blank
+            final int code = value.charAt( i );
+            if ( code >= 0x80 )
+            {
+                break;
+            }
+            buffer[position++] = (byte) code;
         }
-        catch ( NoSuchMethodException e )
+
+        while ( i < end )
         {
-            // intentionally left blank
+
+            final int code = value.charAt( i++ );
+
+            if ( code < 0x80 )
+            {
+                buffer[position++] = (byte) code;
+            }
+            else if ( code < 0x800 )
+            {
+                buffer[position++] = (byte) ( 0xC0 | ( code >> 6 ) );
+                buffer[position++] = (byte) ( 0x80 | ( code & 0x3F ) );
+            }
+            else if ( code < 0xD800 || code > 0xDFFF )
+            {
+                buffer[position++] = (byte) ( 0xE0 | ( code >> 12 ) );
+                buffer[position++] = (byte) ( 0x80 | ( ( code >> 6 ) & 0x3F ) );
+                buffer[position++] = (byte) ( 0x80 | ( code & 0x3F ) );
+            }
+            else
+            {
+                // surrogate pair
+                // confirm valid high surrogate
+                if ( code < 0xDC00 && i < end )
+                {
+                    int utf32 = value.charAt( i );
+                    // confirm valid low surrogate and write pair
+                    if ( utf32 >= 0xDC00 && utf32 <= 0xDFFF )
+                    {
+                        utf32 = ( code << 10 ) + utf32 + SURROGATE_OFFSET;
+                        i++;
+                        buffer[position++] = (byte) ( 0xF0 | ( utf32 >> 18 ) );
+                        buffer[position++] = (byte) ( 0x80 | ( ( utf32 >> 12 ) & 0x3F ) );
+                        buffer[position++] = (byte) ( 0x80 | ( ( utf32 >> 6 ) & 0x3F ) );
+                        buffer[position++] = (byte) ( 0x80 | ( utf32 & 0x3F ) );
+                        continue;
+                    }
+                }
+                // replace unpaired surrogate or out-of-order low surrogate
+                // with substitution character
+                buffer[position++] = (byte) 0xEF;
+                buffer[position++] = (byte) 0xBF;
+                buffer[position++] = (byte) 0xBD;
+            }
         }
-        STRING_PP_CONSTRUCTOR = constructor;
+        return position - offset;
     }
 
     /**
-     * Encode characters from the given {@link String}, starting at offset 0 for length chars. Returns length of the
-     * encoded String in bytes.
-     * 
-     * @throws IOException
+     * Decodes length UTF8 encoded bytes from the given buffer starting at offset.
+     * <p>
+     * NOTE: Explicit checks for valid UTF-8 are not performed.
      */
-    public static int UTF16toUTF8( String value, Target target )
-        throws IOException
+    @SuppressWarnings( "deprecation" )
+    public static String UTF8toUTF16( byte[] buffer, int offset, int length )
     {
-        char[] characters = value.toCharArray();
-        int length = characters.length;
+        final int end = offset + length;
 
-        // Write string length to target
-        target.writeInt( length );
+        int position = offset;
+        while ( position < end && buffer[position] >= 0 )
+        {
+            position++;
+        }
+
+        if ( position == end )
+        {
+            // Pure ASCII, the (deprecated) hibyte constructor copies bytes to chars without any charset lookup
+            return new String( buffer, 0, offset, length );
+        }
+
+        // Never more characters than bytes
+        final char[] out = new char[length];
+        int i = 0;
+        for ( ; i < position - offset; i++ )
+        {
+            out[i] = (char) buffer[offset + i];
+        }
+
+        while ( position < end )
+        {
+            int b = buffer[position++] & 0xff;
+            if ( b < 0xc0 )
+            {
+                assert b < 0x80;
+                out[i++] = (char) b;
+            }
+            else if ( b < 0xe0 )
+            {
+                out[i++] = (char) ( ( ( b & 0x1f ) << 6 ) + ( buffer[position++] & 0x3f ) );
+            }
+            else if ( b < 0xf0 )
+            {
+                out[i++] =
+                    (char) ( ( ( b & 0xf ) << 12 ) + ( ( buffer[position++] & 0x3f ) << 6 ) + ( buffer[position++] & 0x3f ) );
+            }
+            else
+            {
+                assert b < 0xf8 : "b = 0x" + Integer.toHexString( b );
+                int ch =
+                    ( ( b & 0x7 ) << 18 ) + ( ( buffer[position++] & 0x3f ) << 12 )
+                        + ( ( buffer[position++] & 0x3f ) << 6 ) + ( buffer[position++] & 0x3f );
+                if ( ch < UNI_MAX_BMP )
+                {
+                    out[i++] = (char) ch;
+                }
+                else
+                {
+                    int chHalf = ch - 0x0010000;
+                    out[i++] = (char) ( ( chHalf >> 10 ) + 0xD800 );
+                    out[i++] = (char) ( ( chHalf & HALF_MASK ) + 0xDC00 );
+                }
+            }
+        }
+        return new String( out, 0, i );
+    }
+
+    /**
+     * Encodes the given {@link String} into the given {@link ByteBuffer} starting at its position and moves the
+     * position behind the encoded bytes. The given length must be the result of {@link #UTF8Length(String)} for the
+     * same value. Heap buffers are encoded into their backing array and direct buffers into their native memory.
+     */
+    public static void UTF16toUTF8( String value, int length, ByteBuffer buffer )
+    {
+        if ( buffer.remaining() < length )
+        {
+            throw new BufferOverflowException();
+        }
+
+        int position = buffer.position();
+        if ( buffer.hasArray() )
+        {
+            UTF16toUTF8( value, buffer.array(), buffer.arrayOffset() + position );
+        }
+        else if ( buffer.isDirect() && UnsafeUtil.isBufferAddressAccessible() )
+        {
+            UTF16toUTF8( value, UnsafeUtil.getAddress( buffer ) + position );
+        }
+        else
+        {
+            byte[] data = new byte[length];
+            UTF16toUTF8( value, data, 0 );
+            buffer.put( data );
+            return;
+        }
+        buffer.position( position + length );
+    }
+
+    /**
+     * Decodes length UTF8 encoded bytes from the given {@link ByteBuffer} starting at its position and moves the
+     * position behind the decoded bytes.
+     */
+    public static String UTF8toUTF16( ByteBuffer buffer, int length )
+    {
+        if ( buffer.remaining() < length )
+        {
+            throw new BufferUnderflowException();
+        }
+
+        int position = buffer.position();
+        String value;
+        if ( buffer.hasArray() )
+        {
+            value = UTF8toUTF16( buffer.array(), buffer.arrayOffset() + position, length );
+        }
+        else if ( buffer.isDirect() && UnsafeUtil.isBufferAddressAccessible() )
+        {
+            value = UTF8toUTF16( UnsafeUtil.getAddress( buffer ) + position, length );
+        }
+        else
+        {
+            byte[] data = new byte[length];
+            buffer.get( data );
+            return UTF8toUTF16( data, 0, length );
+        }
+        buffer.position( position + length );
+        return value;
+    }
+
+    /**
+     * Encode the given {@link String} directly into native memory starting at address without writing the length of
+     * the String. The memory region needs to have at least {@link #UTF8Length(String)} bytes. Returns length of the
+     * encoded characters in bytes.
+     */
+    @SuppressWarnings( "restriction" )
+    public static int UTF16toUTF8( String value, long address )
+    {
+        final int end = value.length();
 
         int i = 0;
-        final int end = length;
+        long position = address;
+
+        // ASCII fast path
+        for ( ; i < end; i++ )
+        {
+            final int code = value.charAt( i );
+            if ( code >= 0x80 )
+            {
+                break;
+            }
+            UNSAFE.putByte( position++, (byte) code );
+        }
 
-        int writtenBytes = 0;
         while ( i < end )
         {
 
-            final int code = characters[i++];
+            final int code = value.charAt( i++ );
 
             if ( code < 0x80 )
             {
-                target.writeByte( (byte) code );
-                writtenBytes++;
+                UNSAFE.putByte( position++, (byte) code );
             }
             else if ( code < 0x800 )
             {
-                target.writeByte( (byte) ( 0xC0 | ( code >> 6 ) ) );
-                target.writeByte( (byte) ( 0x80 | ( code & 0x3F ) ) );
-                writtenBytes += 2;
+                UNSAFE.putByte( position++, (byte) ( 0xC0 | ( code >> 6 ) ) );
+                UNSAFE.putByte( position++, (byte) ( 0x80 | ( code & 0x3F ) ) );
             }
             else if ( code < 0xD800 || code > 0xDFFF )
             {
-                target.writeByte( (byte) ( 0xE0 | ( code >> 12 ) ) );
-                target.writeByte( (byte) ( 0x80 | ( ( code >> 6 ) & 0x3F ) ) );
-                target.writeByte( (byte) ( 0x80 | ( code & 0x3F ) ) );
-                writtenBytes += 3;
+                UNSAFE.putByte( position++, (byte) ( 0xE0 | ( code >> 12 ) ) );
+                UNSAFE.putByte( position++, (byte) ( 0x80 | ( ( code >> 6 ) & 0x3F ) ) );
+                UNSAFE.putByte( position++, (byte) ( 0x80 | ( code & 0x3F ) ) );
             }
             else
             {
@@ -193,29 +484,133 @@ public final class UnicodeUtil
                 // confirm valid high surrogate
                 if ( code < 0xDC00 && i < end )
                 {
-                    int utf32 = characters[i];
+                    int utf32 = value.charAt( i );
                     // confirm valid low surrogate and write pair
                     if ( utf32 >= 0xDC00 && utf32 <= 0xDFFF )
                     {
                         utf32 = ( code << 10 ) + utf32 + SURROGATE_OFFSET;
                         i++;
-                        target.writeByte( (byte) ( 0xF0 | ( utf32 >> 18 ) ) );
-                        target.writeByte( (byte) ( 0x80 | ( ( utf32 >> 12 ) & 0x3F ) ) );
-                        target.writeByte( (byte) ( 0x80 | ( ( utf32 >> 6 ) & 0x3F ) ) );
-                        target.writeByte( (byte) ( 0x80 | ( utf32 & 0x3F ) ) );
-                        writtenBytes += 4;
+                        UNSAFE.putByte( position++, (byte) ( 0xF0 | ( utf32 >> 18 ) ) );
+                        UNSAFE.putByte( position++, (byte) ( 0x80 | ( ( utf32 >> 12 ) & 0x3F ) ) );
+                        UNSAFE.putByte( position++, (byte) ( 0x80 | ( ( utf32 >> 6 ) & 0x3F ) ) );
+                        UNSAFE.putByte( position++, (byte) ( 0x80 | ( utf32 & 0x3F ) ) );
                         continue;
                     }
                 }
                 // replace unpaired surrogate or out-of-order low surrogate
                 // with substitution character
-                target.writeByte( (byte) 0xEF );
-                target.writeByte( (byte) 0xBF );
-                target.writeByte( (byte) 0xBD );
-                writtenBytes += 3;
+                UNSAFE.putByte( position++, (byte) 0xEF );
+                UNSAFE.putByte( position++, (byte) 0xBF );
+                UNSAFE.putByte( position++, (byte) 0xBD );
+            }
+        }
+        return (int) ( position - address );
+    }
+
+    /**
+     * Decodes length UTF8 encoded bytes from native memory starting at address.
+     * <p>
+     * NOTE: Explicit checks for valid UTF-8 are not performed.
+     */
+    @SuppressWarnings( "restriction" )
+    public static String UTF8toUTF16( long address, int length )
+    {
+        final long end = address + length;
+
+        // Never more characters than bytes
+        final char[] out = new char[length];
+        int i = 0;
+
+        long position = address;
+        byte ascii;
+        while ( position < end && ( ascii = UNSAFE.getByte( position ) ) >= 0 )
+        {
+            out[i++] = (char) ascii;
+            position++;
+        }
+
+        while ( position < end )
+        {
+            int b = UNSAFE.getByte( position++ ) & 0xff;
+            if ( b < 0xc0 )
+            {
+                assert b < 0x80;
+                out[i++] = (char) b;
+            }
+            else if ( b < 0xe0 )
+            {
+                out[i++] = (char) ( ( ( b & 0x1f ) << 6 ) + ( UNSAFE.getByte( position++ ) & 0x3f ) );
+            }
+            else if ( b < 0xf0 )
+            {
+                out[i++] =
+                    (char) ( ( ( b & 0xf ) << 12 ) + ( ( UNSAFE.getByte( position++ ) & 0x3f ) << 6 )
+                        + ( UNSAFE.getByte( position++ ) & 0x3f ) );
+            }
+            else
+            {
+                assert b < 0xf8 : "b = 0x" + Integer.toHexString( b );
+                int ch =
+                    ( ( b & 0x7 ) << 18 ) + ( ( UNSAFE.getByte( position++ ) & 0x3f ) << 12 )
+                        + ( ( UNSAFE.getByte( position++ ) & 0x3f ) << 6 ) + ( UNSAFE.getByte( position++ ) & 0x3f );
+                if ( ch < UNI_MAX_BMP )
+                {
+                    out[i++] = (char) ch;
+                }
+                else
+                {
+                    int chHalf = ch - 0x0010000;
+                    out[i++] = (char) ( ( chHalf >> 10 ) + 0xD800 );
+                    out[i++] = (char) ( ( chHalf & HALF_MASK ) + 0xDC00 );
+                }
             }
         }
-        return writtenBytes;
+        return new String( out, 0, i );
+    }
+
+    /**
+     * Returns true if all characters of the given {@link String} are in the ISO-8859-1 (Latin-1) range and can be
+     * written as one byte each.
+     */
+    public static boolean isLatin1( String value )
+    {
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            if ( value.charAt( i ) > 0xFF )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the characters of the given {@link String} as one byte each. All characters must pass
+     * {@link #isLatin1(String)}.
+     * 
+     * @throws IOException
+     */
+    @SuppressWarnings( "deprecation" )
+    public static void writeLatin1( String value, Target target )
+        throws IOException
+    {
+        byte[] data = new byte[value.length()];
+        value.getBytes( 0, data.length, data, 0 );
+        target.writeBytes( data );
+    }
+
+    /**
+     * Reads length characters written by {@link #writeLatin1(String, Target)}.
+     * 
+     * @throws IOException
+     */
+    @SuppressWarnings( "deprecation" )
+    public static String readLatin1( int length, Source source )
+        throws IOException
+    {
+        byte[] data = new byte[length];
+        source.readBytes( data );
+        return new String( data, 0, 0, length );
     }
 
     public static boolean validUTF16String( CharSequence s )
@@ -290,73 +685,4 @@ public final class UnicodeUtil
 
         return true;
     }
-
-    /**
-     * Interprets the bytes from the given {@link Source} as UTF-8 and converts to UTF-16.
-     * <p>
-     * NOTE: Full characters are read, even if this reads past the length passed (and can result in an
-     * ArrayOutOfBoundsException if invalid UTF-8 is passed). Explicit checks for valid UTF-8 are not performed.
-     * 
-     * @throws IOException
-     */
-    public static String UTF8toUTF16( Source source )
-        throws IOException
-    {
-        int charLength = source.readInt();
-
-        int offset = 0;
-        final char[] out = new char[charLength];
-        while ( offset < charLength )
-        {
-            int b = source.readByte() & 0xff;
-            if ( b < 0xc0 )
-            {
-                assert b < 0x80;
-                out[offset++] = (char) b;
-            }
-            else if ( b < 0xe0 )
-            {
-                out[offset++] = (char) ( ( ( b & 0x1f ) << 6 ) + ( source.readByte() & 0x3f ) );
-            }
-            else if ( b < 0xf0 )
-            {
-                out[offset++] =
-                    (char) ( ( ( b & 0xf ) << 12 ) + ( ( source.readByte() & 0x3f ) << 6 ) + ( source.readByte() & 0x3f ) );
-            }
-            else
-            {
-                assert b < 0xf8 : "b = 0x" + Integer.toHexString( b );
-                int ch =
-                    ( ( b & 0x7 ) << 18 ) + ( ( source.readByte() & 0x3f ) << 12 )
-                        + ( ( source.readByte() & 0x3f ) << 6 ) + ( source.readByte() & 0x3f );
-                if ( ch < UNI_MAX_BMP )
-                {
-                    out[offset++] = (char) ch;
-                }
-                else
-                {
-                    int chHalf = ch - 0x0010000;
-                    out[offset++] = (char) ( ( chHalf >> 10 ) + 0xD800 );
-                    out[offset++] = (char) ( ( chHalf & HALF_MASK ) + 0xDC00 );
-                }
-            }
-        }
-
-        if ( STRING_PP_CONSTRUCTOR != null )
-        {
-            return new String( out );
-        }
-        else
-        {
-            try
-            {
-                return STRING_PP_CONSTRUCTOR.newInstance( 0, out.length, out );
-            }
-            catch ( Exception e )
-            {
-                return new String( out );
-            }
-        }
-    }
-
 }
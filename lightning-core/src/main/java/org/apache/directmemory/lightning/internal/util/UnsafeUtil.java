@@ -19,6 +19,8 @@
 package org.apache.directmemory.lightning.internal.util;
 
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
 @SuppressWarnings( "restriction" )
 public final class UnsafeUtil
@@ -26,6 +28,8 @@ public final class UnsafeUtil
 
     private static final sun.misc.Unsafe UNSAFE;
 
+    private static final long BUFFER_ADDRESS_OFFSET;
+
     static
     {
         sun.misc.Unsafe unsafe;
@@ -41,6 +45,20 @@ public final class UnsafeUtil
         }
 
         UNSAFE = unsafe;
+
+        long bufferAddressOffset = -1;
+        if ( unsafe != null )
+        {
+            try
+            {
+                bufferAddressOffset = unsafe.objectFieldOffset( Buffer.class.getDeclaredField( "address" ) );
+            }
+            catch ( Exception e )
+            {
+                // intentionally left blank
+            }
+        }
+        BUFFER_ADDRESS_OFFSET = bufferAddressOffset;
     }
 
     private UnsafeUtil()
@@ -51,4 +69,28 @@ public final class UnsafeUtil
     {
         return UNSAFE;
     }
+
+    /**
+     * Returns true if the native memory address of direct {@link ByteBuffer}s can be read on this JVM.
+     */
+    public static boolean isBufferAddressAccessible()
+    {
+        return BUFFER_ADDRESS_OFFSET != -1;
+    }
+
+    /**
+     * Returns the native memory address of the given direct {@link ByteBuffer}.
+     */
+    public static long getAddress( ByteBuffer byteBuffer )
+    {
+        if ( !byteBuffer.isDirect() )
+        {
+            throw new IllegalArgumentException( "ByteBuffer is not a direct buffer" );
+        }
+        if ( BUFFER_ADDRESS_OFFSET == -1 )
+        {
+            throw new UnsupportedOperationException( "Address of direct buffers not accessible on this JVM" );
+        }
+        return UNSAFE.getLong( byteBuffer, BUFFER_ADDRESS_OFFSET );
+    }
 }
@@ -0,0 +1,361 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+
+/**
+ * {@link Source} implementation reading the underlying {@link InputStream} in large chunks into an internal byte array
+ * and decoding primitives directly from it. Byte ranges are always read fully, if the stream ends before all requested
+ * bytes are available an {@link EOFException} is thrown.<br>
+ * Since data is read ahead the underlying stream should not be used by others while this source is in use.
+ */
+public class BufferedInputStreamSource
+    implements Source
+{
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final InputStream stream;
+
+    private final ByteOrder byteOrder;
+
+    private final boolean bigEndian;
+
+    private final byte[] buffer;
+
+    private int position = 0;
+
+    private int limit = 0;
+
+    public BufferedInputStreamSource( InputStream stream )
+    {
+        this( stream, ByteOrder.BIG_ENDIAN );
+    }
+
+    public BufferedInputStreamSource( InputStream stream, ByteOrder byteOrder )
+    {
+        this( stream, byteOrder, DEFAULT_BUFFER_SIZE );
+    }
+
+    public BufferedInputStreamSource( InputStream stream, ByteOrder byteOrder, int bufferSize )
+    {
+        if ( bufferSize < 8 )
+        {
+            throw new IllegalArgumentException( "bufferSize must be at least 8 bytes" );
+        }
+
+        this.stream = stream;
+        this.byteOrder = byteOrder;
+        this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public ByteOrder byteOrder()
+    {
+        return byteOrder;
+    }
+
+    @Override
+    public long readableBytes()
+    {
+        try
+        {
+            return ( limit - position ) + stream.available();
+        }
+        catch ( IOException e )
+        {
+            return -1;
+        }
+    }
+
+    @Override
+    public boolean hasRemaining()
+        throws IOException
+    {
+        if ( position == limit )
+        {
+            fill( 1 );
+        }
+        return position < limit;
+    }
+
+    @Override
+    public int readBytes( byte[] bytes )
+        throws IOException
+    {
+        return readBytes( bytes, 0, bytes.length );
+    }
+
+    @Override
+    public int readBytes( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        int buffered = Math.min( limit - position, length );
+        System.arraycopy( buffer, position, bytes, offset, buffered );
+        position += buffered;
+
+        int read = buffered;
+        if ( length - read >= buffer.length )
+        {
+            // Remaining bytes do not fit into our buffer so read them directly
+            while ( read < length )
+            {
+                int count = stream.read( bytes, offset + read, length - read );
+                if ( count < 0 )
+                {
+                    throw new EOFException( "Stream ended after " + read + " of " + length + " bytes" );
+                }
+                read += count;
+            }
+        }
+        else if ( read < length )
+        {
+            int remaining = length - read;
+            ensureAvailable( remaining );
+            System.arraycopy( buffer, position, bytes, offset + read, remaining );
+            position += remaining;
+            read += remaining;
+        }
+        return read;
+    }
+
+    @Override
+    public boolean readBoolean()
+        throws IOException
+    {
+        return readByte() == 1 ? true : false;
+    }
+
+    @Override
+    public String readString()
+        throws IOException
+    {
+        return UnicodeUtil.readString( this );
+    }
+
+    @Override
+    public String readUTF8( int length )
+        throws IOException
+    {
+        if ( length > buffer.length )
+        {
+            return UnicodeUtil.readUTF8( length, this );
+        }
+
+        ensureAvailable( length );
+        String value = UnicodeUtil.UTF8toUTF16( buffer, position, length );
+        position += length;
+        return value;
+    }
+
+    @Override
+    public byte readByte()
+        throws IOException
+    {
+        if ( position == limit )
+        {
+            ensureAvailable( 1 );
+        }
+        return buffer[position++];
+    }
+
+    @Override
+    public short readUnsignedByte()
+        throws IOException
+    {
+        return (short) ( readByte() & 0xFF );
+    }
+
+    @Override
+    public short readShort()
+        throws IOException
+    {
+        ensureAvailable( 2 );
+        short value = ByteOrderUtils.getShort( buffer, position, bigEndian );
+        position += 2;
+        return value;
+    }
+
+    @Override
+    public char readChar()
+        throws IOException
+    {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt()
+        throws IOException
+    {
+        ensureAvailable( 4 );
+        int value = ByteOrderUtils.getInt( buffer, position, bigEndian );
+        position += 4;
+        return value;
+    }
+
+    @Override
+    public long readLong()
+        throws IOException
+    {
+        ensureAvailable( 8 );
+        long value = ByteOrderUtils.getLong( buffer, position, bigEndian );
+        position += 8;
+        return value;
+    }
+
+    @Override
+    public float readFloat()
+        throws IOException
+    {
+        return Float.intBitsToFloat( readInt() );
+    }
+
+    @Override
+    public double readDouble()
+        throws IOException
+    {
+        return Double.longBitsToDouble( readLong() );
+    }
+
+    @Override
+    public void readShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void clear()
+        throws IOException
+    {
+        throw new UnsupportedOperationException( "BufferedInputStreamSource cannot be reused" );
+    }
+
+    @Override
+    public void free()
+        throws IOException
+    {
+    }
+
+    private void ensureAvailable( int length )
+        throws IOException
+    {
+        if ( limit - position < length )
+        {
+            fill( length );
+            if ( limit - position < length )
+            {
+                throw new EOFException( "Stream ended while " + length + " more bytes were expected" );
+            }
+        }
+    }
+
+    /**
+     * Tries to make at least length bytes available in the buffer by reading from the stream. Might leave less bytes
+     * available if the stream ends before.
+     */
+    private void fill( int length )
+        throws IOException
+    {
+        int available = limit - position;
+        if ( available >= length )
+        {
+            return;
+        }
+
+        // Move unread bytes to the start of the buffer
+        if ( position > 0 )
+        {
+            System.arraycopy( buffer, position, buffer, 0, available );
+            position = 0;
+            limit = available;
+        }
+
+        while ( limit < length )
+        {
+            int count = stream.read( buffer, limit, buffer.length - limit );
+            if ( count < 0 )
+            {
+                return;
+            }
+            limit += count;
+        }
+    }
+
+    private void readArray( Object values, int offset, int length )
+        throws IOException
+    {
+        int elementSize = ByteOrderUtils.elementSize( values );
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            ensureAvailable( elementSize );
+            int count = Math.min( end - index, ( limit - position ) / elementSize );
+            ByteOrderUtils.getArray( buffer, position, values, index, count, bigEndian );
+            position += count * elementSize;
+            index += count;
+        }
+    }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+
+/**
+ * {@link Target} implementation staging all writes in an internal byte array and writing it to the underlying
+ * {@link OutputStream} in large chunks. Primitives are encoded directly into the buffer.<br>
+ * Data is only guaranteed to be written to the stream after {@link #flush()} or {@link #free()} was called.
+ */
+public class BufferedOutputStreamTarget
+    implements Target, Flushable
+{
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final OutputStream stream;
+
+    private final ByteOrder byteOrder;
+
+    private final boolean bigEndian;
+
+    private final byte[] buffer;
+
+    private int position = 0;
+
+    private long writtenBytes = 0;
+
+    public BufferedOutputStreamTarget( OutputStream stream )
+    {
+        this( stream, ByteOrder.BIG_ENDIAN );
+    }
+
+    public BufferedOutputStreamTarget( OutputStream stream, ByteOrder byteOrder )
+    {
+        this( stream, byteOrder, DEFAULT_BUFFER_SIZE );
+    }
+
+    public BufferedOutputStreamTarget( OutputStream stream, ByteOrder byteOrder, int bufferSize )
+    {
+        if ( bufferSize < 8 )
+        {
+            throw new IllegalArgumentException( "bufferSize must be at least 8 bytes" );
+        }
+
+        this.stream = stream;
+        this.byteOrder = byteOrder;
+        this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public ByteOrder byteOrder()
+    {
+        return byteOrder;
+    }
+
+    @Override
+    public long writtenBytes()
+    {
+        return writtenBytes;
+    }
+
+    @Override
+    public void writeBytes( byte[] bytes )
+        throws IOException
+    {
+        writeBytes( bytes, 0, bytes.length );
+    }
+
+    @Override
+    public void writeBytes( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        if ( length >= buffer.length )
+        {
+            // Bigger than our buffer so write it directly
+            flushBuffer();
+            stream.write( bytes, offset, length );
+        }
+        else
+        {
+            ensureCapacity( length );
+            System.arraycopy( bytes, offset, buffer, position, length );
+            position += length;
+        }
+        writtenBytes += length;
+    }
+
+    @Override
+    public void writeBoolean( boolean value )
+        throws IOException
+    {
+        writeByte( (byte) ( value ? 1 : 0 ) );
+    }
+
+    @Override
+    public void writeString( String value )
+        throws IOException
+    {
+        UnicodeUtil.writeString( value, this );
+    }
+
+    @Override
+    public void writeUTF8( String value, int length )
+        throws IOException
+    {
+        if ( length > buffer.length )
+        {
+            // Does not fit into the buffer, let the encoded bytes be written directly
+            UnicodeUtil.writeUTF8( value, length, this );
+            return;
+        }
+
+        ensureCapacity( length );
+        position += UnicodeUtil.UTF16toUTF8( value, buffer, position );
+        writtenBytes += length;
+    }
+
+    @Override
+    public void writeByte( byte value )
+        throws IOException
+    {
+        ensureCapacity( 1 );
+        buffer[position++] = value;
+        writtenBytes++;
+    }
+
+    @Override
+    public void writeUnsignedByte( short value )
+        throws IOException
+    {
+        writeByte( (byte) value );
+    }
+
+    @Override
+    public void writeShort( short value )
+        throws IOException
+    {
+        ensureCapacity( 2 );
+        ByteOrderUtils.putShort( value, buffer, position, bigEndian );
+        position += 2;
+        writtenBytes += 2;
+    }
+
+    @Override
+    public void writeChar( char value )
+        throws IOException
+    {
+        writeShort( (short) value );
+    }
+
+    @Override
+    public void writeInt( int value )
+        throws IOException
+    {
+        ensureCapacity( 4 );
+        ByteOrderUtils.putInt( value, buffer, position, bigEndian );
+        position += 4;
+        writtenBytes += 4;
+    }
+
+    @Override
+    public void writeLong( long value )
+        throws IOException
+    {
+        ensureCapacity( 8 );
+        ByteOrderUtils.putLong( value, buffer, position, bigEndian );
+        position += 8;
+        writtenBytes += 8;
+    }
+
+    @Override
+    public void writeFloat( float value )
+        throws IOException
+    {
+        writeInt( Float.floatToIntBits( value ) );
+    }
+
+    @Override
+    public void writeDouble( double value )
+        throws IOException
+    {
+        writeLong( Double.doubleToLongBits( value ) );
+    }
+
+    /**
+     * Writes all buffered bytes to the underlying stream and flushes it.
+     */
+    @Override
+    public void flush()
+        throws IOException
+    {
+        flushBuffer();
+        stream.flush();
+    }
+
+    @Override
+    public void writeShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void clear()
+        throws IOException
+    {
+        throw new UnsupportedOperationException( "BufferedOutputStreamTarget cannot be reused" );
+    }
+
+    @Override
+    public void free()
+        throws IOException
+    {
+        flush();
+    }
+
+    private void ensureCapacity( int length )
+        throws IOException
+    {
+        if ( buffer.length - position < length )
+        {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer()
+        throws IOException
+    {
+        if ( position > 0 )
+        {
+            stream.write( buffer, 0, position );
+            position = 0;
+        }
+    }
+
+    private void writeArray( Object values, int offset, int length )
+        throws IOException
+    {
+        int elementSize = ByteOrderUtils.elementSize( values );
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            ensureCapacity( elementSize );
+            int count = Math.min( end - index, ( buffer.length - position ) / elementSize );
+            ByteOrderUtils.putArray( values, index, count, buffer, position, bigEndian );
+            position += count * elementSize;
+            index += count;
+        }
+        writtenBytes += (long) length * elementSize;
+    }
+
+}
@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
 import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
 
 public class ByteBufferSource
@@ -48,6 +49,13 @@ public class ByteBufferSource
         return byteBuffer.limit();
     }
 
+    @Override
+    public boolean hasRemaining()
+        throws IOException
+    {
+        return byteBuffer.hasRemaining();
+    }
+
     @Override
     public int readBytes( byte[] bytes )
         throws IOException
@@ -74,7 +82,14 @@ public class ByteBufferSource
     public String readString()
         throws IOException
     {
-        return UnicodeUtil.UTF8toUTF16( this );
+        return UnicodeUtil.readString( this );
+    }
+
+    @Override
+    public String readUTF8( int length )
+        throws IOException
+    {
+        return UnicodeUtil.UTF8toUTF16( byteBuffer, length );
     }
 
     @Override
@@ -133,6 +148,48 @@ public class ByteBufferSource
         return byteBuffer.getDouble();
     }
 
+    @Override
+    public void readShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.getArray( byteBuffer, values, offset, length );
+    }
+
+    @Override
+    public void readChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.getArray( byteBuffer, values, offset, length );
+    }
+
+    @Override
+    public void readInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.getArray( byteBuffer, values, offset, length );
+    }
+
+    @Override
+    public void readLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.getArray( byteBuffer, values, offset, length );
+    }
+
+    @Override
+    public void readFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.getArray( byteBuffer, values, offset, length );
+    }
+
+    @Override
+    public void readDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.getArray( byteBuffer, values, offset, length );
+    }
+
     @Override
     public void clear()
         throws IOException
@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
 import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
 
 public class ByteBufferTarget
@@ -73,7 +74,14 @@ public class ByteBufferTarget
     public void writeString( String value )
         throws IOException
     {
-        UnicodeUtil.UTF16toUTF8( value, this );
+        UnicodeUtil.writeString( value, this );
+    }
+
+    @Override
+    public void writeUTF8( String value, int length )
+        throws IOException
+    {
+        UnicodeUtil.UTF16toUTF8( value, length, byteBuffer );
     }
 
     @Override
@@ -132,6 +140,48 @@ public class ByteBufferTarget
         byteBuffer.putDouble( value );
     }
 
+    @Override
+    public void writeShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.putArray( values, offset, length, byteBuffer );
+    }
+
+    @Override
+    public void writeChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.putArray( values, offset, length, byteBuffer );
+    }
+
+    @Override
+    public void writeInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.putArray( values, offset, length, byteBuffer );
+    }
+
+    @Override
+    public void writeLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.putArray( values, offset, length, byteBuffer );
+    }
+
+    @Override
+    public void writeFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.putArray( values, offset, length, byteBuffer );
+    }
+
+    @Override
+    public void writeDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        ByteOrderUtils.putArray( values, offset, length, byteBuffer );
+    }
+
     @Override
     public void clear()
         throws IOException
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threadsafe pool of equally sized direct {@link ByteBuffer} segments used by {@link SegmentedByteBufferTarget}.
+ * Released segments are kept up to maxPooledSegments and handed out again instead of allocating new direct memory.
+ */
+public class DirectByteBufferPool
+{
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+
+    public static final int DEFAULT_MAX_POOLED_SEGMENTS = 256;
+
+    private final Queue<ByteBuffer> segments = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    private final AtomicInteger pooledSegments = new AtomicInteger( 0 );
+
+    private final int segmentSize;
+
+    private final int maxPooledSegments;
+
+    public DirectByteBufferPool()
+    {
+        this( DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_POOLED_SEGMENTS );
+    }
+
+    public DirectByteBufferPool( int segmentSize, int maxPooledSegments )
+    {
+        if ( segmentSize < 8 )
+        {
+            throw new IllegalArgumentException( "segmentSize must be at least 8 bytes" );
+        }
+
+        this.segmentSize = segmentSize;
+        this.maxPooledSegments = maxPooledSegments;
+    }
+
+    public int getSegmentSize()
+    {
+        return segmentSize;
+    }
+
+    public int getPooledSegments()
+    {
+        return pooledSegments.get();
+    }
+
+    /**
+     * Returns a cleared segment, either a pooled or a newly allocated one.
+     */
+    public ByteBuffer acquire()
+    {
+        ByteBuffer segment = segments.poll();
+        if ( segment == null )
+        {
+            return ByteBuffer.allocateDirect( segmentSize );
+        }
+
+        pooledSegments.decrementAndGet();
+        segment.clear();
+        return segment;
+    }
+
+    /**
+     * Gives a segment back to the pool. The segment must not be used by the caller afterwards.
+     */
+    public void release( ByteBuffer segment )
+    {
+        if ( !segment.isDirect() || segment.capacity() != segmentSize )
+        {
+            throw new IllegalArgumentException( "Segment was not acquired from this pool" );
+        }
+
+        if ( pooledSegments.incrementAndGet() > maxPooledSegments )
+        {
+            // Pool is full, leave it to the GC
+            pooledSegments.decrementAndGet();
+            return;
+        }
+
+        segment.clear();
+        segments.offer( segment );
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
+import org.apache.directmemory.lightning.internal.util.Crc32CUtil;
+
+/**
+ * Reads framed records written by {@link FramedRecordWriter}. Records can be deserialized, skipped, counted or indexed
+ * without deserializing them. Since every record is read completely before it is deserialized, the reader stays at the
+ * next record boundary even if a record could not be deserialized (e.g. because of an unknown class id).
+ */
+public class FramedRecordReader
+{
+
+    private final Serializer serializer;
+
+    private final Source source;
+
+    private byte[] frame = new byte[256];
+
+    private long position = 0;
+
+    public FramedRecordReader( Serializer serializer, Source source )
+    {
+        this.serializer = serializer;
+        this.source = source;
+    }
+
+    /**
+     * Returns true if another record is available.
+     */
+    public boolean hasNext()
+        throws IOException
+    {
+        return source.hasRemaining();
+    }
+
+    /**
+     * Reads and deserializes the next record. If a checksum is available it is verified before deserialization.
+     */
+    public <V> V read()
+        throws IOException
+    {
+        int length = readFrame( true );
+        ByteBuffer buffer = ByteBuffer.wrap( frame, 0, length );
+        buffer.order( source.byteOrder() );
+        return serializer.deserialize( new ByteBufferSource( buffer ) );
+    }
+
+    /**
+     * Skips the next record without deserializing it or verifying its checksum.
+     */
+    public void skip()
+        throws IOException
+    {
+        readFrame( false );
+    }
+
+    /**
+     * Skips all remaining records and returns their count.
+     */
+    public long count()
+        throws IOException
+    {
+        long count = 0;
+        while ( hasNext() )
+        {
+            skip();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Skips all remaining records and returns their start offsets relative to the first byte read by this reader. The
+     * offsets can be used to seek directly to a record in seekable storage.
+     */
+    public long[] index()
+        throws IOException
+    {
+        long[] offsets = new long[16];
+        int count = 0;
+        while ( hasNext() )
+        {
+            if ( count == offsets.length )
+            {
+                offsets = Arrays.copyOf( offsets, count << 1 );
+            }
+            offsets[count++] = position;
+            skip();
+        }
+        return Arrays.copyOf( offsets, count );
+    }
+
+    /**
+     * Returns the number of bytes consumed by this reader which is always a record boundary.
+     */
+    public long position()
+    {
+        return position;
+    }
+
+    private int readFrame( boolean verify )
+        throws IOException
+    {
+        int header = VarIntUtils.getVarInt( source );
+        int length = header >>> 1;
+        boolean checksum = ( header & 1 ) == 1;
+        int expectedChecksum = checksum ? source.readInt() : 0;
+        position += varIntSize( header ) + ( checksum ? 4 : 0 ) + length;
+
+        if ( !verify )
+        {
+            // Read past the payload in chunks, the frame only grows for records that are deserialized
+            int remaining = length;
+            while ( remaining > 0 )
+            {
+                int count = Math.min( remaining, frame.length );
+                source.readBytes( frame, 0, count );
+                remaining -= count;
+            }
+            return length;
+        }
+
+        if ( frame.length < length )
+        {
+            frame = new byte[Math.max( length, frame.length << 1 )];
+        }
+        source.readBytes( frame, 0, length );
+
+        if ( checksum && Crc32CUtil.checksum( frame, 0, length ) != expectedChecksum )
+        {
+            throw new SerializerExecutionException( "Checksum mismatch in record ending at position " + position );
+        }
+        return length;
+    }
+
+    private static int varIntSize( int value )
+    {
+        int size = 1;
+        while ( ( value & ~0x7F ) != 0 )
+        {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
+import org.apache.directmemory.lightning.internal.io.VarIntUtils;
+import org.apache.directmemory.lightning.internal.util.Crc32CUtil;
+
+/**
+ * Writes serialized values as framed records. Every record is prefixed by a varint header holding the record length
+ * and a flag telling if a 4 byte CRC32C checksum of the record follows. Framed records can be skipped, counted and
+ * indexed without deserializing them using {@link FramedRecordReader}.
+ */
+public class FramedRecordWriter
+{
+
+    static final int MAX_RECORD_LENGTH = Integer.MAX_VALUE >> 1;
+
+    private final FrameBuffer frameBuffer = new FrameBuffer();
+
+    private final Target frameTarget;
+
+    private final Serializer serializer;
+
+    private final Target target;
+
+    private final boolean checksum;
+
+    public FramedRecordWriter( Serializer serializer, Target target )
+    {
+        this( serializer, target, false );
+    }
+
+    public FramedRecordWriter( Serializer serializer, Target target, boolean checksum )
+    {
+        this.serializer = serializer;
+        this.target = target;
+        this.checksum = checksum;
+        this.frameTarget = new OutputStreamTarget( frameBuffer, target.byteOrder() );
+    }
+
+    public <V> void write( V value )
+        throws IOException
+    {
+        // Records are serialized into a reused buffer first since the length must be known upfront
+        frameBuffer.reset();
+        serializer.serialize( value, frameTarget );
+
+        byte[] data = frameBuffer.getBuffer();
+        int length = frameBuffer.size();
+        if ( length > MAX_RECORD_LENGTH )
+        {
+            throw new SerializerExecutionException( "Record of " + length + " bytes is too large to be framed" );
+        }
+
+        VarIntUtils.putVarInt( length << 1 | ( checksum ? 1 : 0 ), target );
+        if ( checksum )
+        {
+            target.writeInt( Crc32CUtil.checksum( data, 0, length ) );
+        }
+        target.writeBytes( data, 0, length );
+    }
+
+    private static class FrameBuffer
+        extends ByteArrayOutputStream
+    {
+
+        private FrameBuffer()
+        {
+            super( 256 );
+        }
+
+        private byte[] getBuffer()
+        {
+            return buf;
+        }
+    }
+}
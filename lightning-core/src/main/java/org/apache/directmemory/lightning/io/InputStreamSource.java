@@ -18,8 +18,10 @@
  */
 package org.apache.directmemory.lightning.io;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.nio.ByteOrder;
 
 import org.apache.directmemory.lightning.Source;
@@ -30,10 +32,12 @@ public class InputStreamSource
     implements Source
 {
 
-    private final InputStream stream;
+    private InputStream stream;
 
     private final ByteOrder byteOrder;
 
+    private static final int BULK_BUFFER_SIZE = 8192;
+
     public InputStreamSource( InputStream stream )
     {
         this( stream, ByteOrder.BIG_ENDIAN );
@@ -64,6 +68,26 @@ public class InputStreamSource
         }
     }
 
+    @Override
+    public boolean hasRemaining()
+        throws IOException
+    {
+        // Only wrap the stream when end of stream detection is really used
+        if ( !( stream instanceof PushbackInputStream ) )
+        {
+            stream = new PushbackInputStream( stream );
+        }
+
+        int value = stream.read();
+        if ( value < 0 )
+        {
+            return false;
+        }
+
+        ( (PushbackInputStream) stream ).unread( value );
+        return true;
+    }
+
     @Override
     public int readBytes( byte[] bytes )
         throws IOException
@@ -75,7 +99,17 @@ public class InputStreamSource
     public int readBytes( byte[] bytes, int offset, int length )
         throws IOException
     {
-        return stream.read( bytes, offset, length );
+        int read = 0;
+        while ( read < length )
+        {
+            int count = stream.read( bytes, offset + read, length - read );
+            if ( count < 0 )
+            {
+                throw new EOFException( "Stream ended after " + read + " of " + length + " bytes" );
+            }
+            read += count;
+        }
+        return read;
     }
 
     @Override
@@ -89,14 +123,26 @@ public class InputStreamSource
     public String readString()
         throws IOException
     {
-        return UnicodeUtil.UTF8toUTF16( this );
+        return UnicodeUtil.readString( this );
+    }
+
+    @Override
+    public String readUTF8( int length )
+        throws IOException
+    {
+        return UnicodeUtil.readUTF8( length, this );
     }
 
     @Override
     public byte readByte()
         throws IOException
     {
-        return (byte) stream.read();
+        int value = stream.read();
+        if ( value < 0 )
+        {
+            throw new EOFException();
+        }
+        return (byte) value;
     }
 
     @Override
@@ -148,6 +194,48 @@ public class InputStreamSource
         return Double.longBitsToDouble( readLong() );
     }
 
+    @Override
+    public void readShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
     @Override
     public void clear()
         throws IOException
@@ -161,4 +249,22 @@ public class InputStreamSource
     {
     }
 
+    private void readArray( Object values, int offset, int length )
+        throws IOException
+    {
+        boolean bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        int elementSize = ByteOrderUtils.elementSize( values );
+        int chunkLength = Math.min( length, BULK_BUFFER_SIZE / elementSize );
+        byte[] buffer = new byte[chunkLength * elementSize];
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            int count = Math.min( end - index, chunkLength );
+            readBytes( buffer, 0, count * elementSize );
+            ByteOrderUtils.getArray( buffer, 0, values, index, count, bigEndian );
+            index += count;
+        }
+    }
+
 }
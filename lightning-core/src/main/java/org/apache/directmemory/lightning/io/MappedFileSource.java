@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+
+/**
+ * {@link Source} implementation reading a file through a moving read-only memory mapped window, the counterpart of
+ * {@link MappedFileTarget}. Whenever a read does not fit into the current window, a new window is mapped starting at
+ * the actual file position so files bigger than 2GB can be read without copying them into heap buffers.<br>
+ * Reading behind the end of the file throws a {@link BufferUnderflowException}. The channel is not closed by this
+ * source.
+ */
+public class MappedFileSource
+    implements Source
+{
+
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final ByteOrder byteOrder;
+
+    private final int windowSize;
+
+    private final long startPosition;
+
+    private final long size;
+
+    private MappedByteBuffer window;
+
+    private long windowPosition;
+
+    public MappedFileSource( FileChannel channel )
+        throws IOException
+    {
+        this( channel, 0, ByteOrder.BIG_ENDIAN, DEFAULT_WINDOW_SIZE );
+    }
+
+    public MappedFileSource( FileChannel channel, long position, ByteOrder byteOrder, int windowSize )
+        throws IOException
+    {
+        if ( windowSize < 8 )
+        {
+            throw new IllegalArgumentException( "windowSize must be at least 8 bytes" );
+        }
+
+        this.channel = channel;
+        this.byteOrder = byteOrder;
+        this.windowSize = windowSize;
+        this.startPosition = position;
+        this.size = channel.size();
+        map( position );
+    }
+
+    @Override
+    public ByteOrder byteOrder()
+    {
+        return byteOrder;
+    }
+
+    @Override
+    public long readableBytes()
+    {
+        return size - position();
+    }
+
+    @Override
+    public boolean hasRemaining()
+        throws IOException
+    {
+        return position() < size;
+    }
+
+    @Override
+    public int readBytes( byte[] bytes )
+        throws IOException
+    {
+        return readBytes( bytes, 0, bytes.length );
+    }
+
+    @Override
+    public int readBytes( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        int position = offset;
+        int remaining = length;
+        while ( remaining > 0 )
+        {
+            ensureRemaining( 1 );
+
+            int count = Math.min( remaining, window.remaining() );
+            window.get( bytes, position, count );
+            position += count;
+            remaining -= count;
+        }
+        return length;
+    }
+
+    @Override
+    public boolean readBoolean()
+        throws IOException
+    {
+        return readByte() == 1 ? true : false;
+    }
+
+    @Override
+    public String readString()
+        throws IOException
+    {
+        return UnicodeUtil.readString( this );
+    }
+
+    @Override
+    public String readUTF8( int length )
+        throws IOException
+    {
+        if ( length > windowSize )
+        {
+            // Spans more than one window, decode from a copy
+            return UnicodeUtil.readUTF8( length, this );
+        }
+        return UnicodeUtil.UTF8toUTF16( ensureRemaining( length ), length );
+    }
+
+    @Override
+    public byte readByte()
+        throws IOException
+    {
+        return ensureRemaining( 1 ).get();
+    }
+
+    @Override
+    public short readUnsignedByte()
+        throws IOException
+    {
+        return (short) ( readByte() & 0xFF );
+    }
+
+    @Override
+    public short readShort()
+        throws IOException
+    {
+        return ensureRemaining( 2 ).getShort();
+    }
+
+    @Override
+    public char readChar()
+        throws IOException
+    {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt()
+        throws IOException
+    {
+        return ensureRemaining( 4 ).getInt();
+    }
+
+    @Override
+    public long readLong()
+        throws IOException
+    {
+        return ensureRemaining( 8 ).getLong();
+    }
+
+    @Override
+    public float readFloat()
+        throws IOException
+    {
+        return Float.intBitsToFloat( readInt() );
+    }
+
+    @Override
+    public double readDouble()
+        throws IOException
+    {
+        return Double.longBitsToDouble( readLong() );
+    }
+
+    @Override
+    public void readShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    /**
+     * Starts reading again at the initial position.
+     */
+    @Override
+    public void clear()
+        throws IOException
+    {
+        map( startPosition );
+    }
+
+    @Override
+    public void free()
+        throws IOException
+    {
+    }
+
+    private long position()
+    {
+        return windowPosition + window.position();
+    }
+
+    private MappedByteBuffer ensureRemaining( int length )
+        throws IOException
+    {
+        if ( window.remaining() < length )
+        {
+            long position = position();
+            if ( size - position < length )
+            {
+                throw new BufferUnderflowException();
+            }
+            map( position );
+        }
+        return window;
+    }
+
+    private void map( long position )
+        throws IOException
+    {
+        long length = Math.min( windowSize, Math.max( 0, size - position ) );
+        window = channel.map( MapMode.READ_ONLY, position, length );
+        window.order( byteOrder );
+        windowPosition = position;
+    }
+
+    private void readArray( Object values, int offset, int length )
+        throws IOException
+    {
+        int elementSize = ByteOrderUtils.elementSize( values );
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            ensureRemaining( elementSize );
+            int count = Math.min( end - index, window.remaining() / elementSize );
+            ByteOrderUtils.getArray( window, values, index, count );
+            index += count;
+        }
+    }
+
+}
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+
+/**
+ * {@link Target} implementation writing into a file through a moving memory mapped window. Whenever a write does not
+ * fit into the current window, a new window is mapped starting at the actual file position so files bigger than 2GB
+ * can be written and primitives are never split between windows.<br>
+ * {@link #free()} forces the written data to the storage device and truncates the padding a mapped window added beyond
+ * the initial file size and the written data. The channel itself is not closed.
+ */
+public class MappedFileTarget
+    implements Target
+{
+
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final ByteOrder byteOrder;
+
+    private final int windowSize;
+
+    private final long startPosition;
+
+    private final long initialSize;
+
+    private MappedByteBuffer window;
+
+    private long windowPosition;
+
+    private long highestPosition;
+
+    public MappedFileTarget( FileChannel channel )
+        throws IOException
+    {
+        this( channel, 0, ByteOrder.BIG_ENDIAN, DEFAULT_WINDOW_SIZE );
+    }
+
+    public MappedFileTarget( FileChannel channel, long position, ByteOrder byteOrder, int windowSize )
+        throws IOException
+    {
+        if ( windowSize < 8 )
+        {
+            throw new IllegalArgumentException( "windowSize must be at least 8 bytes" );
+        }
+
+        this.channel = channel;
+        this.byteOrder = byteOrder;
+        this.windowSize = windowSize;
+        this.startPosition = position;
+        this.initialSize = channel.size();
+        this.highestPosition = position;
+        map( position, 0 );
+    }
+
+    @Override
+    public ByteOrder byteOrder()
+    {
+        return byteOrder;
+    }
+
+    @Override
+    public long writtenBytes()
+    {
+        return position() - startPosition;
+    }
+
+    @Override
+    public void writeBytes( byte[] bytes )
+        throws IOException
+    {
+        writeBytes( bytes, 0, bytes.length );
+    }
+
+    @Override
+    public void writeBytes( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        int position = offset;
+        int remaining = length;
+        while ( remaining > 0 )
+        {
+            if ( !window.hasRemaining() )
+            {
+                remap( 1 );
+            }
+
+            int count = Math.min( remaining, window.remaining() );
+            window.put( bytes, position, count );
+            position += count;
+            remaining -= count;
+        }
+    }
+
+    @Override
+    public void writeBoolean( boolean value )
+        throws IOException
+    {
+        writeByte( (byte) ( value ? 1 : 0 ) );
+    }
+
+    @Override
+    public void writeString( String value )
+        throws IOException
+    {
+        UnicodeUtil.writeString( value, this );
+    }
+
+    @Override
+    public void writeUTF8( String value, int length )
+        throws IOException
+    {
+        // Windows are mapped big enough for the requested length, so the string is always encoded in place
+        UnicodeUtil.UTF16toUTF8( value, length, ensureRemaining( length ) );
+    }
+
+    @Override
+    public void writeByte( byte value )
+        throws IOException
+    {
+        ensureRemaining( 1 ).put( value );
+    }
+
+    @Override
+    public void writeUnsignedByte( short value )
+        throws IOException
+    {
+        writeByte( (byte) value );
+    }
+
+    @Override
+    public void writeShort( short value )
+        throws IOException
+    {
+        ensureRemaining( 2 ).putShort( value );
+    }
+
+    @Override
+    public void writeChar( char value )
+        throws IOException
+    {
+        writeShort( (short) value );
+    }
+
+    @Override
+    public void writeInt( int value )
+        throws IOException
+    {
+        ensureRemaining( 4 ).putInt( value );
+    }
+
+    @Override
+    public void writeLong( long value )
+        throws IOException
+    {
+        ensureRemaining( 8 ).putLong( value );
+    }
+
+    @Override
+    public void writeFloat( float value )
+        throws IOException
+    {
+        writeInt( Float.floatToIntBits( value ) );
+    }
+
+    @Override
+    public void writeDouble( double value )
+        throws IOException
+    {
+        writeLong( Double.doubleToLongBits( value ) );
+    }
+
+    /**
+     * Forces all data written so far to the storage device.
+     */
+    public void flush()
+    {
+        window.force();
+    }
+
+    @Override
+    public void writeShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    /**
+     * Starts writing again at the initial position.
+     */
+    @Override
+    public void clear()
+        throws IOException
+    {
+        highestPosition = Math.max( highestPosition, position() );
+        map( startPosition, 0 );
+    }
+
+    @Override
+    public void free()
+        throws IOException
+    {
+        flush();
+
+        // Mapping a window grows the file to the end of the window, even if nothing was written into it
+        highestPosition = Math.max( highestPosition, position() );
+        long endPosition = Math.max( initialSize, highestPosition );
+        if ( channel.size() > endPosition )
+        {
+            channel.truncate( endPosition );
+        }
+    }
+
+    private long position()
+    {
+        return windowPosition + window.position();
+    }
+
+    private MappedByteBuffer ensureRemaining( int length )
+        throws IOException
+    {
+        if ( window.remaining() < length )
+        {
+            remap( length );
+        }
+        return window;
+    }
+
+    private void remap( int length )
+        throws IOException
+    {
+        window.force();
+        highestPosition = Math.max( highestPosition, position() );
+        map( position(), length );
+    }
+
+    private void map( long position, int minimumLength )
+        throws IOException
+    {
+        window = channel.map( MapMode.READ_WRITE, position, Math.max( windowSize, minimumLength ) );
+        window.order( byteOrder );
+        windowPosition = position;
+    }
+
+    private void writeArray( Object values, int offset, int length )
+        throws IOException
+    {
+        int elementSize = ByteOrderUtils.elementSize( values );
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            ensureRemaining( elementSize );
+            int count = Math.min( end - index, window.remaining() / elementSize );
+            ByteOrderUtils.putArray( values, index, count, window );
+            index += count;
+        }
+    }
+
+}
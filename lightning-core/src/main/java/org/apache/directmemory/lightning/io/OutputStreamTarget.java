@@ -36,6 +36,8 @@ public class OutputStreamTarget
 
     private long writtenBytes = 0;
 
+    private static final int BULK_BUFFER_SIZE = 8192;
+
     public OutputStreamTarget( OutputStream stream )
     {
         this( stream, ByteOrder.BIG_ENDIAN );
@@ -85,7 +87,14 @@ public class OutputStreamTarget
     public void writeString( String value )
         throws IOException
     {
-        UnicodeUtil.UTF16toUTF8( value, this );
+        UnicodeUtil.writeString( value, this );
+    }
+
+    @Override
+    public void writeUTF8( String value, int length )
+        throws IOException
+    {
+        UnicodeUtil.writeUTF8( value, length, this );
     }
 
     @Override
@@ -149,6 +158,48 @@ public class OutputStreamTarget
         writeLong( Double.doubleToLongBits( value ) );
     }
 
+    @Override
+    public void writeShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
     @Override
     public void clear()
         throws IOException
@@ -162,4 +213,22 @@ public class OutputStreamTarget
     {
     }
 
+    private void writeArray( Object values, int offset, int length )
+        throws IOException
+    {
+        boolean bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        int elementSize = ByteOrderUtils.elementSize( values );
+        int chunkLength = Math.min( length, BULK_BUFFER_SIZE / elementSize );
+        byte[] buffer = new byte[chunkLength * elementSize];
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            int count = Math.min( end - index, chunkLength );
+            ByteOrderUtils.putArray( values, index, count, buffer, 0, bigEndian );
+            writeBytes( buffer, 0, count * elementSize );
+            index += count;
+        }
+    }
+
 }
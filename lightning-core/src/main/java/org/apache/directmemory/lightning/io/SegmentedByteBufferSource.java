@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+
+/**
+ * {@link Source} implementation reading from a sequence of {@link ByteBuffer}s as if they were one contiguous buffer,
+ * for example the result of {@link SegmentedByteBufferTarget#toByteBuffers()}.
+ */
+public class SegmentedByteBufferSource
+    implements Source
+{
+
+    private final ByteBuffer[] segments;
+
+    private final ByteOrder byteOrder;
+
+    private final boolean bigEndian;
+
+    private int segmentIndex = 0;
+
+    private ByteBuffer segment;
+
+    public SegmentedByteBufferSource( ByteBuffer... segments )
+    {
+        this( ByteOrder.BIG_ENDIAN, segments );
+    }
+
+    public SegmentedByteBufferSource( ByteOrder byteOrder, ByteBuffer... segments )
+    {
+        if ( segments.length == 0 )
+        {
+            throw new IllegalArgumentException( "At least one segment is needed" );
+        }
+
+        this.segments = new ByteBuffer[segments.length];
+        for ( int i = 0; i < segments.length; i++ )
+        {
+            this.segments[i] = segments[i].duplicate().order( byteOrder );
+        }
+        this.byteOrder = byteOrder;
+        this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        this.segment = this.segments[0];
+    }
+
+    @Override
+    public ByteOrder byteOrder()
+    {
+        return byteOrder;
+    }
+
+    @Override
+    public long readableBytes()
+    {
+        long readableBytes = 0;
+        for ( int i = segmentIndex; i < segments.length; i++ )
+        {
+            readableBytes += segments[i].remaining();
+        }
+        return readableBytes;
+    }
+
+    @Override
+    public boolean hasRemaining()
+        throws IOException
+    {
+        return readableBytes() > 0;
+    }
+
+    @Override
+    public int readBytes( byte[] bytes )
+        throws IOException
+    {
+        return readBytes( bytes, 0, bytes.length );
+    }
+
+    @Override
+    public int readBytes( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        int position = offset;
+        int remaining = length;
+        while ( remaining > 0 )
+        {
+            if ( !segment.hasRemaining() )
+            {
+                nextSegment();
+            }
+
+            int count = Math.min( remaining, segment.remaining() );
+            segment.get( bytes, position, count );
+            position += count;
+            remaining -= count;
+        }
+        return length;
+    }
+
+    @Override
+    public boolean readBoolean()
+        throws IOException
+    {
+        return readByte() == 1 ? true : false;
+    }
+
+    @Override
+    public String readString()
+        throws IOException
+    {
+        return UnicodeUtil.readString( this );
+    }
+
+    @Override
+    public String readUTF8( int length )
+        throws IOException
+    {
+        if ( segment.remaining() < length )
+        {
+            // Crosses a segment boundary, decode from a copy
+            return UnicodeUtil.readUTF8( length, this );
+        }
+        return UnicodeUtil.UTF8toUTF16( segment, length );
+    }
+
+    @Override
+    public byte readByte()
+        throws IOException
+    {
+        if ( !segment.hasRemaining() )
+        {
+            nextSegment();
+        }
+        return segment.get();
+    }
+
+    @Override
+    public short readUnsignedByte()
+        throws IOException
+    {
+        return (short) ( readByte() & 0xFF );
+    }
+
+    @Override
+    public short readShort()
+        throws IOException
+    {
+        if ( segment.remaining() >= 2 )
+        {
+            return segment.getShort();
+        }
+        return ByteOrderUtils.getShort( this, bigEndian );
+    }
+
+    @Override
+    public char readChar()
+        throws IOException
+    {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt()
+        throws IOException
+    {
+        if ( segment.remaining() >= 4 )
+        {
+            return segment.getInt();
+        }
+        return ByteOrderUtils.getInt( this, bigEndian );
+    }
+
+    @Override
+    public long readLong()
+        throws IOException
+    {
+        if ( segment.remaining() >= 8 )
+        {
+            return segment.getLong();
+        }
+        return ByteOrderUtils.getLong( this, bigEndian );
+    }
+
+    @Override
+    public float readFloat()
+        throws IOException
+    {
+        return Float.intBitsToFloat( readInt() );
+    }
+
+    @Override
+    public double readDouble()
+        throws IOException
+    {
+        return Double.longBitsToDouble( readLong() );
+    }
+
+    @Override
+    public void readShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void clear()
+        throws IOException
+    {
+        for ( ByteBuffer segment : segments )
+        {
+            segment.rewind();
+        }
+        segmentIndex = 0;
+        segment = segments[0];
+    }
+
+    @Override
+    public void free()
+        throws IOException
+    {
+    }
+
+    private void nextSegment()
+    {
+        // Skip empty segments
+        do
+        {
+            if ( segmentIndex + 1 >= segments.length )
+            {
+                throw new BufferUnderflowException();
+            }
+            segment = segments[++segmentIndex];
+        }
+        while ( !segment.hasRemaining() );
+    }
+
+    private void readArray( Object values, int offset, int length )
+        throws IOException
+    {
+        int elementSize = ByteOrderUtils.elementSize( values );
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            int count = Math.min( end - index, segment.remaining() / elementSize );
+            if ( count == 0 )
+            {
+                // Value crosses the segment boundary
+                byte[] bytes = new byte[elementSize];
+                readBytes( bytes );
+                ByteOrderUtils.getArray( bytes, 0, values, index++, 1, bigEndian );
+                continue;
+            }
+
+            ByteOrderUtils.getArray( segment, values, index, count );
+            index += count;
+        }
+    }
+
+}
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+
+/**
+ * Growable {@link Target} implementation writing into a chain of direct memory segments acquired from a
+ * {@link DirectByteBufferPool}. New segments are added as needed so the size of the serialized graph does not need to
+ * be known in advance. The written data can be accessed without copying using {@link #toByteBuffers()} and read using
+ * {@link SegmentedByteBufferSource}.<br>
+ * Segments are given back to the pool by {@link #free()}.
+ */
+public class SegmentedByteBufferTarget
+    implements Target
+{
+
+    private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+
+    private final DirectByteBufferPool pool;
+
+    private final ByteOrder byteOrder;
+
+    private final boolean bigEndian;
+
+    private ByteBuffer segment;
+
+    private long completedSegmentsBytes = 0;
+
+    public SegmentedByteBufferTarget( DirectByteBufferPool pool )
+    {
+        this( pool, ByteOrder.BIG_ENDIAN );
+    }
+
+    public SegmentedByteBufferTarget( DirectByteBufferPool pool, ByteOrder byteOrder )
+    {
+        this.pool = pool;
+        this.byteOrder = byteOrder;
+        this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        this.segment = acquireSegment();
+    }
+
+    @Override
+    public ByteOrder byteOrder()
+    {
+        return byteOrder;
+    }
+
+    @Override
+    public long writtenBytes()
+    {
+        return completedSegmentsBytes + segment.position();
+    }
+
+    /**
+     * Returns the written data as an array of read-only {@link ByteBuffer}s sharing the underlying segments. The
+     * returned buffers are only valid until this target is cleared or freed.
+     */
+    public ByteBuffer[] toByteBuffers()
+    {
+        ByteBuffer[] byteBuffers = new ByteBuffer[segments.size()];
+        for ( int i = 0; i < byteBuffers.length; i++ )
+        {
+            ByteBuffer byteBuffer = segments.get( i ).asReadOnlyBuffer();
+            byteBuffer.flip();
+            byteBuffer.order( byteOrder );
+            byteBuffers[i] = byteBuffer;
+        }
+        return byteBuffers;
+    }
+
+    @Override
+    public void writeBytes( byte[] bytes )
+        throws IOException
+    {
+        writeBytes( bytes, 0, bytes.length );
+    }
+
+    @Override
+    public void writeBytes( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        int position = offset;
+        int remaining = length;
+        while ( remaining > 0 )
+        {
+            if ( !segment.hasRemaining() )
+            {
+                nextSegment();
+            }
+
+            int count = Math.min( remaining, segment.remaining() );
+            segment.put( bytes, position, count );
+            position += count;
+            remaining -= count;
+        }
+    }
+
+    @Override
+    public void writeBoolean( boolean value )
+        throws IOException
+    {
+        writeByte( (byte) ( value ? 1 : 0 ) );
+    }
+
+    @Override
+    public void writeString( String value )
+        throws IOException
+    {
+        UnicodeUtil.writeString( value, this );
+    }
+
+    @Override
+    public void writeUTF8( String value, int length )
+        throws IOException
+    {
+        if ( segment.remaining() < length )
+        {
+            // Crosses a segment boundary, encode into a copy
+            UnicodeUtil.writeUTF8( value, length, this );
+            return;
+        }
+        UnicodeUtil.UTF16toUTF8( value, length, segment );
+    }
+
+    @Override
+    public void writeByte( byte value )
+        throws IOException
+    {
+        if ( !segment.hasRemaining() )
+        {
+            nextSegment();
+        }
+        segment.put( value );
+    }
+
+    @Override
+    public void writeUnsignedByte( short value )
+        throws IOException
+    {
+        writeByte( (byte) value );
+    }
+
+    @Override
+    public void writeShort( short value )
+        throws IOException
+    {
+        if ( segment.remaining() >= 2 )
+        {
+            segment.putShort( value );
+        }
+        else
+        {
+            ByteOrderUtils.putShort( value, this, bigEndian );
+        }
+    }
+
+    @Override
+    public void writeChar( char value )
+        throws IOException
+    {
+        writeShort( (short) value );
+    }
+
+    @Override
+    public void writeInt( int value )
+        throws IOException
+    {
+        if ( segment.remaining() >= 4 )
+        {
+            segment.putInt( value );
+        }
+        else
+        {
+            ByteOrderUtils.putInt( value, this, bigEndian );
+        }
+    }
+
+    @Override
+    public void writeLong( long value )
+        throws IOException
+    {
+        if ( segment.remaining() >= 8 )
+        {
+            segment.putLong( value );
+        }
+        else
+        {
+            ByteOrderUtils.putLong( value, this, bigEndian );
+        }
+    }
+
+    @Override
+    public void writeFloat( float value )
+        throws IOException
+    {
+        writeInt( Float.floatToIntBits( value ) );
+    }
+
+    @Override
+    public void writeDouble( double value )
+        throws IOException
+    {
+        writeLong( Double.doubleToLongBits( value ) );
+    }
+
+    @Override
+    public void writeShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        writeArray( values, offset, length );
+    }
+
+    /**
+     * Gives all but the first segment back to the pool and resets this target to be reused.
+     */
+    @Override
+    public void clear()
+        throws IOException
+    {
+        for ( int i = segments.size() - 1; i > 0; i-- )
+        {
+            pool.release( segments.remove( i ) );
+        }
+        segment = segments.get( 0 );
+        segment.clear();
+        completedSegmentsBytes = 0;
+    }
+
+    /**
+     * Gives all segments back to the pool, this target must not be used afterwards.
+     */
+    @Override
+    public void free()
+        throws IOException
+    {
+        for ( ByteBuffer segment : segments )
+        {
+            pool.release( segment );
+        }
+        segments.clear();
+        completedSegmentsBytes = 0;
+    }
+
+    private void nextSegment()
+    {
+        completedSegmentsBytes += segment.position();
+        segment = acquireSegment();
+    }
+
+    private ByteBuffer acquireSegment()
+    {
+        ByteBuffer segment = pool.acquire();
+        segment.order( byteOrder );
+        segments.add( segment );
+        return segment;
+    }
+
+    private void writeArray( Object values, int offset, int length )
+        throws IOException
+    {
+        int elementSize = ByteOrderUtils.elementSize( values );
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            int count = Math.min( end - index, segment.remaining() / elementSize );
+            if ( count == 0 )
+            {
+                // Value crosses the segment boundary
+                byte[] bytes = new byte[elementSize];
+                ByteOrderUtils.putArray( values, index++, 1, bytes, 0, bigEndian );
+                writeBytes( bytes );
+                continue;
+            }
+
+            ByteOrderUtils.putArray( values, index, count, segment );
+            index += count;
+        }
+    }
+
+}
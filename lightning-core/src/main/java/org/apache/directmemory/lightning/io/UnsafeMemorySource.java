@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+import org.apache.directmemory.lightning.internal.util.UnsafeUtil;
+
+/**
+ * {@link Source} implementation reading directly from a raw off-heap memory region (address, length) using
+ * sun.misc.Unsafe, the counterpart of {@link UnsafeMemoryTarget}. The byte order needs to match the one used while
+ * writing (native byte order by default).<br>
+ * Reading behind the length of the region throws a {@link BufferUnderflowException}.
+ */
+@SuppressWarnings( "restriction" )
+public class UnsafeMemorySource
+    implements Source
+{
+
+    private static final sun.misc.Unsafe UNSAFE = UnsafeUtil.getUnsafe();
+
+    private static final long BYTE_ARRAY_OFFSET = UNSAFE == null ? -1 : UNSAFE.arrayBaseOffset( byte[].class );
+
+    private static final int BULK_BUFFER_SIZE = 8192;
+
+    private final long address;
+
+    private final long length;
+
+    private final ByteOrder byteOrder;
+
+    private final boolean swap;
+
+    private long position = 0;
+
+    public UnsafeMemorySource( long address, long length )
+    {
+        this( address, length, ByteOrder.nativeOrder() );
+    }
+
+    public UnsafeMemorySource( long address, long length, ByteOrder byteOrder )
+    {
+        if ( UNSAFE == null )
+        {
+            throw new UnsupportedOperationException( "sun.misc.Unsafe is not available on this JVM" );
+        }
+
+        this.address = address;
+        this.length = length;
+        this.byteOrder = byteOrder;
+        this.swap = byteOrder != ByteOrder.nativeOrder();
+    }
+
+    @Override
+    public ByteOrder byteOrder()
+    {
+        return byteOrder;
+    }
+
+    @Override
+    public long readableBytes()
+    {
+        return length - position;
+    }
+
+    @Override
+    public boolean hasRemaining()
+        throws IOException
+    {
+        return position < length;
+    }
+
+    @Override
+    public int readBytes( byte[] bytes )
+        throws IOException
+    {
+        return readBytes( bytes, 0, bytes.length );
+    }
+
+    @Override
+    public int readBytes( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        checkBounds( bytes.length, offset, length );
+
+        long pointer = consume( length );
+        UNSAFE.copyMemory( null, pointer, bytes, BYTE_ARRAY_OFFSET + offset, length );
+        return length;
+    }
+
+    @Override
+    public boolean readBoolean()
+        throws IOException
+    {
+        return readByte() == 1 ? true : false;
+    }
+
+    @Override
+    public String readString()
+        throws IOException
+    {
+        return UnicodeUtil.readString( this );
+    }
+
+    @Override
+    public String readUTF8( int length )
+        throws IOException
+    {
+        return UnicodeUtil.UTF8toUTF16( consume( length ), length );
+    }
+
+    @Override
+    public byte readByte()
+        throws IOException
+    {
+        return UNSAFE.getByte( consume( 1 ) );
+    }
+
+    @Override
+    public short readUnsignedByte()
+        throws IOException
+    {
+        return (short) ( readByte() & 0xFF );
+    }
+
+    @Override
+    public short readShort()
+        throws IOException
+    {
+        short value = UNSAFE.getShort( consume( 2 ) );
+        return swap ? Short.reverseBytes( value ) : value;
+    }
+
+    @Override
+    public char readChar()
+        throws IOException
+    {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt()
+        throws IOException
+    {
+        int value = UNSAFE.getInt( consume( 4 ) );
+        return swap ? Integer.reverseBytes( value ) : value;
+    }
+
+    @Override
+    public long readLong()
+        throws IOException
+    {
+        long value = UNSAFE.getLong( consume( 8 ) );
+        return swap ? Long.reverseBytes( value ) : value;
+    }
+
+    @Override
+    public float readFloat()
+        throws IOException
+    {
+        return Float.intBitsToFloat( readInt() );
+    }
+
+    @Override
+    public double readDouble()
+        throws IOException
+    {
+        return Double.longBitsToDouble( readLong() );
+    }
+
+    @Override
+    public void readShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void readDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        readArray( values, offset, length );
+    }
+
+    @Override
+    public void clear()
+        throws IOException
+    {
+        position = 0;
+    }
+
+    @Override
+    public void free()
+        throws IOException
+    {
+    }
+
+    /**
+     * Moves the position by length bytes and returns the address to read from.
+     */
+    private long consume( long length )
+    {
+        long pointer = position;
+        if ( this.length - pointer < length )
+        {
+            throw new BufferUnderflowException();
+        }
+        position = pointer + length;
+        return address + pointer;
+    }
+
+    private static void checkBounds( int arrayLength, int offset, int length )
+    {
+        if ( offset < 0 || length < 0 || offset + length > arrayLength )
+        {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private void readArray( Object values, int offset, int length )
+        throws IOException
+    {
+        int elementSize = ByteOrderUtils.elementSize( values );
+        if ( !swap )
+        {
+            long pointer = consume( (long) length * elementSize );
+            long arrayOffset = UNSAFE.arrayBaseOffset( values.getClass() ) + (long) offset * elementSize;
+            UNSAFE.copyMemory( null, pointer, values, arrayOffset, (long) length * elementSize );
+            return;
+        }
+
+        // Foreign byte order, copy chunks into a scratch buffer and decode these
+        boolean bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        int chunkLength = Math.min( length, BULK_BUFFER_SIZE / elementSize );
+        byte[] buffer = new byte[chunkLength * elementSize];
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            int count = Math.min( end - index, chunkLength );
+            readBytes( buffer, 0, count * elementSize );
+            ByteOrderUtils.getArray( buffer, 0, values, index, count, bigEndian );
+            index += count;
+        }
+    }
+
+}
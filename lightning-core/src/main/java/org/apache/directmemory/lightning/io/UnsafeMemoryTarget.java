@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteOrder;
+
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.io.ByteOrderUtils;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+import org.apache.directmemory.lightning.internal.util.UnsafeUtil;
+
+/**
+ * {@link Target} implementation writing directly into a raw off-heap memory region (address, capacity) using
+ * sun.misc.Unsafe. Primitives are stored in native byte order by default and byte arrays are copied in bulk. The memory
+ * region is owned by the caller and is neither allocated nor freed by this target.<br>
+ * Writing behind the capacity of the region throws a {@link BufferOverflowException}.
+ */
+@SuppressWarnings( "restriction" )
+public class UnsafeMemoryTarget
+    implements Target
+{
+
+    private static final sun.misc.Unsafe UNSAFE = UnsafeUtil.getUnsafe();
+
+    private static final long BYTE_ARRAY_OFFSET = UNSAFE == null ? -1 : UNSAFE.arrayBaseOffset( byte[].class );
+
+    private static final int BULK_BUFFER_SIZE = 8192;
+
+    private final long address;
+
+    private final long capacity;
+
+    private final ByteOrder byteOrder;
+
+    private final boolean swap;
+
+    private long position = 0;
+
+    public UnsafeMemoryTarget( long address, long capacity )
+    {
+        this( address, capacity, ByteOrder.nativeOrder() );
+    }
+
+    public UnsafeMemoryTarget( long address, long capacity, ByteOrder byteOrder )
+    {
+        if ( UNSAFE == null )
+        {
+            throw new UnsupportedOperationException( "sun.misc.Unsafe is not available on this JVM" );
+        }
+
+        this.address = address;
+        this.capacity = capacity;
+        this.byteOrder = byteOrder;
+        this.swap = byteOrder != ByteOrder.nativeOrder();
+    }
+
+    @Override
+    public ByteOrder byteOrder()
+    {
+        return byteOrder;
+    }
+
+    @Override
+    public long writtenBytes()
+    {
+        return position;
+    }
+
+    @Override
+    public void writeBytes( byte[] bytes )
+        throws IOException
+    {
+        writeBytes( bytes, 0, bytes.length );
+    }
+
+    @Override
+    public void writeBytes( byte[] bytes, int offset, int length )
+        throws IOException
+    {
+        checkBounds( bytes.length, offset, length );
+
+        long pointer = reserve( length );
+        UNSAFE.copyMemory( bytes, BYTE_ARRAY_OFFSET + offset, null, pointer, length );
+    }
+
+    @Override
+    public void writeBoolean( boolean value )
+        throws IOException
+    {
+        writeByte( (byte) ( value ? 1 : 0 ) );
+    }
+
+    @Override
+    public void writeString( String value )
+        throws IOException
+    {
+        UnicodeUtil.writeString( value, this );
+    }
+
+    @Override
+    public void writeUTF8( String value, int length )
+        throws IOException
+    {
+        UnicodeUtil.UTF16toUTF8( value, reserve( length ) );
+    }
+
+    @Override
+    public void writeByte( byte value )
+        throws IOException
+    {
+        UNSAFE.putByte( reserve( 1 ), value );
+    }
+
+    @Override
+    public void writeUnsignedByte( short value )
+        throws IOException
+    {
+        writeByte( (byte) value );
+    }
+
+    @Override
+    public void writeShort( short value )
+        throws IOException
+    {
+        UNSAFE.putShort( reserve( 2 ), swap ? Short.reverseBytes( value ) : value );
+    }
+
+    @Override
+    public void writeChar( char value )
+        throws IOException
+    {
+        writeShort( (short) value );
+    }
+
+    @Override
+    public void writeInt( int value )
+        throws IOException
+    {
+        UNSAFE.putInt( reserve( 4 ), swap ? Integer.reverseBytes( value ) : value );
+    }
+
+    @Override
+    public void writeLong( long value )
+        throws IOException
+    {
+        UNSAFE.putLong( reserve( 8 ), swap ? Long.reverseBytes( value ) : value );
+    }
+
+    @Override
+    public void writeFloat( float value )
+        throws IOException
+    {
+        writeInt( Float.floatToRawIntBits( value ) );
+    }
+
+    @Override
+    public void writeDouble( double value )
+        throws IOException
+    {
+        writeLong( Double.doubleToRawLongBits( value ) );
+    }
+
+    @Override
+    public void writeShorts( short[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeChars( char[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeInts( int[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeLongs( long[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeFloats( float[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void writeDoubles( double[] values, int offset, int length )
+        throws IOException
+    {
+        checkBounds( values.length, offset, length );
+        writeArray( values, offset, length );
+    }
+
+    @Override
+    public void clear()
+        throws IOException
+    {
+        position = 0;
+    }
+
+    @Override
+    public void free()
+        throws IOException
+    {
+    }
+
+    /**
+     * Moves the position by length bytes and returns the address to write to.
+     */
+    private long reserve( long length )
+    {
+        long pointer = position;
+        if ( capacity - pointer < length )
+        {
+            throw new BufferOverflowException();
+        }
+        position = pointer + length;
+        return address + pointer;
+    }
+
+    private static void checkBounds( int arrayLength, int offset, int length )
+    {
+        if ( offset < 0 || length < 0 || offset + length > arrayLength )
+        {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private void writeArray( Object values, int offset, int length )
+        throws IOException
+    {
+        int elementSize = ByteOrderUtils.elementSize( values );
+        if ( !swap )
+        {
+            long pointer = reserve( (long) length * elementSize );
+            long arrayOffset = UNSAFE.arrayBaseOffset( values.getClass() ) + (long) offset * elementSize;
+            UNSAFE.copyMemory( values, arrayOffset, null, pointer, (long) length * elementSize );
+            return;
+        }
+
+        // Foreign byte order, encode chunks into a scratch buffer and copy these
+        boolean bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+        int chunkLength = Math.min( length, BULK_BUFFER_SIZE / elementSize );
+        byte[] buffer = new byte[chunkLength * elementSize];
+        int index = offset;
+        int end = offset + length;
+        while ( index < end )
+        {
+            int count = Math.min( end - index, chunkLength );
+            ByteOrderUtils.putArray( values, index, count, buffer, 0, bigEndian );
+            writeBytes( buffer, 0, count * elementSize );
+            index += count;
+        }
+    }
+
+}
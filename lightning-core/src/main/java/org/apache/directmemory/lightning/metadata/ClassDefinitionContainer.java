@@ -33,4 +33,12 @@ public interface ClassDefinitionContainer
 
     ClassDefinition getClassDefinitionByType( Class<?> type );
 
+    /**
+     * Returns the dense index of the ClassDefinition with the given id inside this container or -1 if not available.
+     * Indexes are stable for all containers holding the same set of ClassDefinitions.
+     */
+    int getCompactId( long id );
+
+    ClassDefinition getClassDefinitionByCompactId( int compactId );
+
 }
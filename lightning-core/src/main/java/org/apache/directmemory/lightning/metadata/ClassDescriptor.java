@@ -33,4 +33,10 @@ public interface ClassDescriptor
 
     Marshaller getMarshaller();
 
+    /**
+     * Returns if instances of this class are tracked by identity or null if the global
+     * {@link org.apache.directmemory.lightning.SerializationStrategy} decides.
+     */
+    Boolean getReferenceTracking();
+
 }
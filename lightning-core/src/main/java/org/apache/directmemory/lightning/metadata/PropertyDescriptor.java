@@ -44,4 +44,16 @@ public interface PropertyDescriptor
 
     Marshaller getMarshaller();
 
+    /**
+     * Returns if the value of this property can be null as evaluated by the configured {@link ValueNullableEvaluator}
+     * at definition time. Non nullable values are written without a null marker.
+     */
+    boolean isNullable();
+
+    /**
+     * Returns if values of this property are tracked by identity or null if the policy of the value's class or the
+     * global {@link org.apache.directmemory.lightning.SerializationStrategy} decides.
+     */
+    Boolean getReferenceTracking();
+
 }
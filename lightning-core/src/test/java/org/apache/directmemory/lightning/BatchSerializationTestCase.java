@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class BatchSerializationTestCase
+{
+
+    @Test
+    public void testBatchRoundTrip()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new BatchSerializerDefinition() ).build();
+
+        List<Object> values = new ArrayList<Object>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            values.add( new Item( i, "item-" + i ) );
+            values.add( new Marker( i % 2 == 0 ) );
+        }
+        values.add( null );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serializeAll( values, new OutputStreamTarget( baos ) );
+
+        List<Object> result =
+            serializer.deserializeAll( new InputStreamSource( new ByteArrayInputStream( baos.toByteArray() ) ) );
+        assertEquals( values.size(), result.size() );
+        for ( int i = 0; i < 10; i++ )
+        {
+            Item item = (Item) result.get( i * 2 );
+            assertEquals( i, item.getId() );
+            assertEquals( "item-" + i, item.getName() );
+            assertEquals( i % 2 == 0, ( (Marker) result.get( i * 2 + 1 ) ).isFlag() );
+        }
+        assertNull( result.get( result.size() - 1 ) );
+    }
+
+    @Test
+    public void testBatchWritesClassIdsOnce()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializerDefinitions( new BatchSerializerDefinition() ).build();
+
+        List<Marker> values = new ArrayList<Marker>();
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        for ( int i = 0; i < 100; i++ )
+        {
+            Marker marker = new Marker( true );
+            values.add( marker );
+            serializer.serialize( marker, new OutputStreamTarget( single ) );
+        }
+
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        serializer.serializeAll( values, new OutputStreamTarget( batch ) );
+
+        // One 8 byte class id plus a one byte tag per value and the end tag
+        int payload = single.size() / 100 - 8;
+        assertEquals( 8 + 100 * ( 1 + payload ) + 1, batch.size() );
+    }
+
+    @Test
+    public void testBatchSharesReferences()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializationStrategy( SerializationStrategy.SizeOptimized ).serializerDefinitions( new BatchSerializerDefinition() ).build();
+
+        Item item = new Item( 1, "shared" );
+        List<Item> values = new ArrayList<Item>();
+        values.add( item );
+        values.add( item );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serializeAll( values, new OutputStreamTarget( baos ) );
+
+        List<Item> result =
+            serializer.deserializeAll( new InputStreamSource( new ByteArrayInputStream( baos.toByteArray() ) ) );
+        assertEquals( 2, result.size() );
+        assertEquals( "shared", result.get( 0 ).getName() );
+        assertSame( result.get( 0 ), result.get( 1 ) );
+    }
+
+    public static class BatchSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Item.class ).attributes();
+            serialize( Marker.class ).attributes();
+        }
+    }
+
+    public static class Item
+    {
+
+        @Attribute
+        private int id;
+
+        @Attribute
+        private String name;
+
+        public Item()
+        {
+        }
+
+        public Item( int id, String name )
+        {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId()
+        {
+            return id;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+    }
+
+    public static class Marker
+    {
+
+        @Attribute
+        private boolean flag;
+
+        public Marker()
+        {
+        }
+
+        public Marker( boolean flag )
+        {
+            this.flag = flag;
+        }
+
+        public boolean isFlag()
+        {
+            return flag;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.internal.marshaller.ListMarshallerTestCase.NoGenericTypeList;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.ClassDefinition;
+import org.apache.directmemory.lightning.metadata.ClassDefinitionContainer;
+import org.junit.Test;
+
+public class ClassIdStrategyTestCase
+{
+
+    @Test
+    @SuppressWarnings( { "rawtypes", "unchecked" } )
+    public void testCompactClassIds()
+        throws Exception
+    {
+        Serializer checksumSerializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new ClassIdSerializerDefinition() ).build();
+
+        Serializer compactSerializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).classIdStrategy( ClassIdStrategy.Compact ).serializerDefinitions( new ClassIdSerializerDefinition() ).build();
+
+        List list = new ArrayList();
+        list.add( "Foo" );
+        list.add( 20 );
+        list.add( null );
+        list.add( BigInteger.TEN );
+
+        NoGenericTypeList value = new NoGenericTypeList();
+        value.setList( list );
+
+        byte[] checksumData = serialize( checksumSerializer, value );
+        byte[] compactData = serialize( compactSerializer, value );
+
+        // Every non null element carries a type id, all of them fit into a single byte when compacted
+        assertTrue( compactData.length < checksumData.length );
+
+        Object result = compactSerializer.deserialize( new InputStreamSource( new ByteArrayInputStream( compactData ) ) );
+        assertEquals( value, result );
+    }
+
+    @Test
+    @SuppressWarnings( { "rawtypes", "unchecked" } )
+    public void testCompactClassIdsWithExchangedContainer()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).classIdStrategy( ClassIdStrategy.Compact ).serializerDefinitions( new ClassIdSerializerDefinition() ).build();
+
+        Serializer remoteSerializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).classIdStrategy( ClassIdStrategy.Compact ).serializerDefinitions( new ClassIdSerializerDefinition() ).build();
+
+        // Exchange the container the way it would be sent to a remote side
+        ClassDefinitionContainer container = serializer.getClassDefinitionContainer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream( baos );
+        out.writeObject( container );
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) );
+        ClassDefinitionContainer remoteContainer = (ClassDefinitionContainer) in.readObject();
+        in.close();
+
+        remoteSerializer.setClassDefinitionContainer( remoteContainer );
+
+        // Compact ids are indexes into the id sorted definitions, both sides must agree on all of them. CRC64 ids
+        // of user classes can be negative and sort in front of the built-in ones.
+        assertEquals( container.getClassDefinitions().size(), remoteContainer.getClassDefinitions().size() );
+        boolean negativeId = false;
+        for ( ClassDefinition classDefinition : container.getClassDefinitions() )
+        {
+            negativeId |= classDefinition.getId() < 0;
+
+            int compactId = container.getCompactId( classDefinition.getId() );
+            assertEquals( compactId, remoteContainer.getCompactId( classDefinition.getId() ) );
+            assertEquals( classDefinition.getType(), remoteContainer.getClassDefinitionByCompactId( compactId ).getType() );
+        }
+        assertTrue( negativeId );
+
+        List list = new ArrayList();
+        list.add( "Bar" );
+        list.add( 30L );
+
+        NoGenericTypeList value = new NoGenericTypeList();
+        value.setList( list );
+
+        byte[] data = serialize( serializer, value );
+        Object result = remoteSerializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+        assertEquals( value, result );
+
+        StringEncodingTestCase.Names names = new StringEncodingTestCase.Names();
+        names.setLatin1( "Latin1" );
+        names.setUtf8( "äöü" );
+
+        data = serialize( serializer, names );
+        result = remoteSerializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+        assertEquals( names, result );
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    public static class ClassIdSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( NoGenericTypeList.class ).attributes();
+            serialize( ComplexClassHierarchyTestCase.Foo.class ).attributes();
+            serialize( PresenceBitmapTestCase.Sparse.class ).attributes();
+            serialize( StringEncodingTestCase.Names.class ).attributes();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.base.VarIntMarshaller;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class NumberEncodingStrategyTestCase
+{
+
+    @Test
+    public void testVarintLengths()
+        throws Exception
+    {
+        Serializer fixedSerializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new LengthsSerializerDefinition() ).build();
+
+        Serializer varintSerializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).numberEncodingStrategy( NumberEncodingStrategy.Varint ).serializerDefinitions( new LengthsSerializerDefinition() ).build();
+
+        Lengths value = new Lengths();
+        value.setName( "Lightning äöü €" );
+        value.setUnit( Unit.Second );
+        value.setValues( new int[] { 1, 2, 3 } );
+        value.setNames( new String[] { "Foo", null, "Bar" } );
+        List<String> list = new ArrayList<String>();
+        for ( int i = 0; i < 200; i++ )
+        {
+            list.add( String.valueOf( i ) );
+        }
+        value.setList( list );
+
+        byte[] fixedData = serialize( fixedSerializer, value );
+        byte[] varintData = serialize( varintSerializer, value );
+
+        assertTrue( varintData.length < fixedData.length );
+
+        assertEquals( value, fixedSerializer.deserialize( new InputStreamSource( new ByteArrayInputStream( fixedData ) ) ) );
+        assertEquals( value,
+                      varintSerializer.deserialize( new InputStreamSource( new ByteArrayInputStream( varintData ) ) ) );
+    }
+
+    @Test
+    public void testVarIntMarshallerAttributes()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializerDefinitions( new CountersSerializerDefinition() ).build();
+
+        long[][] samples =
+            { { 0, 0, 0 }, { 1, -1, 1 }, { -64, 63, Long.MIN_VALUE }, { Integer.MAX_VALUE, Short.MIN_VALUE, Long.MAX_VALUE },
+                { Integer.MIN_VALUE, Short.MAX_VALUE, -1 } };
+
+        for ( long[] sample : samples )
+        {
+            Counters value = new Counters();
+            value.setIntValue( (int) sample[0] );
+            value.setShortValue( (short) sample[1] );
+            value.setLongValue( sample[2] );
+
+            byte[] data = serialize( serializer, value );
+            assertEquals( value, serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) ) );
+        }
+
+        Counters value = new Counters();
+        value.setIntValue( 1 );
+        value.setShortValue( (short) -1 );
+        value.setLongValue( 2L );
+
+        // 8 bytes class id, 1 byte each value and 1 byte null marker for the wrapper
+        assertEquals( 8 + 1 + 1 + 2, serialize( serializer, value ).length );
+
+        value.setLongValue( null );
+        assertEquals( value, serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( serialize( serializer, value ) ) ) ) );
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    public static enum Unit
+    {
+        Second, Minute, Hour
+    }
+
+    public static class LengthsSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Lengths.class ).attributes();
+        }
+    }
+
+    public static class CountersSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Counters.class ).attributes( attribute( "intValue" ).using( VarIntMarshaller.class ),
+                                                    attribute( "shortValue" ).using( new VarIntMarshaller() ),
+                                                    attribute( "longValue" ).using( VarIntMarshaller.class ) );
+        }
+    }
+
+    public static class Lengths
+    {
+
+        @Attribute
+        private String name;
+
+        @Attribute
+        private Unit unit;
+
+        @Attribute
+        private int[] values;
+
+        @Attribute
+        private String[] names;
+
+        @Attribute
+        private List<String> list;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName( String name )
+        {
+            this.name = name;
+        }
+
+        public Unit getUnit()
+        {
+            return unit;
+        }
+
+        public void setUnit( Unit unit )
+        {
+            this.unit = unit;
+        }
+
+        public int[] getValues()
+        {
+            return values;
+        }
+
+        public void setValues( int[] values )
+        {
+            this.values = values;
+        }
+
+        public String[] getNames()
+        {
+            return names;
+        }
+
+        public void setNames( String[] names )
+        {
+            this.names = names;
+        }
+
+        public List<String> getList()
+        {
+            return list;
+        }
+
+        public void setList( List<String> list )
+        {
+            this.list = list;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ( ( list == null ) ? 0 : list.hashCode() );
+            result = prime * result + ( ( name == null ) ? 0 : name.hashCode() );
+            result = prime * result + Arrays.hashCode( names );
+            result = prime * result + ( ( unit == null ) ? 0 : unit.hashCode() );
+            result = prime * result + Arrays.hashCode( values );
+            return result;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            Lengths other = (Lengths) obj;
+            if ( list == null ? other.list != null : !list.equals( other.list ) )
+            {
+                return false;
+            }
+            if ( name == null ? other.name != null : !name.equals( other.name ) )
+            {
+                return false;
+            }
+            if ( !Arrays.equals( names, other.names ) )
+            {
+                return false;
+            }
+            if ( unit != other.unit )
+            {
+                return false;
+            }
+            return Arrays.equals( values, other.values );
+        }
+    }
+
+    public static class Counters
+    {
+
+        private int intValue;
+
+        private short shortValue;
+
+        private Long longValue;
+
+        public int getIntValue()
+        {
+            return intValue;
+        }
+
+        public void setIntValue( int intValue )
+        {
+            this.intValue = intValue;
+        }
+
+        public short getShortValue()
+        {
+            return shortValue;
+        }
+
+        public void setShortValue( short shortValue )
+        {
+            this.shortValue = shortValue;
+        }
+
+        public Long getLongValue()
+        {
+            return longValue;
+        }
+
+        public void setLongValue( Long longValue )
+        {
+            this.longValue = longValue;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + intValue;
+            result = prime * result + ( ( longValue == null ) ? 0 : longValue.hashCode() );
+            result = prime * result + shortValue;
+            return result;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            Counters other = (Counters) obj;
+            if ( intValue != other.intValue || shortValue != other.shortValue )
+            {
+                return false;
+            }
+            return longValue == null ? other.longValue == null : longValue.equals( other.longValue );
+        }
+    }
+}
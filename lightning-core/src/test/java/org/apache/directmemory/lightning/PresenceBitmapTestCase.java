@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class PresenceBitmapTestCase
+{
+
+    @Test
+    public void testSparseObjectIsPacked()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new SparseSerializerDefinition() ).build();
+
+        Sparse value = new Sparse();
+        byte[] data = serialize( serializer, value );
+
+        // 8 bytes class id, 3 bytes bitmap (10 nullable attributes, 4 booleans, 2 bits for each Boolean) and the int
+        assertEquals( 8 + 3 + 4, data.length );
+        assertEquals( value, serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) ) );
+
+        value.setFlag2( true );
+        value.setOptionalFlag1( Boolean.FALSE );
+        value.setOptionalFlag2( Boolean.TRUE );
+        data = serialize( serializer, value );
+        assertEquals( 8 + 3 + 4, data.length );
+        assertEquals( value, serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) ) );
+    }
+
+    @Test
+    public void testRandomlyFilledObjects()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializerDefinitions( new SparseSerializerDefinition() ).build();
+
+        Random random = new Random( 1234 );
+        for ( int i = 0; i < 500; i++ )
+        {
+            Sparse value = new Sparse();
+            value.setText1( random.nextBoolean() ? "Text" + i : null );
+            value.setText2( random.nextBoolean() ? "" : null );
+            value.setText3( random.nextBoolean() ? "äöü" : null );
+            value.setInteger1( random.nextBoolean() ? Integer.valueOf( random.nextInt() ) : null );
+            value.setInteger2( random.nextBoolean() ? Integer.valueOf( random.nextInt() ) : null );
+            value.setLong1( random.nextBoolean() ? Long.valueOf( random.nextLong() ) : null );
+            value.setDouble1( random.nextBoolean() ? Double.valueOf( random.nextDouble() ) : null );
+            value.setBytes( random.nextBoolean() ? new byte[] { 1, 2, 3 } : null );
+            value.setUnit( random.nextBoolean() ? NumberEncodingStrategyTestCase.Unit.Hour : null );
+            value.setShort1( random.nextBoolean() ? Short.valueOf( (short) random.nextInt() ) : null );
+            value.setFlag1( random.nextBoolean() );
+            value.setFlag2( random.nextBoolean() );
+            value.setFlag3( random.nextBoolean() );
+            value.setFlag4( random.nextBoolean() );
+            value.setOptionalFlag1( random.nextBoolean() ? Boolean.valueOf( random.nextBoolean() ) : null );
+            value.setOptionalFlag2( random.nextBoolean() ? Boolean.valueOf( random.nextBoolean() ) : null );
+            value.setPrimitive( random.nextInt() );
+
+            byte[] data = serialize( serializer, value );
+            assertEquals( value, serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) ) );
+        }
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    public static class SparseSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Sparse.class ).attributes();
+        }
+    }
+
+    public static class Sparse
+    {
+
+        @Attribute
+        private String text1;
+
+        @Attribute
+        private String text2;
+
+        @Attribute
+        private String text3;
+
+        @Attribute
+        private Integer integer1;
+
+        @Attribute
+        private Integer integer2;
+
+        @Attribute
+        private Long long1;
+
+        @Attribute
+        private Double double1;
+
+        @Attribute
+        private byte[] bytes;
+
+        @Attribute
+        private NumberEncodingStrategyTestCase.Unit unit;
+
+        @Attribute
+        private Short short1;
+
+        @Attribute
+        private boolean flag1;
+
+        @Attribute
+        private boolean flag2;
+
+        @Attribute
+        private boolean flag3;
+
+        @Attribute
+        private boolean flag4;
+
+        @Attribute
+        private Boolean optionalFlag1;
+
+        @Attribute
+        private Boolean optionalFlag2;
+
+        @Attribute
+        private int primitive;
+
+        public String getText1()
+        {
+            return text1;
+        }
+
+        public void setText1( String text1 )
+        {
+            this.text1 = text1;
+        }
+
+        public String getText2()
+        {
+            return text2;
+        }
+
+        public void setText2( String text2 )
+        {
+            this.text2 = text2;
+        }
+
+        public String getText3()
+        {
+            return text3;
+        }
+
+        public void setText3( String text3 )
+        {
+            this.text3 = text3;
+        }
+
+        public Integer getInteger1()
+        {
+            return integer1;
+        }
+
+        public void setInteger1( Integer integer1 )
+        {
+            this.integer1 = integer1;
+        }
+
+        public Integer getInteger2()
+        {
+            return integer2;
+        }
+
+        public void setInteger2( Integer integer2 )
+        {
+            this.integer2 = integer2;
+        }
+
+        public Long getLong1()
+        {
+            return long1;
+        }
+
+        public void setLong1( Long long1 )
+        {
+            this.long1 = long1;
+        }
+
+        public Double getDouble1()
+        {
+            return double1;
+        }
+
+        public void setDouble1( Double double1 )
+        {
+            this.double1 = double1;
+        }
+
+        public byte[] getBytes()
+        {
+            return bytes;
+        }
+
+        public void setBytes( byte[] bytes )
+        {
+            this.bytes = bytes;
+        }
+
+        public NumberEncodingStrategyTestCase.Unit getUnit()
+        {
+            return unit;
+        }
+
+        public void setUnit( NumberEncodingStrategyTestCase.Unit unit )
+        {
+            this.unit = unit;
+        }
+
+        public Short getShort1()
+        {
+            return short1;
+        }
+
+        public void setShort1( Short short1 )
+        {
+            this.short1 = short1;
+        }
+
+        public boolean isFlag1()
+        {
+            return flag1;
+        }
+
+        public void setFlag1( boolean flag1 )
+        {
+            this.flag1 = flag1;
+        }
+
+        public boolean isFlag2()
+        {
+            return flag2;
+        }
+
+        public void setFlag2( boolean flag2 )
+        {
+            this.flag2 = flag2;
+        }
+
+        public boolean isFlag3()
+        {
+            return flag3;
+        }
+
+        public void setFlag3( boolean flag3 )
+        {
+            this.flag3 = flag3;
+        }
+
+        public boolean isFlag4()
+        {
+            return flag4;
+        }
+
+        public void setFlag4( boolean flag4 )
+        {
+            this.flag4 = flag4;
+        }
+
+        public Boolean getOptionalFlag1()
+        {
+            return optionalFlag1;
+        }
+
+        public void setOptionalFlag1( Boolean optionalFlag1 )
+        {
+            this.optionalFlag1 = optionalFlag1;
+        }
+
+        public Boolean getOptionalFlag2()
+        {
+            return optionalFlag2;
+        }
+
+        public void setOptionalFlag2( Boolean optionalFlag2 )
+        {
+            this.optionalFlag2 = optionalFlag2;
+        }
+
+        public int getPrimitive()
+        {
+            return primitive;
+        }
+
+        public void setPrimitive( int primitive )
+        {
+            this.primitive = primitive;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode( new Object[] { text1, text2, text3, integer1, integer2, long1, double1,
+                unit, short1, flag1, flag2, flag3, flag4, optionalFlag1, optionalFlag2, primitive } );
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            Sparse other = (Sparse) obj;
+            return Arrays.equals( new Object[] { text1, text2, text3, integer1, integer2, long1, double1,
+                unit, short1, flag1, flag2, flag3, flag4, optionalFlag1, optionalFlag2, primitive },
+                                            new Object[] { other.text1, other.text2, other.text3, other.integer1,
+                                                other.integer2, other.long1, other.double1, other.unit, other.short1,
+                                                other.flag1, other.flag2, other.flag3, other.flag4,
+                                                other.optionalFlag1, other.optionalFlag2, other.primitive } )
+                && Arrays.equals( bytes, other.bytes );
+        }
+    }
+}
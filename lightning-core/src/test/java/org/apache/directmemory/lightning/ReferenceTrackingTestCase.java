@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.bindings.AttributeBinder;
+import org.apache.directmemory.lightning.bindings.ClassBinder;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class ReferenceTrackingTestCase
+{
+
+    @Test
+    public void testCyclicReferences()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializationStrategy( SerializationStrategy.SizeOptimized ).serializerDefinitions( new NodeSerializerDefinition() ).build();
+
+        Node first = new Node( "first" );
+        Node second = new Node( "second" );
+        first.setNext( second );
+        second.setNext( first );
+
+        byte[] data = serialize( serializer, first );
+
+        Node result = serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+        assertEquals( "first", result.getName() );
+        assertEquals( "second", result.getNext().getName() );
+        assertSame( result, result.getNext().getNext() );
+    }
+
+    @Test
+    public void testReferenceIdsAreWrittenAsVarints()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializationStrategy( SerializationStrategy.SizeOptimized ).serializerDefinitions( new NodeSerializerDefinition() ).build();
+
+        Node node = new Node( null );
+        node.setNext( node );
+
+        // Class id, reference id, presence bitmap and the back-reference (class id, reference id)
+        byte[] data = serialize( serializer, node );
+        assertTrue( data.length <= 8 + 1 + 1 + 8 + 1 );
+
+        Node result = serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+        assertSame( result, result.getNext() );
+    }
+
+    @Test
+    public void testClassLevelReferenceTracking()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializationStrategy( SerializationStrategy.SpeedOptimized ).serializerDefinitions( new TrackedNodeSerializerDefinition() ).build();
+
+        Node first = new Node( "first" );
+        Node second = new Node( "second" );
+        first.setNext( second );
+        second.setNext( first );
+
+        byte[] data = serialize( serializer, first );
+
+        Node result = serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+        assertEquals( "second", result.getNext().getName() );
+        assertSame( result, result.getNext().getNext() );
+    }
+
+    @Test
+    public void testClassLevelReferenceTrackingDisabled()
+        throws Exception
+    {
+        Serializer tracking =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializationStrategy( SerializationStrategy.SizeOptimized ).serializerDefinitions( new PairSerializerDefinition( null, null ) ).build();
+        Serializer untracked =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializationStrategy( SerializationStrategy.SizeOptimized ).serializerDefinitions( new PairSerializerDefinition( Boolean.FALSE, null ) ).build();
+
+        Leaf leaf = new Leaf( "leaf" );
+        Pair pair = new Pair( leaf, leaf );
+
+        Pair result = tracking.deserialize( new InputStreamSource( new ByteArrayInputStream( serialize( tracking, pair ) ) ) );
+        assertSame( result.getFirst(), result.getSecond() );
+
+        result = untracked.deserialize( new InputStreamSource( new ByteArrayInputStream( serialize( untracked, pair ) ) ) );
+        assertNotSame( result.getFirst(), result.getSecond() );
+        assertEquals( "leaf", result.getFirst().getName() );
+        assertEquals( "leaf", result.getSecond().getName() );
+    }
+
+    @Test
+    public void testAttributeLevelReferenceTracking()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializationStrategy( SerializationStrategy.SpeedOptimized ).serializerDefinitions( new PairSerializerDefinition( Boolean.FALSE, Boolean.TRUE ) ).build();
+
+        Leaf leaf = new Leaf( "leaf" );
+        Pair pair = new Pair( leaf, leaf );
+
+        Pair result =
+            serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( serialize( serializer, pair ) ) ) );
+        assertSame( result.getFirst(), result.getSecond() );
+        assertEquals( "leaf", result.getFirst().getName() );
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    public static class NodeSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Node.class ).attributes();
+        }
+    }
+
+    public static class TrackedNodeSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Node.class ).trackReferences( true ).attributes();
+        }
+    }
+
+    public static class PairSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        private final Boolean leafTracking;
+
+        private final Boolean attributeTracking;
+
+        public PairSerializerDefinition( Boolean leafTracking, Boolean attributeTracking )
+        {
+            this.leafTracking = leafTracking;
+            this.attributeTracking = attributeTracking;
+        }
+
+        @Override
+        protected void configure()
+        {
+            ClassBinder<Leaf> leafBinder = serialize( Leaf.class );
+            if ( leafTracking != null )
+            {
+                leafBinder.trackReferences( leafTracking );
+            }
+            leafBinder.attributes();
+
+            AttributeBinder<Leaf> first = attribute( "first" );
+            AttributeBinder<Leaf> second = attribute( "second" );
+            if ( attributeTracking != null )
+            {
+                first.trackReferences( attributeTracking );
+                second.trackReferences( attributeTracking );
+            }
+            serialize( Pair.class ).attributes( first, second );
+        }
+    }
+
+    public static class Pair
+    {
+
+        private Leaf first;
+
+        private Leaf second;
+
+        public Pair()
+        {
+        }
+
+        public Pair( Leaf first, Leaf second )
+        {
+            this.first = first;
+            this.second = second;
+        }
+
+        public Leaf getFirst()
+        {
+            return first;
+        }
+
+        public Leaf getSecond()
+        {
+            return second;
+        }
+    }
+
+    public static class Leaf
+    {
+
+        @Attribute
+        private String name;
+
+        public Leaf()
+        {
+        }
+
+        public Leaf( String name )
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+    }
+
+    public static class Node
+    {
+
+        @Attribute
+        private String name;
+
+        @Attribute
+        private Node next;
+
+        public Node()
+        {
+        }
+
+        public Node( String name )
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName( String name )
+        {
+            this.name = name;
+        }
+
+        public Node getNext()
+        {
+            return next;
+        }
+
+        public void setNext( Node next )
+        {
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class SerializationContextRecyclingTestCase
+{
+
+    @Test
+    public void testRecycledContextsDoNotLeakReferences()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializationStrategy( SerializationStrategy.SizeOptimized ).recycleSerializationContexts( true ).serializerDefinitions( new RecyclingSerializerDefinition() ).build();
+
+        Child child = new Child();
+        child.setName( "Child" );
+
+        Parent parent = new Parent();
+        parent.setFirst( child );
+        parent.setSecond( child );
+
+        byte[] first = serialize( serializer, parent );
+        byte[] second = serialize( serializer, parent );
+
+        // A leaked reference table would only write back-references on the second call
+        assertArrayEquals( first, second );
+
+        for ( byte[] data : new byte[][] { first, second } )
+        {
+            Parent result = serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+            assertEquals( parent, result );
+            assertSame( result.getFirst(), result.getSecond() );
+        }
+    }
+
+    @Test
+    public void testRecycledContextsAreThreadConfined()
+        throws Exception
+    {
+        final Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializationStrategy( SerializationStrategy.SizeOptimized ).recycleSerializationContexts( true ).serializerDefinitions( new RecyclingSerializerDefinition() ).build();
+
+        final Throwable[] failures = new Throwable[4];
+        Thread[] threads = new Thread[failures.length];
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            final int index = i;
+            threads[i] = new Thread()
+            {
+
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for ( int o = 0; o < 1000; o++ )
+                        {
+                            Child child = new Child();
+                            child.setName( "Child-" + index + "-" + o );
+
+                            Parent parent = new Parent();
+                            parent.setFirst( child );
+                            parent.setSecond( child );
+
+                            byte[] data = serialize( serializer, parent );
+                            Parent result =
+                                serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+                            assertEquals( parent, result );
+                        }
+                    }
+                    catch ( Throwable t )
+                    {
+                        failures[index] = t;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads[i].join();
+            if ( failures[i] != null )
+            {
+                throw new AssertionError( failures[i] );
+            }
+        }
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    public static class RecyclingSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Parent.class ).attributes();
+            serialize( Child.class ).attributes();
+        }
+    }
+
+    public static class Parent
+    {
+
+        @Attribute
+        private Child first;
+
+        @Attribute
+        private Child second;
+
+        public Child getFirst()
+        {
+            return first;
+        }
+
+        public void setFirst( Child first )
+        {
+            this.first = first;
+        }
+
+        public Child getSecond()
+        {
+            return second;
+        }
+
+        public void setSecond( Child second )
+        {
+            this.second = second;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ( ( first == null ) ? 0 : first.hashCode() );
+            result = prime * result + ( ( second == null ) ? 0 : second.hashCode() );
+            return result;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            Parent other = (Parent) obj;
+            if ( first == null ? other.first != null : !first.equals( other.first ) )
+            {
+                return false;
+            }
+            if ( second == null ? other.second != null : !second.equals( other.second ) )
+            {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    public static class Child
+    {
+
+        @Attribute
+        private String name;
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName( String name )
+        {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return ( name == null ) ? 0 : name.hashCode();
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            Child other = (Child) obj;
+            return name == null ? other.name == null : name.equals( other.name );
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.BufferedInputStreamSource;
+import org.apache.directmemory.lightning.io.ByteBufferSource;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class StreamingDeserializationTestCase
+{
+
+    private static final int RECORDS = 1000;
+
+    @Test
+    public void testStreamFromInputStream()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+        byte[] data = writeRecords( serializer );
+
+        assertRecords( serializer.<Record> deserializeStream( new InputStreamSource( new ByteArrayInputStream( data ) ) ) );
+    }
+
+    @Test
+    public void testStreamFromBufferedInputStream()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+        byte[] data = writeRecords( serializer );
+
+        Source source = new BufferedInputStreamSource( new ByteArrayInputStream( data ) );
+        assertRecords( serializer.<Record> deserializeStream( source ) );
+    }
+
+    @Test
+    public void testStreamFromByteBuffer()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+        byte[] data = writeRecords( serializer );
+
+        assertRecords( serializer.<Record> deserializeStream( new ByteBufferSource( ByteBuffer.wrap( data ) ) ) );
+    }
+
+    @Test
+    public void testReferencesDoNotLeakBetweenRecords()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+
+        Record record = new Record( 1, "shared" );
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( record, new OutputStreamTarget( baos ) );
+        serializer.serialize( record, new OutputStreamTarget( baos ) );
+
+        Iterator<Record> iterator =
+            serializer.deserializeStream( new InputStreamSource( new ByteArrayInputStream( baos.toByteArray() ) ) );
+        Record first = iterator.next();
+        Record second = iterator.next();
+        assertNotSame( first, second );
+        assertEquals( "shared", second.getName() );
+        assertFalse( iterator.hasNext() );
+    }
+
+    @Test
+    public void testEmptySource()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+
+        Iterator<Record> iterator =
+            serializer.deserializeStream( new InputStreamSource( new ByteArrayInputStream( new byte[0] ) ) );
+        assertFalse( iterator.hasNext() );
+    }
+
+    private Serializer buildSerializer()
+    {
+        return Lightning.newBuilder().logger( new DebugLogger() ).serializationStrategy( SerializationStrategy.SizeOptimized ).serializerDefinitions( new RecordSerializerDefinition() ).build();
+    }
+
+    private byte[] writeRecords( Serializer serializer )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Target target = new OutputStreamTarget( baos );
+        for ( int i = 0; i < RECORDS; i++ )
+        {
+            serializer.serialize( new Record( i, "record-" + i ), target );
+        }
+        return baos.toByteArray();
+    }
+
+    private void assertRecords( Iterator<Record> iterator )
+    {
+        int count = 0;
+        while ( iterator.hasNext() )
+        {
+            Record record = iterator.next();
+            assertEquals( count, record.getId() );
+            assertEquals( "record-" + count, record.getName() );
+            count++;
+        }
+        assertEquals( RECORDS, count );
+
+        // Calling hasNext again must not consume anything or fail
+        assertFalse( iterator.hasNext() );
+        try
+        {
+            iterator.next();
+            throw new AssertionError( "NoSuchElementException expected" );
+        }
+        catch ( NoSuchElementException e )
+        {
+            // expected
+        }
+    }
+
+    public static class RecordSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Record.class ).attributes();
+        }
+    }
+
+    public static class Record
+    {
+
+        @Attribute
+        private int id;
+
+        @Attribute
+        private String name;
+
+        public Record()
+        {
+        }
+
+        public Record( int id, String name )
+        {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId()
+        {
+            return id;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+    }
+}
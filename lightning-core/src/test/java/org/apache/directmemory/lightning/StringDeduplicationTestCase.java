@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class StringDeduplicationTestCase
+{
+
+    @Test
+    public void testRepeatedStringsAreWrittenOnce()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new TradesSerializerDefinition() ).build();
+
+        Serializer deduplicatingSerializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).numberEncodingStrategy( NumberEncodingStrategy.Varint ).deduplicateStrings( true ).recycleSerializationContexts( true ).serializerDefinitions( new TradesSerializerDefinition() ).build();
+
+        Trades value = new Trades();
+        value.setCurrency( "EUR" );
+        List<String> tenants = new ArrayList<String>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            tenants.add( new String( "tenant-" + ( i % 3 ) ) );
+        }
+        tenants.add( null );
+        tenants.add( "EUR" );
+        value.setTenants( tenants );
+
+        byte[] data = serialize( serializer, value );
+        byte[] deduplicatedData = serialize( deduplicatingSerializer, value );
+        assertTrue( deduplicatedData.length < data.length / 4 );
+
+        // Recycled contexts must not keep strings of former calls
+        assertEquals( deduplicatedData.length, serialize( deduplicatingSerializer, value ).length );
+
+        Trades result =
+            deduplicatingSerializer.deserialize( new InputStreamSource( new ByteArrayInputStream( deduplicatedData ) ) );
+        assertEquals( value, result );
+        assertSame( result.getTenants().get( 0 ), result.getTenants().get( 3 ) );
+        assertSame( result.getCurrency(), result.getTenants().get( 101 ) );
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    public static class TradesSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Trades.class ).attributes();
+        }
+    }
+
+    public static class Trades
+    {
+
+        @Attribute
+        private String currency;
+
+        @Attribute
+        private List<String> tenants;
+
+        public String getCurrency()
+        {
+            return currency;
+        }
+
+        public void setCurrency( String currency )
+        {
+            this.currency = currency;
+        }
+
+        public List<String> getTenants()
+        {
+            return tenants;
+        }
+
+        public void setTenants( List<String> tenants )
+        {
+            this.tenants = tenants;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ( ( currency == null ) ? 0 : currency.hashCode() );
+            result = prime * result + ( ( tenants == null ) ? 0 : tenants.hashCode() );
+            return result;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            Trades other = (Trades) obj;
+            if ( currency == null ? other.currency != null : !currency.equals( other.currency ) )
+            {
+                return false;
+            }
+            return tenants == null ? other.tenants == null : tenants.equals( other.tenants );
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.base.Latin1StringMarshaller;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.internal.util.UnicodeUtil;
+import org.apache.directmemory.lightning.internal.util.UnsafeUtil;
+import org.apache.directmemory.lightning.io.ByteBufferSource;
+import org.apache.directmemory.lightning.io.ByteBufferTarget;
+import org.apache.directmemory.lightning.io.DirectByteBufferPool;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.io.SegmentedByteBufferSource;
+import org.apache.directmemory.lightning.io.SegmentedByteBufferTarget;
+import org.apache.directmemory.lightning.io.UnsafeMemorySource;
+import org.apache.directmemory.lightning.io.UnsafeMemoryTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class StringEncodingTestCase
+{
+
+    private static final String[] SAMPLES = { "", "Lightning", "Grüße aus Köln", "äöü € 𝄞", "ÿĀ" };
+
+    @Test
+    public void testUTF8Encoding()
+        throws Exception
+    {
+        for ( String sample : SAMPLES )
+        {
+            byte[] expected = sample.getBytes( "UTF-8" );
+            assertEquals( expected.length, UnicodeUtil.UTF8Length( sample ) );
+
+            byte[] data = new byte[expected.length + 2];
+            assertEquals( expected.length, UnicodeUtil.UTF16toUTF8( sample, data, 2 ) );
+            assertEquals( sample, UnicodeUtil.UTF8toUTF16( data, 2, expected.length ) );
+        }
+    }
+
+    @Test
+    @SuppressWarnings( "restriction" )
+    public void testUTF8EncodingInPlace()
+        throws Exception
+    {
+        sun.misc.Unsafe unsafe = UnsafeUtil.getUnsafe();
+        long address = unsafe.allocateMemory( 64 );
+        try
+        {
+            for ( String sample : SAMPLES )
+            {
+                byte[] expected = sample.getBytes( "UTF-8" );
+                int length = UnicodeUtil.UTF8Length( sample );
+
+                for ( ByteBuffer byteBuffer : new ByteBuffer[] { ByteBuffer.allocate( 64 ), ByteBuffer.allocateDirect( 64 ) } )
+                {
+                    byteBuffer.position( 3 );
+                    UnicodeUtil.UTF16toUTF8( sample, length, byteBuffer );
+                    assertEquals( 3 + length, byteBuffer.position() );
+
+                    byte[] actual = new byte[length];
+                    byteBuffer.position( 3 );
+                    byteBuffer.get( actual );
+                    assertArrayEquals( expected, actual );
+
+                    byteBuffer.position( 3 );
+                    assertEquals( sample, UnicodeUtil.UTF8toUTF16( byteBuffer, length ) );
+                    assertEquals( 3 + length, byteBuffer.position() );
+                }
+
+                assertEquals( length, UnicodeUtil.UTF16toUTF8( sample, address ) );
+                assertEquals( sample, UnicodeUtil.UTF8toUTF16( address, length ) );
+            }
+        }
+        finally
+        {
+            unsafe.freeMemory( address );
+        }
+    }
+
+    @Test
+    @SuppressWarnings( "restriction" )
+    public void testUTF8Targets()
+        throws Exception
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeSamples( new OutputStreamTarget( baos ) );
+        byte[] expected = baos.toByteArray();
+
+        for ( ByteBuffer byteBuffer : new ByteBuffer[] { ByteBuffer.allocate( 256 ), ByteBuffer.allocateDirect( 256 ) } )
+        {
+            writeSamples( new ByteBufferTarget( byteBuffer ) );
+            assertEquals( expected.length, byteBuffer.position() );
+
+            byteBuffer.flip();
+            readSamples( new ByteBufferSource( byteBuffer ) );
+        }
+
+        sun.misc.Unsafe unsafe = UnsafeUtil.getUnsafe();
+        long address = unsafe.allocateMemory( 256 );
+        try
+        {
+            UnsafeMemoryTarget target = new UnsafeMemoryTarget( address, 256 );
+            writeSamples( target );
+            assertEquals( expected.length, target.writtenBytes() );
+            readSamples( new UnsafeMemorySource( address, target.writtenBytes() ) );
+        }
+        finally
+        {
+            unsafe.freeMemory( address );
+        }
+
+        // Small segments so some strings fit into a segment and others cross the boundary
+        SegmentedByteBufferTarget target = new SegmentedByteBufferTarget( new DirectByteBufferPool( 13, 16 ) );
+        writeSamples( target );
+        assertEquals( expected.length, target.writtenBytes() );
+        readSamples( new SegmentedByteBufferSource( target.toByteBuffers() ) );
+        target.free();
+    }
+
+    private static void writeSamples( Target target )
+        throws Exception
+    {
+        for ( String sample : SAMPLES )
+        {
+            target.writeString( sample );
+            target.writeUTF8( sample, UnicodeUtil.UTF8Length( sample ) );
+        }
+    }
+
+    private static void readSamples( Source source )
+        throws Exception
+    {
+        for ( String sample : SAMPLES )
+        {
+            assertEquals( sample, source.readString() );
+            assertEquals( sample, source.readUTF8( sample.getBytes( "UTF-8" ).length ) );
+        }
+    }
+
+    @Test
+    public void testLatin1StringMarshaller()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).numberEncodingStrategy( NumberEncodingStrategy.Varint ).serializerDefinitions( new Latin1SerializerDefinition() ).build();
+
+        for ( String sample : SAMPLES )
+        {
+            Names value = new Names();
+            value.setLatin1( sample );
+            value.setUtf8( sample );
+
+            byte[] data = serialize( serializer, value );
+            assertEquals( value, serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) ) );
+        }
+
+        Names value = new Names();
+        value.setLatin1( "Grüße" );
+        value.setUtf8( null );
+
+        // 8 bytes class id, 1 byte bitmap for the utf8 null marker, 1 byte null marker, 1 byte length and 5 characters
+        assertEquals( 8 + 1 + 1 + 1 + 5, serialize( serializer, value ).length );
+
+        value.setLatin1( null );
+        assertEquals( value, serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( serialize( serializer, value ) ) ) ) );
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    public static class Latin1SerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Names.class ).attributes( attribute( "latin1" ).using( Latin1StringMarshaller.class ),
+                                                 attribute( "utf8" ) );
+        }
+    }
+
+    public static class Names
+    {
+
+        @Attribute
+        private String latin1;
+
+        @Attribute
+        private String utf8;
+
+        public String getLatin1()
+        {
+            return latin1;
+        }
+
+        public void setLatin1( String latin1 )
+        {
+            this.latin1 = latin1;
+        }
+
+        public String getUtf8()
+        {
+            return utf8;
+        }
+
+        public void setUtf8( String utf8 )
+        {
+            this.utf8 = utf8;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ( ( latin1 == null ) ? 0 : latin1.hashCode() );
+            result = prime * result + ( ( utf8 == null ) ? 0 : utf8.hashCode() );
+            return result;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            Names other = (Names) obj;
+            if ( latin1 == null ? other.latin1 != null : !latin1.equals( other.latin1 ) )
+            {
+                return false;
+            }
+            return utf8 == null ? other.utf8 == null : utf8.equals( other.utf8 );
+        }
+    }
+}
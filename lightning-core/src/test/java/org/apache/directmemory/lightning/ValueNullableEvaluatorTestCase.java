@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.base.DefaultValueNullableEvaluator;
+import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.apache.directmemory.lightning.metadata.PropertyDescriptor;
+import org.junit.Test;
+
+public class ValueNullableEvaluatorTestCase
+{
+
+    @Test
+    public void testNonNullableAttributesOmitNullMarker()
+        throws Exception
+    {
+        Serializer defaultSerializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new NullableSerializerDefinition() ).build();
+
+        Serializer nonNullSerializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).setValueNullableEvaluator( new NonNullValueNullableEvaluator() ).serializerDefinitions( new NullableSerializerDefinition() ).build();
+
+        Values value = new Values();
+        value.setInlined( 42 );
+        value.setText( "Text" );
+        value.setValues( new ArrayList<String>() );
+        value.getValues().add( "Foo" );
+        value.getValues().add( null );
+        value.setNullable( null );
+
+        byte[] defaultData = serialize( defaultSerializer, value );
+        byte[] nonNullData = serialize( nonNullSerializer, value );
+
+        // All four attributes carry their null marker as a presence bit, declaring three of them non null drops
+        // their bits but the remaining one still needs a full bitmap byte
+        assertEquals( 1, presenceBitmapBytes( 4 ) );
+        assertEquals( 1, presenceBitmapBytes( 1 ) );
+        assertEquals( defaultData.length - presenceBitmapBytes( 4 ) + presenceBitmapBytes( 1 ), nonNullData.length );
+
+        Values result = nonNullSerializer.deserialize( new InputStreamSource( new ByteArrayInputStream( nonNullData ) ) );
+        assertEquals( value, result );
+    }
+
+    @Test( expected = SerializerExecutionException.class )
+    public void testNullValueInNonNullableInlinedAttribute()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).setValueNullableEvaluator( new NonNullValueNullableEvaluator() ).serializerDefinitions( new NullableSerializerDefinition() ).build();
+
+        Values value = new Values();
+        value.setText( "Text" );
+        value.setValues( new ArrayList<String>() );
+
+        serialize( serializer, value );
+    }
+
+    @Test( expected = SerializerExecutionException.class )
+    public void testNullValueInNonNullableAttribute()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).setValueNullableEvaluator( new NonNullValueNullableEvaluator() ).serializerDefinitions( new NullableSerializerDefinition() ).build();
+
+        Values value = new Values();
+        value.setInlined( 1 );
+        value.setValues( new ArrayList<String>() );
+
+        serialize( serializer, value );
+    }
+
+    private static int presenceBitmapBytes( int bits )
+    {
+        return ( bits + 7 ) / 8;
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    @Retention( RetentionPolicy.RUNTIME )
+    @Target( { ElementType.FIELD, ElementType.METHOD } )
+    public static @interface NonNull
+    {
+    }
+
+    public static class NonNullValueNullableEvaluator
+        extends DefaultValueNullableEvaluator
+    {
+
+        @Override
+        public boolean isValueNullable( PropertyDescriptor propertyDescriptor )
+        {
+            for ( Annotation annotation : propertyDescriptor.getAnnotations() )
+            {
+                if ( annotation.annotationType() == NonNull.class )
+                {
+                    return false;
+                }
+            }
+            return super.isValueNullable( propertyDescriptor );
+        }
+    }
+
+    public static class NullableSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Values.class ).attributes();
+        }
+    }
+
+    public static class Values
+    {
+
+        @Attribute
+        @NonNull
+        private Integer inlined;
+
+        @Attribute
+        @NonNull
+        private String text;
+
+        @Attribute
+        @NonNull
+        private List<String> values;
+
+        @Attribute
+        private Long nullable;
+
+        public Integer getInlined()
+        {
+            return inlined;
+        }
+
+        public void setInlined( Integer inlined )
+        {
+            this.inlined = inlined;
+        }
+
+        public String getText()
+        {
+            return text;
+        }
+
+        public void setText( String text )
+        {
+            this.text = text;
+        }
+
+        public List<String> getValues()
+        {
+            return values;
+        }
+
+        public void setValues( List<String> values )
+        {
+            this.values = values;
+        }
+
+        public Long getNullable()
+        {
+            return nullable;
+        }
+
+        public void setNullable( Long nullable )
+        {
+            this.nullable = nullable;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ( ( inlined == null ) ? 0 : inlined.hashCode() );
+            result = prime * result + ( ( text == null ) ? 0 : text.hashCode() );
+            result = prime * result + ( ( values == null ) ? 0 : values.hashCode() );
+            result = prime * result + ( ( nullable == null ) ? 0 : nullable.hashCode() );
+            return result;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            Values other = (Values) obj;
+            if ( inlined == null ? other.inlined != null : !inlined.equals( other.inlined ) )
+            {
+                return false;
+            }
+            if ( text == null ? other.text != null : !text.equals( other.text ) )
+            {
+                return false;
+            }
+            if ( values == null ? other.values != null : !values.equals( other.values ) )
+            {
+                return false;
+            }
+            if ( nullable == null ? other.nullable != null : !nullable.equals( other.nullable ) )
+            {
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.directmemory.lightning.ClassIdStrategy;
+import org.apache.directmemory.lightning.Marshaller;
+import org.apache.directmemory.lightning.NumberEncodingStrategy;
+import org.apache.directmemory.lightning.SerializationStrategy;
+import org.apache.directmemory.lightning.internal.marshaller.ResolvableMarshaller;
+import org.junit.Test;
+
+public class BoundMarshallerCacheTestCase
+{
+
+    @Test
+    public void testBoundMarshallersAreSharedBetweenContexts()
+        throws Exception
+    {
+        ConcurrentMap<Type, Marshaller> boundMarshallers = new ConcurrentHashMap<Type, Marshaller>();
+
+        Type listType = Generics.class.getDeclaredField( "list" ).getGenericType();
+        Type otherListType = Generics.class.getDeclaredField( "otherList" ).getGenericType();
+        Type mapType = Generics.class.getDeclaredField( "map" ).getGenericType();
+
+        InternalSerializationContext first = newSerializationContext( boundMarshallers );
+        InternalSerializationContext second = newSerializationContext( boundMarshallers );
+
+        Marshaller listMarshaller = first.findMarshaller( listType );
+        assertSame( listMarshaller, first.findMarshaller( listType ) );
+        assertSame( listMarshaller, second.findMarshaller( listType ) );
+
+        // Equal generic types from different declarations share the bound marshaller
+        assertSame( listMarshaller, second.findMarshaller( otherListType ) );
+
+        Marshaller mapMarshaller = first.findMarshaller( mapType );
+        assertNotSame( listMarshaller, mapMarshaller );
+        assertSame( mapMarshaller, second.findMarshaller( mapType ) );
+    }
+
+    @Test
+    public void testCachedBoundMarshallersAreResolved()
+        throws Exception
+    {
+        ConcurrentMap<Type, Marshaller> boundMarshallers = new ConcurrentHashMap<Type, Marshaller>();
+        InternalSerializationContext serializationContext = newSerializationContext( boundMarshallers );
+
+        Type listType = Generics.class.getDeclaredField( "list" ).getGenericType();
+        Type mapType = Generics.class.getDeclaredField( "map" ).getGenericType();
+
+        // Already resolved marshallers return themselves, nothing is left to be initialized lazily
+        Marshaller listMarshaller = serializationContext.findMarshaller( listType );
+        assertSame( listMarshaller, ( (ResolvableMarshaller) listMarshaller ).resolve( serializationContext ) );
+
+        Marshaller mapMarshaller = serializationContext.findMarshaller( mapType );
+        assertSame( mapMarshaller, ( (ResolvableMarshaller) mapMarshaller ).resolve( serializationContext ) );
+
+        // Element marshallers were resolved and cached while binding the outer marshallers
+        assertEquals( 4, boundMarshallers.size() );
+    }
+
+    private static InternalSerializationContext newSerializationContext( ConcurrentMap<Type, Marshaller> boundMarshallers )
+    {
+        return new InternalSerializationContext( null, SerializationStrategy.SpeedOptimized, ClassIdStrategy.Checksum,
+                                                 NumberEncodingStrategy.Fixed, false, new InternalMarshallerStrategy(), null,
+                                                 null, new HashMap<Type, Marshaller>(), boundMarshallers );
+    }
+
+    public static class Generics
+    {
+
+        List<List<String>> list;
+
+        List<List<String>> otherList;
+
+        Map<String, List<Integer>> map;
+    }
+}
@@ -18,12 +18,19 @@
  */
 package org.apache.directmemory.lightning.internal;
 
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.directmemory.lightning.internal.InternalClassDefinition;
 import org.apache.directmemory.lightning.internal.InternalClassDefinitionContainer;
+import org.apache.directmemory.lightning.internal.util.ClassUtil;
 import org.apache.directmemory.lightning.logging.NoOpLogger;
 import org.apache.directmemory.lightning.metadata.ClassDefinition;
 import org.apache.directmemory.lightning.metadata.ClassDefinitionContainer;
@@ -56,4 +63,32 @@ public class ClassDefinitionContainerTestCase
             Class<?> clazz = null;
         }
     }
+
+    @Test
+    public void testClassDefinitionLookups()
+        throws Exception
+    {
+        final Set<ClassDefinition> classDefinitions =
+            new HashSet<ClassDefinition>( Arrays.asList( ClassUtil.CLASS_DESCRIPTORS ) );
+        ClassDefinition classVisitorDefinition =
+            new InternalClassDefinition( ClassVisitor.class, Collections.<PropertyDescriptor> emptyList(),
+                                         new NoOpLogger() );
+        classDefinitions.add( classVisitorDefinition );
+
+        ClassDefinitionContainer classDefinitionContainer = new InternalClassDefinitionContainer( classDefinitions );
+
+        assertSame( classVisitorDefinition, classDefinitionContainer.getClassDefinitionByType( ClassVisitor.class ) );
+        assertSame( classVisitorDefinition,
+                    classDefinitionContainer.getClassDefinitionByCanonicalName( ClassVisitor.class.getCanonicalName() ) );
+        assertSame( classVisitorDefinition,
+                    classDefinitionContainer.getClassDefinitionById( classVisitorDefinition.getId() ) );
+
+        // Implementations resolve to the collection type, repeated to hit the resolved type mapping
+        ClassDefinition listDefinition = classDefinitionContainer.getClassDefinitionByType( List.class );
+        assertSame( listDefinition, classDefinitionContainer.getClassDefinitionByType( ArrayList.class ) );
+        assertSame( listDefinition, classDefinitionContainer.getClassDefinitionByType( ArrayList.class ) );
+
+        assertNull( classDefinitionContainer.getClassDefinitionByType( ClassDefinitionContainerTestCase.class ) );
+        assertNull( classDefinitionContainer.getClassDefinitionByCanonicalName( "does.not.Exist" ) );
+    }
 }
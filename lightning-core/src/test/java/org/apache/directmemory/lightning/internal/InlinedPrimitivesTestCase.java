@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.apache.directmemory.lightning.Lightning;
+import org.apache.directmemory.lightning.Marshaller;
+import org.apache.directmemory.lightning.NumberEncodingStrategy;
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.internal.generator.AbstractGeneratedMarshaller;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class InlinedPrimitivesTestCase
+{
+
+    @Test
+    public void testGeneratedMarshallerIsUsed()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new PrimitivesSerializerDefinition() ).build();
+
+        Marshaller marshaller = ( (InternalSerializer) serializer ).findClassDescriptor( Primitives.class ).getMarshaller();
+        assertTrue( marshaller instanceof AbstractGeneratedMarshaller );
+    }
+
+    @Test
+    public void testExtremeValues()
+        throws Exception
+    {
+        for ( NumberEncodingStrategy numberEncodingStrategy : NumberEncodingStrategy.values() )
+        {
+            Serializer serializer =
+                Lightning.newBuilder().logger( new DebugLogger() ).numberEncodingStrategy( numberEncodingStrategy ).serializerDefinitions( new PrimitivesSerializerDefinition() ).build();
+
+            assertRoundTrip( serializer, minValues() );
+            assertRoundTrip( serializer, maxValues() );
+            assertRoundTrip( serializer, specialValues() );
+            assertRoundTrip( serializer, new Primitives() );
+        }
+    }
+
+    @Test
+    public void testNullWrappers()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).numberEncodingStrategy( NumberEncodingStrategy.Fixed ).serializerDefinitions( new PrimitivesSerializerDefinition() ).build();
+
+        // 8 bytes class id, 2 bytes bitmap (8 wrapper null bits, boolean and Boolean value bits) and 29 bytes for the
+        // remaining primitives
+        Primitives value = new Primitives();
+        assertEquals( 8 + 2 + 29, assertRoundTrip( serializer, value ) );
+
+        // Wrappers take the same 29 bytes as their primitives
+        value = maxValues();
+        assertEquals( 8 + 2 + 29 + 29, assertRoundTrip( serializer, value ) );
+
+        // Mixed null and non null wrappers
+        value.setBooleanWrapper( null );
+        value.setShortWrapper( null );
+        value.setIntWrapper( null );
+        value.setFloatWrapper( null );
+        assertEquals( 8 + 2 + 29 + 1 + 2 + 8 + 8, assertRoundTrip( serializer, value ) );
+
+        value = minValues();
+        value.setByteWrapper( null );
+        value.setCharWrapper( null );
+        value.setLongWrapper( null );
+        value.setDoubleWrapper( null );
+        assertEquals( 8 + 2 + 29 + 2 + 4 + 4, assertRoundTrip( serializer, value ) );
+    }
+
+    private static int assertRoundTrip( Serializer serializer, Primitives value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        byte[] data = baos.toByteArray();
+
+        Primitives result = serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+        assertEquals( value, result );
+        return data.length;
+    }
+
+    private static Primitives minValues()
+    {
+        Primitives value = new Primitives();
+        value.setBooleanValue( false );
+        value.setByteValue( Byte.MIN_VALUE );
+        value.setShortValue( Short.MIN_VALUE );
+        value.setCharValue( Character.MIN_VALUE );
+        value.setIntValue( Integer.MIN_VALUE );
+        value.setLongValue( Long.MIN_VALUE );
+        value.setFloatValue( -Float.MAX_VALUE );
+        value.setDoubleValue( -Double.MAX_VALUE );
+        value.setBooleanWrapper( Boolean.FALSE );
+        value.setByteWrapper( Byte.MIN_VALUE );
+        value.setShortWrapper( Short.MIN_VALUE );
+        value.setCharWrapper( Character.MIN_VALUE );
+        value.setIntWrapper( Integer.MIN_VALUE );
+        value.setLongWrapper( Long.MIN_VALUE );
+        value.setFloatWrapper( Float.MIN_VALUE );
+        value.setDoubleWrapper( Double.MIN_VALUE );
+        return value;
+    }
+
+    private static Primitives maxValues()
+    {
+        Primitives value = new Primitives();
+        value.setBooleanValue( true );
+        value.setByteValue( Byte.MAX_VALUE );
+        value.setShortValue( Short.MAX_VALUE );
+        value.setCharValue( Character.MAX_VALUE );
+        value.setIntValue( Integer.MAX_VALUE );
+        value.setLongValue( Long.MAX_VALUE );
+        value.setFloatValue( Float.MAX_VALUE );
+        value.setDoubleValue( Double.MAX_VALUE );
+        value.setBooleanWrapper( Boolean.TRUE );
+        value.setByteWrapper( Byte.MAX_VALUE );
+        value.setShortWrapper( Short.MAX_VALUE );
+        value.setCharWrapper( Character.MAX_VALUE );
+        value.setIntWrapper( Integer.MAX_VALUE );
+        value.setLongWrapper( Long.MAX_VALUE );
+        value.setFloatWrapper( Float.MAX_VALUE );
+        value.setDoubleWrapper( Double.MAX_VALUE );
+        return value;
+    }
+
+    private static Primitives specialValues()
+    {
+        Primitives value = new Primitives();
+        value.setBooleanValue( true );
+        value.setByteValue( (byte) -1 );
+        value.setShortValue( (short) -1 );
+        value.setCharValue( '€' );
+        value.setIntValue( -1 );
+        value.setLongValue( -1L );
+        value.setFloatValue( Float.NaN );
+        value.setDoubleValue( Double.NaN );
+        value.setBooleanWrapper( Boolean.FALSE );
+        value.setByteWrapper( (byte) 0 );
+        value.setShortWrapper( (short) 0 );
+        value.setCharWrapper( '\u0000' );
+        value.setIntWrapper( 0 );
+        value.setLongWrapper( 0L );
+        value.setFloatWrapper( Float.NEGATIVE_INFINITY );
+        value.setDoubleWrapper( Double.POSITIVE_INFINITY );
+        return value;
+    }
+
+    public static class PrimitivesSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Primitives.class ).attributes();
+        }
+    }
+
+    public static class Primitives
+    {
+
+        @Attribute
+        private boolean booleanValue;
+
+        @Attribute
+        private byte byteValue;
+
+        @Attribute
+        private short shortValue;
+
+        @Attribute
+        private char charValue;
+
+        @Attribute
+        private int intValue;
+
+        @Attribute
+        private long longValue;
+
+        @Attribute
+        private float floatValue;
+
+        @Attribute
+        private double doubleValue;
+
+        @Attribute
+        private Boolean booleanWrapper;
+
+        @Attribute
+        private Byte byteWrapper;
+
+        @Attribute
+        private Short shortWrapper;
+
+        @Attribute
+        private Character charWrapper;
+
+        @Attribute
+        private Integer intWrapper;
+
+        @Attribute
+        private Long longWrapper;
+
+        @Attribute
+        private Float floatWrapper;
+
+        @Attribute
+        private Double doubleWrapper;
+
+        public boolean isBooleanValue()
+        {
+            return booleanValue;
+        }
+
+        public void setBooleanValue( boolean booleanValue )
+        {
+            this.booleanValue = booleanValue;
+        }
+
+        public byte getByteValue()
+        {
+            return byteValue;
+        }
+
+        public void setByteValue( byte byteValue )
+        {
+            this.byteValue = byteValue;
+        }
+
+        public short getShortValue()
+        {
+            return shortValue;
+        }
+
+        public void setShortValue( short shortValue )
+        {
+            this.shortValue = shortValue;
+        }
+
+        public char getCharValue()
+        {
+            return charValue;
+        }
+
+        public void setCharValue( char charValue )
+        {
+            this.charValue = charValue;
+        }
+
+        public int getIntValue()
+        {
+            return intValue;
+        }
+
+        public void setIntValue( int intValue )
+        {
+            this.intValue = intValue;
+        }
+
+        public long getLongValue()
+        {
+            return longValue;
+        }
+
+        public void setLongValue( long longValue )
+        {
+            this.longValue = longValue;
+        }
+
+        public float getFloatValue()
+        {
+            return floatValue;
+        }
+
+        public void setFloatValue( float floatValue )
+        {
+            this.floatValue = floatValue;
+        }
+
+        public double getDoubleValue()
+        {
+            return doubleValue;
+        }
+
+        public void setDoubleValue( double doubleValue )
+        {
+            this.doubleValue = doubleValue;
+        }
+
+        public Boolean getBooleanWrapper()
+        {
+            return booleanWrapper;
+        }
+
+        public void setBooleanWrapper( Boolean booleanWrapper )
+        {
+            this.booleanWrapper = booleanWrapper;
+        }
+
+        public Byte getByteWrapper()
+        {
+            return byteWrapper;
+        }
+
+        public void setByteWrapper( Byte byteWrapper )
+        {
+            this.byteWrapper = byteWrapper;
+        }
+
+        public Short getShortWrapper()
+        {
+            return shortWrapper;
+        }
+
+        public void setShortWrapper( Short shortWrapper )
+        {
+            this.shortWrapper = shortWrapper;
+        }
+
+        public Character getCharWrapper()
+        {
+            return charWrapper;
+        }
+
+        public void setCharWrapper( Character charWrapper )
+        {
+            this.charWrapper = charWrapper;
+        }
+
+        public Integer getIntWrapper()
+        {
+            return intWrapper;
+        }
+
+        public void setIntWrapper( Integer intWrapper )
+        {
+            this.intWrapper = intWrapper;
+        }
+
+        public Long getLongWrapper()
+        {
+            return longWrapper;
+        }
+
+        public void setLongWrapper( Long longWrapper )
+        {
+            this.longWrapper = longWrapper;
+        }
+
+        public Float getFloatWrapper()
+        {
+            return floatWrapper;
+        }
+
+        public void setFloatWrapper( Float floatWrapper )
+        {
+            this.floatWrapper = floatWrapper;
+        }
+
+        public Double getDoubleWrapper()
+        {
+            return doubleWrapper;
+        }
+
+        public void setDoubleWrapper( Double doubleWrapper )
+        {
+            this.doubleWrapper = doubleWrapper;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ( booleanValue ? 1231 : 1237 );
+            result = prime * result + byteValue;
+            result = prime * result + shortValue;
+            result = prime * result + charValue;
+            result = prime * result + intValue;
+            result = prime * result + (int) ( longValue ^ ( longValue >>> 32 ) );
+            result = prime * result + Float.floatToIntBits( floatValue );
+            long temp = Double.doubleToLongBits( doubleValue );
+            result = prime * result + (int) ( temp ^ ( temp >>> 32 ) );
+            result = prime * result + ( ( booleanWrapper == null ) ? 0 : booleanWrapper.hashCode() );
+            result = prime * result + ( ( byteWrapper == null ) ? 0 : byteWrapper.hashCode() );
+            result = prime * result + ( ( shortWrapper == null ) ? 0 : shortWrapper.hashCode() );
+            result = prime * result + ( ( charWrapper == null ) ? 0 : charWrapper.hashCode() );
+            result = prime * result + ( ( intWrapper == null ) ? 0 : intWrapper.hashCode() );
+            result = prime * result + ( ( longWrapper == null ) ? 0 : longWrapper.hashCode() );
+            result = prime * result + ( ( floatWrapper == null ) ? 0 : floatWrapper.hashCode() );
+            result = prime * result + ( ( doubleWrapper == null ) ? 0 : doubleWrapper.hashCode() );
+            return result;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            Primitives other = (Primitives) obj;
+            // Float and Double compare NaN as equal to itself
+            return booleanValue == other.booleanValue && byteValue == other.byteValue
+                && shortValue == other.shortValue && charValue == other.charValue && intValue == other.intValue
+                && longValue == other.longValue && Float.compare( floatValue, other.floatValue ) == 0
+                && Double.compare( doubleValue, other.doubleValue ) == 0
+                && equal( booleanWrapper, other.booleanWrapper ) && equal( byteWrapper, other.byteWrapper )
+                && equal( shortWrapper, other.shortWrapper ) && equal( charWrapper, other.charWrapper )
+                && equal( intWrapper, other.intWrapper ) && equal( longWrapper, other.longWrapper )
+                && equal( floatWrapper, other.floatWrapper ) && equal( doubleWrapper, other.doubleWrapper );
+        }
+
+        private static boolean equal( Object value, Object other )
+        {
+            return value == null ? other == null : value.equals( other );
+        }
+    }
+}
@@ -18,16 +18,100 @@
  */
 package org.apache.directmemory.lightning.internal.beans;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 
+import org.apache.directmemory.lightning.Lightning;
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
 import org.apache.directmemory.lightning.internal.beans.SunUnsafePropertyAccessorFactory;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.internal.util.UnsafeUtil;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
 import org.apache.directmemory.lightning.metadata.ArrayPropertyAccessor;
+import org.apache.directmemory.lightning.metadata.PropertyAccessor;
+import org.apache.directmemory.lightning.metadata.ValuePropertyAccessor;
 import org.junit.Test;
 
 public class UnsafePropertyAccessorTestCase
 {
 
+    @Test
+    @SuppressWarnings( "restriction" )
+    public void testUnsafeValueFieldOffset()
+        throws Exception
+    {
+        class IntValueTest
+        {
+
+            private int value;
+        }
+
+        Field field = IntValueTest.class.getDeclaredField( "value" );
+        PropertyAccessor propertyAccessor =
+            new SunUnsafePropertyAccessorFactory().fieldAccess( field, IntValueTest.class );
+
+        assertTrue( propertyAccessor instanceof FieldOffsetAwarePropertyAccessor );
+        long offset = ( (FieldOffsetAwarePropertyAccessor) propertyAccessor ).getFieldOffset();
+        assertEquals( UnsafeUtil.getUnsafe().objectFieldOffset( field ), offset );
+
+        IntValueTest test = new IntValueTest();
+        ( (ValuePropertyAccessor) propertyAccessor ).writeInt( test, 42 );
+        assertEquals( 42, UnsafeUtil.getUnsafe().getInt( test, offset ) );
+    }
+
+    @Test
+    public void testGeneratedMarshallerFieldOffsets()
+        throws Exception
+    {
+        // Private final and inherited non array fields are read and written by inlined Unsafe accesses
+        for ( Class<?> type : new Class<?>[] { FinalFieldsTest.class, FinalFieldsParent.class } )
+        {
+            for ( Field field : type.getDeclaredFields() )
+            {
+                if ( field.isAnnotationPresent( Attribute.class ) && !field.getType().isArray() )
+                {
+                    PropertyAccessor propertyAccessor =
+                        new SunUnsafePropertyAccessorFactory().fieldAccess( field, FinalFieldsTest.class );
+                    assertTrue( propertyAccessor instanceof FieldOffsetAwarePropertyAccessor );
+                }
+            }
+        }
+
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new FinalFieldsSerializerDefinition() ).build();
+
+        FinalFieldsTest value =
+            new FinalFieldsTest( Long.MIN_VALUE, "Parent", 7, true, (byte) -2, (short) 300, 'x', Integer.MAX_VALUE,
+                                 Float.NaN, -0.5d, "Child", new int[] { 1, 2, 3 } );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        FinalFieldsTest result =
+            serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( baos.toByteArray() ) ) );
+
+        assertEquals( Long.MIN_VALUE, result.getParentId() );
+        assertEquals( "Parent", result.getParentName() );
+        assertEquals( 7, result.getParentValue() );
+        assertEquals( true, result.isFlag() );
+        assertEquals( (byte) -2, result.getByteValue() );
+        assertEquals( (short) 300, result.getShortValue() );
+        assertEquals( 'x', result.getCharValue() );
+        assertEquals( Integer.MAX_VALUE, result.getIntValue() );
+        assertTrue( Float.isNaN( result.getFloatValue() ) );
+        assertEquals( -0.5d, result.getDoubleValue(), 0d );
+        assertEquals( "Child", result.getText() );
+        assertTrue( Arrays.equals( new int[] { 1, 2, 3 }, result.getValues() ) );
+    }
+
     @Test
     public void testUnsafeBooleanArray()
         throws Exception
@@ -267,4 +351,143 @@ public class UnsafePropertyAccessorTestCase
 
         Arrays.equals( test.array, result.array );
     }
+
+    public static class FinalFieldsSerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( FinalFieldsTest.class ).attributes();
+        }
+    }
+
+    public static class FinalFieldsParent
+    {
+
+        @Attribute
+        private final long parentId;
+
+        @Attribute
+        private String parentName;
+
+        @Attribute
+        private final int parentValue;
+
+        public FinalFieldsParent( long parentId, String parentName, int parentValue )
+        {
+            this.parentId = parentId;
+            this.parentName = parentName;
+            this.parentValue = parentValue;
+        }
+
+        public long getParentId()
+        {
+            return parentId;
+        }
+
+        public String getParentName()
+        {
+            return parentName;
+        }
+
+        public int getParentValue()
+        {
+            return parentValue;
+        }
+    }
+
+    public static class FinalFieldsTest
+        extends FinalFieldsParent
+    {
+
+        @Attribute
+        private final boolean flag;
+
+        @Attribute
+        private final byte byteValue;
+
+        @Attribute
+        private final short shortValue;
+
+        @Attribute
+        private final char charValue;
+
+        @Attribute
+        private final int intValue;
+
+        @Attribute
+        private final float floatValue;
+
+        @Attribute
+        private final double doubleValue;
+
+        @Attribute
+        private final String text;
+
+        @Attribute
+        private final int[] values;
+
+        public FinalFieldsTest( long parentId, String parentName, int parentValue, boolean flag, byte byteValue,
+                                short shortValue, char charValue, int intValue, float floatValue, double doubleValue,
+                                String text, int[] values )
+        {
+            super( parentId, parentName, parentValue );
+            this.flag = flag;
+            this.byteValue = byteValue;
+            this.shortValue = shortValue;
+            this.charValue = charValue;
+            this.intValue = intValue;
+            this.floatValue = floatValue;
+            this.doubleValue = doubleValue;
+            this.text = text;
+            this.values = values;
+        }
+
+        public boolean isFlag()
+        {
+            return flag;
+        }
+
+        public byte getByteValue()
+        {
+            return byteValue;
+        }
+
+        public short getShortValue()
+        {
+            return shortValue;
+        }
+
+        public char getCharValue()
+        {
+            return charValue;
+        }
+
+        public int getIntValue()
+        {
+            return intValue;
+        }
+
+        public float getFloatValue()
+        {
+            return floatValue;
+        }
+
+        public double getDoubleValue()
+        {
+            return doubleValue;
+        }
+
+        public String getText()
+        {
+            return text;
+        }
+
+        public int[] getValues()
+        {
+            return values;
+        }
+    }
 }
@@ -106,6 +106,47 @@ public class BigDecimalMarshallerTestCase
         assertEquals( value, result );
     }
 
+    @Test
+    public void testBigDecimalScalesAndMagnitudes()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new AbstractSerializerDefinition()
+                                                                                                                                  {
+
+                                                                                                                                      @Override
+                                                                                                                                      protected void configure()
+                                                                                                                                      {
+                                                                                                                                          serialize(
+                                                                                                                                                     BigDecimalHolder.class ).attributes();
+                                                                                                                                      }
+                                                                                                                                  } ).build();
+
+        BigDecimal[] values =
+            { BigDecimal.ZERO, new BigDecimal( "-0.00" ), new BigDecimal( "1E+12" ), new BigDecimal( "123.4500" ),
+                BigDecimal.valueOf( Long.MIN_VALUE, 4 ), BigDecimal.valueOf( Long.MAX_VALUE, -3 ),
+                new BigDecimal( "-98765432109876543210987654321.0123456789" ) };
+
+        for ( BigDecimal decimal : values )
+        {
+            BigDecimalHolder value = new BigDecimalHolder();
+            value.setValue1( decimal );
+            value.setValue2( decimal.negate() );
+            value.setValue3( null );
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            OutputStreamTarget target = new OutputStreamTarget( baos );
+            serializer.serialize( value, target );
+
+            ByteArrayInputStream bais = new ByteArrayInputStream( baos.toByteArray() );
+            InputStreamSource source = new InputStreamSource( bais );
+            Object result = serializer.deserialize( source );
+
+            // equals() compares scales as well
+            assertEquals( value, result );
+        }
+    }
+
     public static class BigDecimalHolder
     {
 
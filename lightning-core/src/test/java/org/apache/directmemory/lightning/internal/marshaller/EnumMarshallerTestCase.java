@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.internal.marshaller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.Lightning;
+import org.apache.directmemory.lightning.Marshaller;
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.internal.InternalMarshallerStrategy;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.io.InputStreamSource;
+import org.apache.directmemory.lightning.io.OutputStreamTarget;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class EnumMarshallerTestCase
+{
+
+    @Test
+    public void testEnumMarshallerIsNotShared()
+        throws Exception
+    {
+        // The enum constants cache must not be held by the static base marshallers
+        Marshaller first = new InternalMarshallerStrategy().getMarshaller( Color.class, null );
+        Marshaller second = new InternalMarshallerStrategy().getMarshaller( Color.class, null );
+
+        assertTrue( first instanceof EnumMarshaller );
+        assertNotSame( first, second );
+        for ( Marshaller baseMarshaller : InternalMarshallerStrategy.baseMarshaller )
+        {
+            assertNotSame( baseMarshaller, first );
+        }
+    }
+
+    @Test
+    public void testEnumAttributes()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new AbstractSerializerDefinition()
+                                                                                                                                  {
+
+                                                                                                                                      @Override
+                                                                                                                                      protected void configure()
+                                                                                                                                      {
+                                                                                                                                          serialize(
+                                                                                                                                                     EnumHolder.class ).attributes();
+                                                                                                                                      }
+                                                                                                                                  } ).build();
+
+        List<Operation> operations = new ArrayList<Operation>();
+        operations.add( Operation.MINUS );
+        operations.add( null );
+        operations.add( Operation.PLUS );
+
+        EnumHolder value = new EnumHolder();
+        value.setColor1( Color.BLUE );
+        value.setColor2( null );
+        value.setOperations( operations );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStreamTarget target = new OutputStreamTarget( baos );
+        serializer.serialize( value, target );
+
+        ByteArrayInputStream bais = new ByteArrayInputStream( baos.toByteArray() );
+        InputStreamSource source = new InputStreamSource( bais );
+        Object result = serializer.deserialize( source );
+
+        assertNotNull( result );
+        assertEquals( value, result );
+    }
+
+    @Test
+    public void testEnumWritesSingleByteOrdinal()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new AbstractSerializerDefinition()
+                                                                                                                                  {
+
+                                                                                                                                      @Override
+                                                                                                                                      protected void configure()
+                                                                                                                                      {
+                                                                                                                                          serialize(
+                                                                                                                                                     ColorHolder.class ).attributes();
+                                                                                                                                      }
+                                                                                                                                  } ).build();
+
+        ColorHolder value = new ColorHolder();
+        value.setColor( Color.GREEN );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStreamTarget target = new OutputStreamTarget( baos );
+        serializer.serialize( value, target );
+
+        // Class id, presence bitmap and the ordinal, the enum's own class id is not written
+        assertEquals( 8 + 1 + 1, baos.size() );
+
+        ByteArrayInputStream bais = new ByteArrayInputStream( baos.toByteArray() );
+        InputStreamSource source = new InputStreamSource( bais );
+        ColorHolder result = serializer.deserialize( source );
+
+        assertEquals( Color.GREEN, result.getColor() );
+    }
+
+    public static enum Color
+    {
+        RED, GREEN, BLUE
+    }
+
+    public static enum Operation
+    {
+        PLUS
+        {
+
+            @Override
+            public int apply( int a, int b )
+            {
+                return a + b;
+            }
+        },
+        MINUS
+        {
+
+            @Override
+            public int apply( int a, int b )
+            {
+                return a - b;
+            }
+        };
+
+        public abstract int apply( int a, int b );
+    }
+
+    public static class ColorHolder
+    {
+
+        @Attribute
+        private Color color;
+
+        public Color getColor()
+        {
+            return color;
+        }
+
+        public void setColor( Color color )
+        {
+            this.color = color;
+        }
+    }
+
+    public static class EnumHolder
+    {
+
+        @Attribute
+        private Color color1;
+
+        @Attribute
+        private Color color2;
+
+        @Attribute
+        private List<Operation> operations;
+
+        public Color getColor1()
+        {
+            return color1;
+        }
+
+        public void setColor1( Color color1 )
+        {
+            this.color1 = color1;
+        }
+
+        public Color getColor2()
+        {
+            return color2;
+        }
+
+        public void setColor2( Color color2 )
+        {
+            this.color2 = color2;
+        }
+
+        public List<Operation> getOperations()
+        {
+            return operations;
+        }
+
+        public void setOperations( List<Operation> operations )
+        {
+            this.operations = operations;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ( ( color1 == null ) ? 0 : color1.hashCode() );
+            result = prime * result + ( ( color2 == null ) ? 0 : color2.hashCode() );
+            result = prime * result + ( ( operations == null ) ? 0 : operations.hashCode() );
+            return result;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+            EnumHolder other = (EnumHolder) obj;
+            if ( color1 != other.color1 || color2 != other.color2 )
+            {
+                return false;
+            }
+            return operations == null ? other.operations == null : operations.equals( other.operations );
+        }
+    }
+}
@@ -163,6 +163,57 @@ public class ListMarshallerTestCase
         assertEquals( value, result );
     }
 
+    @Test
+    @SuppressWarnings( { "rawtypes", "unchecked" } )
+    public void testElementClassIdsAreWrittenOncePerList()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializerDefinitions( new AbstractSerializerDefinition()
+            {
+
+                @Override
+                protected void configure()
+                {
+                    serialize( NoGenericTypeList.class ).attributes();
+                    serialize( SimpleGenericTypeList.class ).attributes();
+                }
+            } ).build();
+
+        List<String> list = new ArrayList<String>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            list.add( i % 10 == 0 ? null : "Value" + i );
+        }
+
+        NoGenericTypeList noGeneric = new NoGenericTypeList();
+        noGeneric.setList( new ArrayList( list ) );
+
+        SimpleGenericTypeList simpleGeneric = new SimpleGenericTypeList();
+        simpleGeneric.setList( list );
+
+        byte[] noGenericData = serialize( serializer, noGeneric );
+        byte[] simpleGenericData = serialize( serializer, simpleGeneric );
+
+        // Homogeneous untyped lists write a flag and the class id once, typed lists don't need any class id
+        assertEquals( simpleGenericData.length + 1 + 8, noGenericData.length );
+
+        assertEquals( noGeneric, deserialize( serializer, noGenericData ) );
+        assertEquals( simpleGeneric, deserialize( serializer, simpleGenericData ) );
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    private static Object deserialize( Serializer serializer, byte[] data )
+    {
+        return serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+    }
+
     @SuppressWarnings( "rawtypes" )
     public static class NoGenericTypeList
     {
@@ -164,6 +164,57 @@ public class MapMarshallerTestCase
         assertEquals( value, result );
     }
 
+    @Test
+    @SuppressWarnings( { "rawtypes", "unchecked" } )
+    public void testKeyAndValueClassIdsAreWrittenOncePerMap()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).serializerDefinitions( new AbstractSerializerDefinition()
+            {
+
+                @Override
+                protected void configure()
+                {
+                    serialize( NoGenericTypeMap.class ).attributes();
+                    serialize( SimpleGenericTypeMap.class ).attributes();
+                }
+            } ).build();
+
+        Map<String, Integer> map = new HashMap<String, Integer>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            map.put( "Key" + i, i % 10 == 0 ? null : Integer.valueOf( i ) );
+        }
+
+        NoGenericTypeMap noGeneric = new NoGenericTypeMap();
+        noGeneric.setMap( new HashMap( map ) );
+
+        SimpleGenericTypeMap simpleGeneric = new SimpleGenericTypeMap();
+        simpleGeneric.setMap( map );
+
+        byte[] noGenericData = serialize( serializer, noGeneric );
+        byte[] simpleGenericData = serialize( serializer, simpleGeneric );
+
+        // Homogeneous untyped maps write two flags and two class ids, typed maps don't need any class id
+        assertEquals( simpleGenericData.length + 2 * ( 1 + 8 ), noGenericData.length );
+
+        assertEquals( noGeneric, deserialize( serializer, noGenericData ) );
+        assertEquals( simpleGeneric, deserialize( serializer, simpleGenericData ) );
+    }
+
+    private static byte[] serialize( Serializer serializer, Object value )
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+        return baos.toByteArray();
+    }
+
+    private static Object deserialize( Serializer serializer, byte[] data )
+    {
+        return serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( data ) ) );
+    }
+
     @SuppressWarnings( "rawtypes" )
     public static class NoGenericTypeMap
     {
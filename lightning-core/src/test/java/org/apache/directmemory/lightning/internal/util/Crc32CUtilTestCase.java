@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.internal.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class Crc32CUtilTestCase
+{
+
+    @Test
+    public void testCheckValues()
+        throws Exception
+    {
+        // Standard check value of CRC32C
+        byte[] data = "123456789".getBytes( "US-ASCII" );
+        assertEquals( 0xE3069283, Crc32CUtil.checksum( data, 0, data.length ) );
+
+        // RFC 3720 test vector, 32 bytes of zeros
+        assertEquals( 0x8A9136AA, Crc32CUtil.checksum( new byte[32], 0, 32 ) );
+
+        assertEquals( 0, Crc32CUtil.checksum( data, 3, 0 ) );
+    }
+}
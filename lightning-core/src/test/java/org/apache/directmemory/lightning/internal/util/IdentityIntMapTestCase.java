@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.internal.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class IdentityIntMapTestCase
+{
+
+    @Test
+    public void testIdentityKeys()
+        throws Exception
+    {
+        IdentityIntMap map = new IdentityIntMap( 2 );
+
+        // Equal but not identical keys are different entries
+        String[] keys = new String[1000];
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            keys[i] = new String( "key" );
+            map.put( keys[i], i );
+        }
+
+        assertEquals( keys.length, map.size() );
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            assertEquals( i, map.get( keys[i] ) );
+        }
+        assertEquals( -1, map.get( "key" ) );
+
+        map.put( keys[10], 42 );
+        assertEquals( 42, map.get( keys[10] ) );
+        assertEquals( keys.length, map.size() );
+
+        map.clear();
+        assertEquals( 0, map.size() );
+        assertEquals( -1, map.get( keys[10] ) );
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+
+import org.apache.directmemory.lightning.Lightning;
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.internal.marshaller.BigDecimalMarshallerTestCase.BigDecimalHolder;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.junit.Test;
+
+public class BufferedInputStreamSourceTestCase
+{
+
+    private static final String LONG_STRING;
+
+    static
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 200; i++ )
+        {
+            sb.append( "ö" ).append( i );
+        }
+        LONG_STRING = sb.toString();
+    }
+
+    @Test
+    public void testReadValues()
+        throws Exception
+    {
+        for ( ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN } )
+        {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            writeValues( new OutputStreamTarget( baos, byteOrder ) );
+            byte[] data = baos.toByteArray();
+
+            for ( int bufferSize : new int[] { 8, 13, BufferedInputStreamSource.DEFAULT_BUFFER_SIZE } )
+            {
+                readValues( new BufferedInputStreamSource( new TricklingInputStream( data ), byteOrder, bufferSize ) );
+            }
+            readValues( new InputStreamSource( new TricklingInputStream( data ), byteOrder ) );
+        }
+    }
+
+    @Test
+    public void testSerializerRoundTrip()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new AbstractSerializerDefinition()
+            {
+
+                @Override
+                protected void configure()
+                {
+                    serialize( BigDecimalHolder.class ).attributes();
+                }
+            } ).build();
+
+        BigDecimalHolder value = new BigDecimalHolder();
+        value.setValue1( new BigDecimal( "123456789012345678901234567890.123456789" ) );
+        value.setValue3( new BigDecimal( "-0.000000000000000000000000000001" ) );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize( value, new OutputStreamTarget( baos ) );
+
+        Source source = new BufferedInputStreamSource( new TricklingInputStream( baos.toByteArray() ) );
+        Object result = serializer.deserialize( source );
+        assertEquals( value, result );
+    }
+
+    @Test( expected = EOFException.class )
+    public void testEndOfStream()
+        throws Exception
+    {
+        Source source =
+            new BufferedInputStreamSource( new ByteArrayInputStream( new byte[] { 1, 2, 3 } ), ByteOrder.BIG_ENDIAN, 8 );
+        source.readInt();
+    }
+
+    @Test( expected = EOFException.class )
+    public void testEndOfStreamReadingBytes()
+        throws Exception
+    {
+        Source source = new InputStreamSource( new TricklingInputStream( new byte[] { 1, 2, 3 } ) );
+        source.readBytes( new byte[4] );
+    }
+
+    private void writeValues( Target target )
+        throws Exception
+    {
+        target.writeBoolean( true );
+        target.writeByte( (byte) -12 );
+        target.writeUnsignedByte( (short) 200 );
+        target.writeShort( (short) -1234 );
+        target.writeChar( 'ä' );
+        target.writeInt( 0x12345678 );
+        target.writeLong( 0x123456789ABCDEF0L );
+        target.writeFloat( 1.5f );
+        target.writeDouble( -2.25d );
+        target.writeString( "Lightning" );
+        target.writeString( LONG_STRING );
+        target.writeBytes( bytes( 100 ) );
+        target.writeBytes( bytes( 5 ) );
+        target.writeString( "äöü € 𝄞" );
+    }
+
+    private void readValues( Source source )
+        throws Exception
+    {
+        assertEquals( true, source.readBoolean() );
+        assertEquals( (byte) -12, source.readByte() );
+        assertEquals( (short) 200, source.readUnsignedByte() );
+        assertEquals( (short) -1234, source.readShort() );
+        assertEquals( 'ä', source.readChar() );
+        assertEquals( 0x12345678, source.readInt() );
+        assertEquals( 0x123456789ABCDEF0L, source.readLong() );
+        assertEquals( 1.5f, source.readFloat(), 0f );
+        assertEquals( -2.25d, source.readDouble(), 0d );
+        assertEquals( "Lightning", source.readString() );
+        assertEquals( LONG_STRING, source.readString() );
+
+        byte[] data = new byte[100];
+        assertEquals( 100, source.readBytes( data ) );
+        assertArrayEquals( bytes( 100 ), data );
+
+        data = new byte[5];
+        assertEquals( 5, source.readBytes( data ) );
+        assertArrayEquals( bytes( 5 ), data );
+
+        // Last value in the stream, must not fail on the speculative read ahead
+        assertEquals( "äöü € 𝄞", source.readString() );
+        assertTrue( source.readableBytes() <= 0 );
+    }
+
+    private static byte[] bytes( int length )
+    {
+        byte[] bytes = new byte[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns at most 3 bytes per read call to simulate short reads of network streams.
+     */
+    private static class TricklingInputStream
+        extends InputStream
+    {
+
+        private final ByteArrayInputStream delegate;
+
+        private TricklingInputStream( byte[] data )
+        {
+            this.delegate = new ByteArrayInputStream( data );
+        }
+
+        @Override
+        public int read()
+            throws IOException
+        {
+            return delegate.read();
+        }
+
+        @Override
+        public int read( byte[] b, int off, int len )
+            throws IOException
+        {
+            return delegate.read( b, off, Math.min( len, 3 ) );
+        }
+    }
+}
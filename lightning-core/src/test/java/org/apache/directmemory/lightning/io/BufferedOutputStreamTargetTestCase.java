@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.Lightning;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.Lengths;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.LengthsSerializerDefinition;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.Unit;
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.junit.Test;
+
+public class BufferedOutputStreamTargetTestCase
+{
+
+    @Test
+    public void testSameBytesAsOutputStreamTarget()
+        throws Exception
+    {
+        for ( ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN } )
+        {
+            for ( int bufferSize : new int[] { 8, 13, BufferedOutputStreamTarget.DEFAULT_BUFFER_SIZE } )
+            {
+                ByteArrayOutputStream expected = new ByteArrayOutputStream();
+                writeValues( new OutputStreamTarget( expected, byteOrder ) );
+
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                BufferedOutputStreamTarget target = new BufferedOutputStreamTarget( actual, byteOrder, bufferSize );
+                writeValues( target );
+                target.flush();
+
+                assertArrayEquals( expected.toByteArray(), actual.toByteArray() );
+                assertEquals( actual.size(), target.writtenBytes() );
+            }
+        }
+    }
+
+    @Test
+    public void testSerializerRoundTrip()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new LengthsSerializerDefinition() ).build();
+
+        Lengths value = new Lengths();
+        value.setName( "Buffered" );
+        value.setUnit( Unit.Hour );
+        value.setValues( new int[] { 5, 4, 3, 2, 1 } );
+        value.setNames( new String[] { null, "Foo" } );
+        List<String> list = new ArrayList<String>();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            list.add( "Value-" + i );
+        }
+        value.setList( list );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BufferedOutputStreamTarget target = new BufferedOutputStreamTarget( baos, ByteOrder.BIG_ENDIAN, 64 );
+        serializer.serialize( value, target );
+        target.flush();
+
+        Object result = serializer.deserialize( new InputStreamSource( new ByteArrayInputStream( baos.toByteArray() ) ) );
+        assertEquals( value, result );
+    }
+
+    private void writeValues( Target target )
+        throws Exception
+    {
+        target.writeBoolean( true );
+        target.writeByte( (byte) -12 );
+        target.writeUnsignedByte( (short) 200 );
+        target.writeShort( (short) -1234 );
+        target.writeChar( 'ä' );
+        target.writeInt( 0x12345678 );
+        target.writeLong( 0x123456789ABCDEF0L );
+        target.writeFloat( 1.5f );
+        target.writeDouble( -2.25d );
+        target.writeString( "Lightning" );
+        target.writeString( "äöü € 𝄞" );
+
+        StringBuilder longString = new StringBuilder();
+        for ( int i = 0; i < 100; i++ )
+        {
+            longString.append( "ä" ).append( i );
+        }
+        target.writeString( longString.toString() );
+
+        byte[] bytes = new byte[100];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            bytes[i] = (byte) i;
+        }
+        target.writeBytes( bytes, 0, 5 );
+        target.writeBytes( bytes );
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.util.UnsafeUtil;
+import org.junit.Test;
+
+public class BulkArrayTestCase
+{
+
+    private static final int SIZE = 5000;
+
+    private final short[] shorts = new short[SIZE];
+
+    private final char[] chars = new char[SIZE];
+
+    private final int[] ints = new int[SIZE];
+
+    private final long[] longs = new long[SIZE];
+
+    private final float[] floats = new float[SIZE];
+
+    private final double[] doubles = new double[SIZE];
+
+    public BulkArrayTestCase()
+    {
+        Random random = new Random( 42 );
+        for ( int i = 0; i < SIZE; i++ )
+        {
+            shorts[i] = (short) random.nextInt();
+            chars[i] = (char) random.nextInt();
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            floats[i] = random.nextFloat();
+            doubles[i] = random.nextDouble();
+        }
+    }
+
+    @Test
+    public void testStreams()
+        throws Exception
+    {
+        for ( ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN } )
+        {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            writeBulk( new OutputStreamTarget( baos, byteOrder ) );
+            verify( byteOrder, baos.toByteArray(), new InputStreamSource( new ByteArrayInputStream( baos.toByteArray() ),
+                                                                          byteOrder ) );
+
+            // Tiny buffers split almost every value, bigger ones are copied in chunks with an odd tail
+            for ( int bufferSize : new int[] { 13, 1021 } )
+            {
+                baos = new ByteArrayOutputStream();
+                BufferedOutputStreamTarget target = new BufferedOutputStreamTarget( baos, byteOrder, bufferSize );
+                writeBulk( target );
+                target.flush();
+                verify( byteOrder, baos.toByteArray(),
+                        new BufferedInputStreamSource( new ByteArrayInputStream( baos.toByteArray() ), byteOrder,
+                                                       bufferSize ) );
+            }
+        }
+    }
+
+    @Test
+    public void testByteBuffers()
+        throws Exception
+    {
+        for ( ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN } )
+        {
+            ByteBuffer byteBuffer = ByteBuffer.allocate( SIZE * 32 ).order( byteOrder );
+            writeBulk( new ByteBufferTarget( byteBuffer ) );
+            byteBuffer.flip();
+            byte[] data = new byte[byteBuffer.remaining()];
+            byteBuffer.duplicate().get( data );
+            verify( byteOrder, data, new ByteBufferSource( byteBuffer ) );
+
+            for ( int segmentSize : new int[] { 13, 1021 } )
+            {
+                DirectByteBufferPool pool = new DirectByteBufferPool( segmentSize, 0 );
+                SegmentedByteBufferTarget target = new SegmentedByteBufferTarget( pool, byteOrder );
+                writeBulk( target );
+                Source source = new SegmentedByteBufferSource( byteOrder, target.toByteBuffers() );
+                source.readBytes( data );
+                source.clear();
+                verify( byteOrder, data, source );
+            }
+        }
+    }
+
+    @Test
+    public void testUnsafeMemory()
+        throws Exception
+    {
+        for ( ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN } )
+        {
+            ByteBuffer memory = ByteBuffer.allocateDirect( SIZE * 32 );
+            long address = UnsafeUtil.getAddress( memory );
+            UnsafeMemoryTarget target = new UnsafeMemoryTarget( address, memory.capacity(), byteOrder );
+            writeBulk( target );
+
+            byte[] data = new byte[(int) target.writtenBytes()];
+            memory.get( data );
+            verify( byteOrder, data, new UnsafeMemorySource( address, data.length, byteOrder ) );
+        }
+    }
+
+    @Test
+    public void testMappedFile()
+        throws Exception
+    {
+        File file = File.createTempFile( "lightning", ".bulk", new File( "target" ) );
+        file.deleteOnExit();
+
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            MappedFileTarget target = new MappedFileTarget( channel, 0, ByteOrder.BIG_ENDIAN, 1001 );
+            writeBulk( target );
+            target.free();
+
+            byte[] data = new byte[(int) target.writtenBytes()];
+            Source source = new MappedFileSource( channel, 0, ByteOrder.BIG_ENDIAN, 1001 );
+            source.readBytes( data );
+            source.clear();
+            verify( ByteOrder.BIG_ENDIAN, data, source );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    private void writeBulk( Target target )
+        throws Exception
+    {
+        target.writeShorts( shorts, 0, SIZE );
+        target.writeChars( chars, 1, SIZE - 1 );
+        target.writeInts( ints, 0, SIZE );
+        target.writeLongs( longs, 2, SIZE - 3 );
+        target.writeFloats( floats, 0, SIZE );
+        target.writeDoubles( doubles, 0, SIZE );
+    }
+
+    private void verify( ByteOrder byteOrder, byte[] data, Source source )
+        throws Exception
+    {
+        // Bulk written data must be equal to element-wise written data
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Target target = new OutputStreamTarget( baos, byteOrder );
+        for ( int i = 0; i < SIZE; i++ )
+        {
+            target.writeShort( shorts[i] );
+        }
+        for ( int i = 1; i < SIZE; i++ )
+        {
+            target.writeChar( chars[i] );
+        }
+        for ( int i = 0; i < SIZE; i++ )
+        {
+            target.writeInt( ints[i] );
+        }
+        for ( int i = 2; i < SIZE - 1; i++ )
+        {
+            target.writeLong( longs[i] );
+        }
+        for ( int i = 0; i < SIZE; i++ )
+        {
+            target.writeFloat( floats[i] );
+        }
+        for ( int i = 0; i < SIZE; i++ )
+        {
+            target.writeDouble( doubles[i] );
+        }
+        assertArrayEquals( baos.toByteArray(), data );
+
+        short[] shorts = new short[SIZE];
+        source.readShorts( shorts, 0, SIZE );
+        assertArrayEquals( this.shorts, shorts );
+
+        char[] chars = new char[SIZE];
+        source.readChars( chars, 1, SIZE - 1 );
+        chars[0] = this.chars[0];
+        assertArrayEquals( this.chars, chars );
+
+        int[] ints = new int[SIZE];
+        source.readInts( ints, 0, SIZE );
+        assertArrayEquals( this.ints, ints );
+
+        long[] longs = new long[SIZE];
+        source.readLongs( longs, 2, SIZE - 3 );
+        for ( int i = 2; i < SIZE - 1; i++ )
+        {
+            assertEquals( this.longs[i], longs[i] );
+        }
+
+        float[] floats = new float[SIZE];
+        source.readFloats( floats, 0, SIZE );
+        assertArrayEquals( this.floats, floats, 0f );
+
+        double[] doubles = new double[SIZE];
+        source.readDoubles( doubles, 0, SIZE );
+        assertArrayEquals( this.doubles, doubles, 0d );
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.directmemory.lightning.Lightning;
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.base.AbstractSerializerDefinition;
+import org.apache.directmemory.lightning.exceptions.SerializerExecutionException;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.metadata.Attribute;
+import org.junit.Test;
+
+public class FramedRecordTestCase
+{
+
+    @Test
+    public void testReadFramedRecords()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+        byte[] data = writeRecords( serializer, 10, true );
+
+        FramedRecordReader reader =
+            new FramedRecordReader( serializer, new InputStreamSource( new ByteArrayInputStream( data ) ) );
+        for ( int i = 0; i < 10; i++ )
+        {
+            Entry entry = reader.read();
+            assertEquals( i, entry.getId() );
+            assertEquals( "entry-" + i, entry.getName() );
+        }
+        assertFalse( reader.hasNext() );
+        assertEquals( data.length, reader.position() );
+    }
+
+    @Test
+    public void testSkipCountAndIndex()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+        byte[] data = writeRecords( serializer, 100, false );
+
+        FramedRecordReader reader = new FramedRecordReader( serializer, new ByteBufferSource( ByteBuffer.wrap( data ) ) );
+        reader.skip();
+        reader.skip();
+        Entry entry = reader.read();
+        assertEquals( 2, entry.getId() );
+        assertEquals( 97, reader.count() );
+
+        long[] index = new FramedRecordReader( serializer, new ByteBufferSource( ByteBuffer.wrap( data ) ) ).index();
+        assertEquals( 100, index.length );
+        assertEquals( 0, index[0] );
+
+        // Seek to record 42 using the index
+        ByteBuffer buffer = ByteBuffer.wrap( data );
+        buffer.position( (int) index[42] );
+        entry = new FramedRecordReader( serializer, new ByteBufferSource( buffer ) ).read();
+        assertEquals( 42, entry.getId() );
+    }
+
+    @Test
+    public void testSkipRecordsLargerThanFrame()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        FramedRecordWriter writer = new FramedRecordWriter( serializer, new OutputStreamTarget( baos ), true );
+        char[] name = new char[10000];
+        Arrays.fill( name, 'x' );
+        writer.write( new Entry( 0, new String( name ) ) );
+        writer.write( new Entry( 1, "small" ) );
+        writer.write( new Entry( 2, new String( name, 0, 1000 ) ) );
+        byte[] data = baos.toByteArray();
+
+        FramedRecordReader reader =
+            new FramedRecordReader( serializer, new InputStreamSource( new ByteArrayInputStream( data ) ) );
+        reader.skip();
+        assertEquals( "small", reader.<Entry> read().getName() );
+        assertEquals( 1000, reader.<Entry> read().getName().length() );
+        assertEquals( data.length, reader.position() );
+
+        long[] index = new FramedRecordReader( serializer, new ByteBufferSource( ByteBuffer.wrap( data ) ) ).index();
+        assertEquals( 3, index.length );
+        ByteBuffer buffer = ByteBuffer.wrap( data );
+        buffer.position( (int) index[2] );
+        assertEquals( 2, new FramedRecordReader( serializer, new ByteBufferSource( buffer ) ).<Entry> read().getId() );
+    }
+
+    @Test
+    public void testRecoverAfterCorruptedRecord()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+        byte[] data = writeRecords( serializer, 3, true );
+        long[] index = new FramedRecordReader( serializer, new ByteBufferSource( ByteBuffer.wrap( data ) ) ).index();
+
+        // Flip the last byte of the second record
+        byte[] corrupted = data.clone();
+        corrupted[(int) index[2] - 1] ^= 0xFF;
+
+        FramedRecordReader reader =
+            new FramedRecordReader( serializer, new InputStreamSource( new ByteArrayInputStream( corrupted ) ) );
+        assertEquals( 0, reader.<Entry> read().getId() );
+        try
+        {
+            reader.read();
+            throw new AssertionError( "SerializerExecutionException expected" );
+        }
+        catch ( SerializerExecutionException e )
+        {
+            // expected
+        }
+        assertEquals( 2, reader.<Entry> read().getId() );
+        assertFalse( reader.hasNext() );
+    }
+
+    @Test
+    public void testChecksumIsOptional()
+        throws Exception
+    {
+        Serializer serializer = buildSerializer();
+        byte[] plain = writeRecords( serializer, 5, false );
+        byte[] checked = writeRecords( serializer, 5, true );
+        assertEquals( plain.length + 5 * 4, checked.length );
+
+        long[] plainIndex = new FramedRecordReader( serializer, new ByteBufferSource( ByteBuffer.wrap( plain ) ) ).index();
+        long[] checkedIndex =
+            new FramedRecordReader( serializer, new ByteBufferSource( ByteBuffer.wrap( checked ) ) ).index();
+        for ( int i = 0; i < 5; i++ )
+        {
+            assertEquals( plainIndex[i] + i * 4, checkedIndex[i] );
+        }
+
+        // Stream based sources produce the same index
+        Source source = new InputStreamSource( new ByteArrayInputStream( plain ) );
+        assertArrayEquals( plainIndex, new FramedRecordReader( serializer, source ).index() );
+    }
+
+    private Serializer buildSerializer()
+    {
+        return Lightning.newBuilder().logger( new DebugLogger() ).serializerDefinitions( new EntrySerializerDefinition() ).build();
+    }
+
+    private byte[] writeRecords( Serializer serializer, int count, boolean checksum )
+        throws Exception
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        FramedRecordWriter writer = new FramedRecordWriter( serializer, new OutputStreamTarget( baos ), checksum );
+        for ( int i = 0; i < count; i++ )
+        {
+            writer.write( new Entry( i, "entry-" + i ) );
+        }
+        return baos.toByteArray();
+    }
+
+    public static class EntrySerializerDefinition
+        extends AbstractSerializerDefinition
+    {
+
+        @Override
+        protected void configure()
+        {
+            serialize( Entry.class ).attributes();
+        }
+    }
+
+    public static class Entry
+    {
+
+        @Attribute
+        private int id;
+
+        @Attribute
+        private String name;
+
+        public Entry()
+        {
+        }
+
+        public Entry( int id, String name )
+        {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId()
+        {
+            return id;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.Lightning;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.Lengths;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.LengthsSerializerDefinition;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.Unit;
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.junit.Test;
+
+public class MappedFileTestCase
+{
+
+    @Test
+    public void testWindowBoundaries()
+        throws Exception
+    {
+        File file = File.createTempFile( "lightning", ".mapped", new File( "target" ) );
+        file.deleteOnExit();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        writeValues( new OutputStreamTarget( expected ) );
+
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            MappedFileTarget target = new MappedFileTarget( channel, 0, ByteOrder.BIG_ENDIAN, 13 );
+            writeValues( target );
+            target.free();
+
+            assertEquals( expected.size(), target.writtenBytes() );
+            assertEquals( expected.size(), channel.size() );
+
+            Source source = new MappedFileSource( channel, 0, ByteOrder.BIG_ENDIAN, 13 );
+            byte[] actual = new byte[expected.size()];
+            source.readBytes( actual );
+            assertArrayEquals( expected.toByteArray(), actual );
+
+            source.clear();
+            readValues( source );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testSerializerRoundTrip()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new LengthsSerializerDefinition() ).build();
+
+        Lengths value = new Lengths();
+        value.setName( "Mapped" );
+        value.setUnit( Unit.Hour );
+        value.setValues( new int[] { 1, 2, 3 } );
+        value.setNames( new String[] { "Foo", "Bar" } );
+        List<String> list = new ArrayList<String>();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            list.add( "Value-" + i );
+        }
+        value.setList( list );
+
+        File file = File.createTempFile( "lightning", ".mapped", new File( "target" ) );
+        file.deleteOnExit();
+
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            FileChannel channel = raf.getChannel();
+            MappedFileTarget target = new MappedFileTarget( channel, 0, ByteOrder.BIG_ENDIAN, 1024 );
+            serializer.serialize( value, target );
+            serializer.serialize( value, target );
+            target.free();
+
+            Source source = new MappedFileSource( channel, 0, ByteOrder.BIG_ENDIAN, 1024 );
+            assertEquals( value, serializer.deserialize( source ) );
+            assertEquals( value, serializer.deserialize( source ) );
+            assertEquals( 0, source.readableBytes() );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testFreeRemovesWindowPadding()
+        throws Exception
+    {
+        // Pre-existing file, the write ends inside the original size
+        File file = File.createTempFile( "lightning", ".mapped", new File( "target" ) );
+        file.deleteOnExit();
+
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            raf.setLength( 100 );
+            FileChannel channel = raf.getChannel();
+            MappedFileTarget target = new MappedFileTarget( channel, 0, ByteOrder.BIG_ENDIAN, 4096 );
+            target.writeInt( 42 );
+            target.free();
+            assertEquals( 100, file.length() );
+
+            // Pre-existing file, the write ends behind the original size
+            target = new MappedFileTarget( channel, 96, ByteOrder.BIG_ENDIAN, 4096 );
+            target.writeLong( 42L );
+            target.free();
+            assertEquals( 104, file.length() );
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        // Empty file without any write
+        file = File.createTempFile( "lightning", ".mapped", new File( "target" ) );
+        file.deleteOnExit();
+
+        raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            MappedFileTarget target = new MappedFileTarget( raf.getChannel(), 0, ByteOrder.BIG_ENDIAN, 4096 );
+            target.free();
+            assertEquals( 0, file.length() );
+
+            // Empty file with less bytes written than the window
+            target = new MappedFileTarget( raf.getChannel(), 0, ByteOrder.BIG_ENDIAN, 4096 );
+            target.writeInt( 42 );
+            target.free();
+            assertEquals( 4, file.length() );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    private void writeValues( Target target )
+        throws Exception
+    {
+        target.writeByte( (byte) 1 );
+        target.writeShort( (short) -1234 );
+        target.writeInt( 0x12345678 );
+        target.writeLong( 0x123456789ABCDEF0L );
+        target.writeDouble( -2.25d );
+        target.writeChar( 'ä' );
+        target.writeString( "äöü € Lightning" );
+        target.writeBytes( new byte[40], 3, 30 );
+        target.writeLong( Long.MIN_VALUE );
+    }
+
+    private void readValues( Source source )
+        throws Exception
+    {
+        assertEquals( (byte) 1, source.readByte() );
+        assertEquals( (short) -1234, source.readShort() );
+        assertEquals( 0x12345678, source.readInt() );
+        assertEquals( 0x123456789ABCDEF0L, source.readLong() );
+        assertEquals( -2.25d, source.readDouble(), 0d );
+        assertEquals( 'ä', source.readChar() );
+        assertEquals( "äöü € Lightning", source.readString() );
+        assertEquals( 30, source.readBytes( new byte[30] ) );
+        assertEquals( Long.MIN_VALUE, source.readLong() );
+        assertEquals( 0, source.readableBytes() );
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.Lightning;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.Lengths;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.LengthsSerializerDefinition;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.Unit;
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.junit.Test;
+
+public class SegmentedByteBufferTestCase
+{
+
+    @Test
+    public void testSegmentBoundaries()
+        throws Exception
+    {
+        for ( ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN } )
+        {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            writeValues( new OutputStreamTarget( expected, byteOrder ) );
+
+            DirectByteBufferPool pool = new DirectByteBufferPool( 13, 16 );
+            SegmentedByteBufferTarget target = new SegmentedByteBufferTarget( pool, byteOrder );
+            writeValues( target );
+            assertEquals( expected.size(), target.writtenBytes() );
+
+            ByteBuffer[] byteBuffers = target.toByteBuffers();
+            assertTrue( byteBuffers.length > 1 );
+
+            Source source = new SegmentedByteBufferSource( byteOrder, byteBuffers );
+            assertEquals( expected.size(), source.readableBytes() );
+
+            byte[] actual = new byte[expected.size()];
+            source.readBytes( actual );
+            assertArrayEquals( expected.toByteArray(), actual );
+
+            source.clear();
+            readValues( source );
+
+            target.free();
+            assertEquals( byteBuffers.length, pool.getPooledSegments() );
+        }
+    }
+
+    @Test
+    public void testSerializerRoundTrip()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new LengthsSerializerDefinition() ).build();
+
+        Lengths value = new Lengths();
+        value.setName( "Segmented" );
+        value.setUnit( Unit.Minute );
+        value.setValues( new int[] { 1, 2, 3 } );
+        value.setNames( new String[] { "Foo" } );
+        List<String> list = new ArrayList<String>();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            list.add( "Value-" + i );
+        }
+        value.setList( list );
+
+        DirectByteBufferPool pool = new DirectByteBufferPool( 1024, 64 );
+        SegmentedByteBufferTarget target = new SegmentedByteBufferTarget( pool );
+        serializer.serialize( value, target );
+
+        Object result = serializer.deserialize( new SegmentedByteBufferSource( target.toByteBuffers() ) );
+        assertEquals( value, result );
+
+        // Reuse the first segment and give all others back
+        int segments = target.toByteBuffers().length;
+        target.clear();
+        assertEquals( 0, target.writtenBytes() );
+        assertEquals( segments - 1, pool.getPooledSegments() );
+
+        serializer.serialize( value, target );
+        result = serializer.deserialize( new SegmentedByteBufferSource( target.toByteBuffers() ) );
+        assertEquals( value, result );
+        target.free();
+    }
+
+    private void writeValues( Target target )
+        throws Exception
+    {
+        target.writeByte( (byte) 1 );
+        target.writeShort( (short) -1234 );
+        target.writeInt( 0x12345678 );
+        target.writeLong( 0x123456789ABCDEF0L );
+        target.writeDouble( -2.25d );
+        target.writeChar( 'ä' );
+        target.writeString( "äöü € Lightning" );
+        target.writeBytes( new byte[40], 3, 30 );
+        target.writeLong( Long.MIN_VALUE );
+    }
+
+    private void readValues( Source source )
+        throws Exception
+    {
+        assertEquals( (byte) 1, source.readByte() );
+        assertEquals( (short) -1234, source.readShort() );
+        assertEquals( 0x12345678, source.readInt() );
+        assertEquals( 0x123456789ABCDEF0L, source.readLong() );
+        assertEquals( -2.25d, source.readDouble(), 0d );
+        assertEquals( 'ä', source.readChar() );
+        assertEquals( "äöü € Lightning", source.readString() );
+        assertEquals( 30, source.readBytes( new byte[30] ) );
+        assertEquals( Long.MIN_VALUE, source.readLong() );
+        assertEquals( 0, source.readableBytes() );
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.directmemory.lightning.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directmemory.lightning.Lightning;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.Lengths;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.LengthsSerializerDefinition;
+import org.apache.directmemory.lightning.NumberEncodingStrategyTestCase.Unit;
+import org.apache.directmemory.lightning.Serializer;
+import org.apache.directmemory.lightning.Source;
+import org.apache.directmemory.lightning.Target;
+import org.apache.directmemory.lightning.internal.util.DebugLogger;
+import org.apache.directmemory.lightning.internal.util.UnsafeUtil;
+import org.junit.Test;
+
+public class UnsafeMemoryTestCase
+{
+
+    @Test
+    public void testSameBytesAsOutputStreamTarget()
+        throws Exception
+    {
+        for ( ByteOrder byteOrder : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN } )
+        {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            writeValues( new OutputStreamTarget( expected, byteOrder ) );
+
+            ByteBuffer memory = ByteBuffer.allocateDirect( 1024 );
+            long address = UnsafeUtil.getAddress( memory );
+
+            UnsafeMemoryTarget target = new UnsafeMemoryTarget( address, memory.capacity(), byteOrder );
+            writeValues( target );
+            assertEquals( expected.size(), target.writtenBytes() );
+
+            byte[] actual = new byte[expected.size()];
+            memory.get( actual );
+            assertArrayEquals( expected.toByteArray(), actual );
+
+            readValues( new UnsafeMemorySource( address, target.writtenBytes(), byteOrder ) );
+        }
+    }
+
+    @Test
+    public void testSerializerRoundTrip()
+        throws Exception
+    {
+        Serializer serializer =
+            Lightning.newBuilder().logger( new DebugLogger() ).debugCacheDirectory( new File( "target" ) ).serializerDefinitions( new LengthsSerializerDefinition() ).build();
+
+        Lengths value = new Lengths();
+        value.setName( "Unsafe" );
+        value.setUnit( Unit.Second );
+        value.setValues( new int[] { 1, 2, 3 } );
+        value.setNames( new String[] { "Foo", "Bar" } );
+        List<String> list = new ArrayList<String>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            list.add( "Value-" + i );
+        }
+        value.setList( list );
+
+        sun.misc.Unsafe unsafe = UnsafeUtil.getUnsafe();
+        long address = unsafe.allocateMemory( 4096 );
+        try
+        {
+            UnsafeMemoryTarget target = new UnsafeMemoryTarget( address, 4096 );
+            serializer.serialize( value, target );
+
+            Object result = serializer.deserialize( new UnsafeMemorySource( address, target.writtenBytes() ) );
+            assertEquals( value, result );
+        }
+        finally
+        {
+            unsafe.freeMemory( address );
+        }
+    }
+
+    @Test( expected = BufferOverflowException.class )
+    public void testOverflow()
+        throws Exception
+    {
+        ByteBuffer memory = ByteBuffer.allocateDirect( 6 );
+        Target target = new UnsafeMemoryTarget( UnsafeUtil.getAddress( memory ), memory.capacity() );
+        target.writeInt( 1 );
+        target.writeInt( 2 );
+    }
+
+    private void writeValues( Target target )
+        throws Exception
+    {
+        target.writeBoolean( true );
+        target.writeByte( (byte) -12 );
+        target.writeShort( (short) -1234 );
+        target.writeChar( 'ä' );
+        target.writeInt( 0x12345678 );
+        target.writeLong( 0x123456789ABCDEF0L );
+        target.writeFloat( 1.5f );
+        target.writeDouble( -2.25d );
+        target.writeString( "äöü € Lightning" );
+        target.writeBytes( new byte[] { 1, 2, 3, 4, 5, 6 }, 2, 3 );
+    }
+
+    private void readValues( Source source )
+        throws Exception
+    {
+        assertEquals( true, source.readBoolean() );
+        assertEquals( (byte) -12, source.readByte() );
+        assertEquals( (short) -1234, source.readShort() );
+        assertEquals( 'ä', source.readChar() );
+        assertEquals( 0x12345678, source.readInt() );
+        assertEquals( 0x123456789ABCDEF0L, source.readLong() );
+        assertEquals( 1.5f, source.readFloat(), 0f );
+        assertEquals( -2.25d, source.readDouble(), 0d );
+        assertEquals( "äöü € Lightning", source.readString() );
+
+        byte[] bytes = new byte[3];
+        assertEquals( 3, source.readBytes( bytes ) );
+        assertArrayEquals( new byte[] { 3, 4, 5 }, bytes );
+        assertEquals( 0, source.readableBytes() );
+    }
+}
@@ -212,6 +212,12 @@ public class SerializerDefinitionAnalyser
             classDescriptor.push( propertyDescriptor );
         }
 
+        @Override
+        public void visitReferenceTracking( Class<?> type, boolean trackReferences )
+        {
+            findClassDescriptor( type ).setReferenceTracking( trackReferences );
+        }
+
         @Override
         public void visitFinalizeSerializerDefinition( SerializerDefinition serializerDefinition )
         {